@@ -0,0 +1,460 @@
+package dcproject;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configurable analog-to-digital front end over {@code double[]} and {@code float[]} sample blocks:
+ * PCM at 1 to {@link #MAX_BITS} bits over a given range, linear or μ-law/A-law companded, fixed-step
+ * delta modulation, and CVSD, delta modulation whose step grows while the bits keep repeating and
+ * decays back otherwise. {@link #reconstruct} is the matching receiver, so a round trip can be
+ * checked against the input; a {@link Modulator} also counts the quantization noise as it goes.
+ * <p>
+ * PCM codes are written most significant bit first, like {@link SignalEngine#pcmEncode}, but the
+ * range is cut into {@code 2^bits} equal cells (of the companded value) that decode to their
+ * centres. Companded codes need no logarithm per sample: the distance from the middle of the range
+ * is binned by its floating-point exponent and top mantissa bits, which is close to logarithmic
+ * like the laws themselves, and a table gives the first cell a bin can fall in; the cell edges
+ * past it are then compared, about one per sample. Blocks of at least
+ * {@link #MIN_PARALLEL_SAMPLES} samples are quantized in chunks on the common fork-join pool. DM
+ * and CVSD carry their approximation from sample to sample, so they stay sequential; both start
+ * from 0 and every sample yields one bit.
+ * <p>
+ * Instances are immutable; modulators are not thread safe.
+ */
+public final class AnalogFrontEnd {
+    public enum Method { PCM, DM, CVSD }
+
+    public enum Companding {
+        LINEAR("linear"), MU_LAW("mu"), A_LAW("a");
+
+        static final double MU = 255, A = 87.6;
+
+        private final String label;
+
+        Companding(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        /** Maps {@code x} in [-1, 1] to the companded value in [-1, 1]. */
+        public double compress(double x) {
+            double a = Math.abs(x), y;
+            switch (this) {
+                case MU_LAW: y = Math.log1p(MU * a) / Math.log1p(MU); break;
+                case A_LAW: y = a < 1 / A ? A * a / (1 + Math.log(A)) : (1 + Math.log(A * a)) / (1 + Math.log(A)); break;
+                default: return x;
+            }
+            return Math.copySign(y, x);
+        }
+
+        /** The inverse of {@link #compress}. */
+        public double expand(double y) {
+            double a = Math.abs(y), x;
+            switch (this) {
+                case MU_LAW: x = Math.expm1(a * Math.log1p(MU)) / MU; break;
+                case A_LAW: x = a < 1 / (1 + Math.log(A)) ? a * (1 + Math.log(A)) / A : Math.exp(a * (1 + Math.log(A)) - 1) / A; break;
+                default: return y;
+            }
+            return Math.copySign(x, y);
+        }
+
+        /** {@code linear}, {@code mu} ({@code mu-law}, {@code ulaw}) or {@code a} ({@code a-law}). */
+        public static Companding parse(String name) {
+            switch (name.toLowerCase(Locale.ROOT)) {
+                case "linear": case "none": return LINEAR;
+                case "mu": case "mu-law": case "ulaw": case "u-law": case "μ-law": return MU_LAW;
+                case "a": case "a-law": case "alaw": return A_LAW;
+                default: throw new IllegalArgumentException("Unknown companding: " + name);
+            }
+        }
+    }
+
+    public static final int MAX_BITS = 16;
+    /** Repeated bits in a row that make CVSD grow its step. */
+    public static final int CVSD_RUN = 3;
+    /** Per-sample decay of the CVSD step boost towards the minimum step. */
+    static final double CVSD_DECAY = 1 - 1.0 / 16;
+    /** A CVSD bit history with no run of equal bits, so the step starts at its minimum. */
+    private static final int NO_RUN = 0x55555555;
+    /** Below this many samples a PCM block is quantized on the calling thread. */
+    static final int MIN_PARALLEL_SAMPLES = 1 << 16;
+    private static final int MIN_CHUNK_SAMPLES = 1 << 14;
+    /** {@code float[]} input is widened through a scratch block of this many samples. */
+    private static final int SCRATCH_SAMPLES = 1 << 12;
+
+    private final Method method;
+    private final int bits;
+    private final double min, max;
+    private final Companding companding;
+    private final double step, maxStep;
+    /** PCM: cells per unit of input for the linear quantizer. */
+    private final double scale;
+    /**
+     * Companded PCM: the edges of the upper half's cells as distances from the middle of the range
+     * over half its width, from 0 up; the lower half mirrors them.
+     */
+    private final double[] halfEdges;
+    /** Companded PCM: per {@link #bin}, the upper-half cell its smallest distance falls in. */
+    private final int[] hint;
+    private final int hintShift;
+    private final long hintBase;
+    /** PCM: the value every code decodes to. */
+    private final double[] values;
+    /** PCM: every code bit-reversed, as it is appended least significant bit first; its own inverse. */
+    private final int[] reversed;
+
+    private AnalogFrontEnd(Method method, int bits, double min, double max, Companding companding, double step, double maxStep) {
+        this.method = method;
+        this.bits = bits;
+        this.min = min;
+        this.max = max;
+        this.companding = companding;
+        this.step = step;
+        this.maxStep = maxStep;
+        if (method != Method.PCM) {
+            scale = 0;
+            halfEdges = values = null;
+            reversed = hint = null;
+            hintShift = 0;
+            hintBase = 0;
+            return;
+        }
+        int levels = 1 << bits;
+        scale = levels / (max - min);
+        values = new double[levels];
+        reversed = new int[levels];
+        for (int q = 0; q < levels; q++) reversed[q] = Integer.reverse(q) >>> (32 - bits);
+        for (int q = 0; q < levels; q++) values[q] = toSample(companding.expand((2 * q + 1.0) / levels - 1));
+        if (companding == Companding.LINEAR) {
+            halfEdges = null;
+            hint = null;
+            hintShift = 0;
+            hintBase = 0;
+            return;
+        }
+        int half = levels / 2;
+        halfEdges = new double[half];
+        for (int k = 1; k < half; k++) halfEdges[k] = companding.expand((double) k / half);
+        // both laws have about levels / 16 cells per octave: four bins a cell keep the scan short,
+        // up to 4096 bins an octave for a table of a few hundred kilobytes at 16 bits
+        int mantissaBits = Math.max(0, Math.min(12, bits - 2));
+        int octaves = half == 1 ? 1 : Math.getExponent(halfEdges[1]) < -1 ? 1 - Math.getExponent(halfEdges[1]) : 2;
+        hintShift = 52 - mantissaBits;
+        hintBase = Double.doubleToRawLongBits(Math.scalb(1.0, -octaves)) >>> hintShift;
+        hint = new int[(octaves << mantissaBits) + 1];
+        for (int b = 1, k = 0; b < hint.length; b++) {
+            double start = Double.longBitsToDouble((hintBase + b - 1) << hintShift);
+            while (k + 1 < half && halfEdges[k + 1] <= start) k++;
+            hint[b] = k;
+        }
+    }
+
+    /** Table index of a normalized distance {@code a >= 0}: 0 below the first bin, the last from 1 up. */
+    private int bin(double a) {
+        long b = (Double.doubleToRawLongBits(a) >>> hintShift) - hintBase + 1;
+        return (int) Math.max(0, Math.min(hint.length - 1, b));
+    }
+
+    /** {@code bits}-bit PCM of samples in {@code [min, max]}; samples outside are clipped. */
+    public static AnalogFrontEnd pcm(int bits, double min, double max, Companding companding) {
+        if (bits < 1 || bits > MAX_BITS) throw new IllegalArgumentException("PCM bits must be 1 to " + MAX_BITS + ": " + bits);
+        if (!(min < max) || Double.isInfinite(max - min)) throw new IllegalArgumentException("empty range " + min + ":" + max);
+        return new AnalogFrontEnd(Method.PCM, bits, min, max, Objects.requireNonNull(companding), 0, 0);
+    }
+
+    /** Delta modulation with a fixed step. */
+    public static AnalogFrontEnd delta(double step) {
+        checkStep(step);
+        return new AnalogFrontEnd(Method.DM, 1, -1, 1, Companding.LINEAR, step, step);
+    }
+
+    /** CVSD with a step between {@code minStep} and {@code maxStep}. */
+    public static AnalogFrontEnd cvsd(double minStep, double maxStep) {
+        checkStep(minStep);
+        if (!(maxStep >= minStep) || Double.isInfinite(maxStep)) {
+            throw new IllegalArgumentException("maximum step must be at least the minimum " + minStep + ": " + maxStep);
+        }
+        return new AnalogFrontEnd(Method.CVSD, 1, -1, 1, Companding.LINEAR, minStep, maxStep);
+    }
+
+    private static void checkStep(double step) {
+        if (!(step > 0) || Double.isInfinite(step)) throw new IllegalArgumentException("step must be positive: " + step);
+    }
+
+    public Method method() {
+        return method;
+    }
+
+    /** Bits per sample: the PCM code width, else 1. */
+    public int bitsPerSample() {
+        return bits;
+    }
+
+    public Companding companding() {
+        return companding;
+    }
+
+    /** A fresh encoder for a stream of blocks. */
+    public Modulator modulator() {
+        return new Modulator();
+    }
+
+    /** Encodes a whole capture. */
+    public BitBuffer encode(double[] samples) {
+        BitBuffer out = new BitBuffer(samples.length * bits);
+        modulator().encode(samples, 0, samples.length, out);
+        return out;
+    }
+
+    public BitBuffer encode(float[] samples) {
+        BitBuffer out = new BitBuffer(samples.length * bits);
+        modulator().encode(samples, 0, samples.length, out);
+        return out;
+    }
+
+    /** Decodes a whole bit stream back to samples; a trailing partial PCM code is ignored. */
+    public double[] reconstruct(BitBuffer in) {
+        int n = in.size() / bits;
+        double[] out = new double[n];
+        if (method != Method.PCM) {
+            reconstructDelta(in, n, out);
+            return out;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if (n < MIN_PARALLEL_SAMPLES || pool.getParallelism() < 2) {
+            reconstructPcm(in, 0, n, out);
+            return out;
+        }
+        int chunk = chunkSamples(n, pool);
+        pool.invoke(new ParallelEncoder.ChunkTask(0, (n + chunk - 1) / chunk,
+                c -> reconstructPcm(in, c * chunk, Math.min(n, (c + 1) * chunk), out)));
+        return out;
+    }
+
+    private void reconstructPcm(BitBuffer in, int from, int to, double[] out) {
+        for (int i = from; i < to; i++) {
+            out[i] = values[reversed[(int) in.getBits(i * bits, bits)]];
+        }
+    }
+
+    private void reconstructDelta(BitBuffer in, int n, double[] out) {
+        double approx = 0, boost = 0;
+        int history = NO_RUN;
+        for (int i = 0; i < n; i += 64) {
+            long word = in.getBits(i, Math.min(64, n - i));
+            for (int k = 0, m = Math.min(64, n - i); k < m; k++) {
+                int bit = (int) (word >>> k) & 1;
+                double s = step;
+                if (method == Method.CVSD) {
+                    history = history << 1 | bit;
+                    boost = nextBoost(boost, history);
+                    s += boost;
+                }
+                approx += bit != 0 ? s : -s;
+                out[i + k] = approx;
+            }
+        }
+    }
+
+    private double nextBoost(double boost, int history) {
+        int run = history & ((1 << CVSD_RUN) - 1);
+        boost *= CVSD_DECAY;
+        if (run == 0 || run == (1 << CVSD_RUN) - 1) boost += (maxStep - step) * (1 - CVSD_DECAY);
+        return boost;
+    }
+
+    private double toSample(double unit) {
+        return min + (unit + 1) / 2 * (max - min);
+    }
+
+    private static int chunkSamples(int n, ForkJoinPool pool) {
+        // a multiple of 64 keeps every chunk's codes word-aligned
+        return Math.max(MIN_CHUNK_SAMPLES, n / (pool.getParallelism() * 4)) & -64;
+    }
+
+    /** Quantization signal-to-noise ratio of {@code reconstructed} against {@code original}, in dB. */
+    public static double snrDb(double[] original, double[] reconstructed) {
+        int n = Math.min(original.length, reconstructed.length);
+        double signal = 0, noise = 0;
+        for (int i = 0; i < n; i++) {
+            double e = original[i] - reconstructed[i];
+            signal += original[i] * original[i];
+            noise += e * e;
+        }
+        return snrDb(signal, noise);
+    }
+
+    private static double snrDb(double signal, double noise) {
+        return noise == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(signal / noise);
+    }
+
+    @Override
+    public String toString() {
+        switch (method) {
+            case PCM: return String.format(Locale.ROOT, "%d-bit %s PCM over [%s, %s]", bits, companding.label(), min, max);
+            case DM: return String.format(Locale.ROOT, "DM step %s", step);
+            default: return String.format(Locale.ROOT, "CVSD step %s to %s", step, maxStep);
+        }
+    }
+
+    /**
+     * Encodes a stream block by block, carrying the DM and CVSD state across blocks, and sums the
+     * signal and the error of what {@link #reconstruct} will decode so the SNR is known at the end.
+     */
+    public final class Modulator {
+        private double approx, boost, signal, noise;
+        private int history = NO_RUN;
+        private long samples;
+        private double[] scratch;
+
+        private Modulator() { }
+
+        public void reset() {
+            approx = boost = signal = noise = 0;
+            history = NO_RUN;
+            samples = 0;
+        }
+
+        /** Appends the bits of {@code samples[from, to)} to {@code out}. */
+        public void encode(double[] block, int from, int to, BitBuffer out) {
+            Objects.checkFromToIndex(from, to, block.length);
+            if (method == Method.PCM && to - from >= MIN_PARALLEL_SAMPLES && ForkJoinPool.commonPool().getParallelism() >= 2) {
+                parallel(to - from, (m, start, end, part) -> m.encodeRange(block, from + start, from + end, part), out);
+            } else {
+                encodeRange(block, from, to, out);
+            }
+        }
+
+        public void encode(float[] block, int from, int to, BitBuffer out) {
+            Objects.checkFromToIndex(from, to, block.length);
+            if (method == Method.PCM && to - from >= MIN_PARALLEL_SAMPLES && ForkJoinPool.commonPool().getParallelism() >= 2) {
+                parallel(to - from, (m, start, end, part) -> m.encodeRange(block, from + start, from + end, part), out);
+            } else {
+                encodeRange(block, from, to, out);
+            }
+        }
+
+        /** Quantizes chunks of the block on their own modulators, then appends their codes in order. */
+        private void parallel(int n, RangeJob job, BitBuffer out) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+            int chunk = chunkSamples(n, pool), chunks = (n + chunk - 1) / chunk;
+            Modulator[] parts = new Modulator[chunks];
+            BitBuffer[] codes = new BitBuffer[chunks];
+            pool.invoke(new ParallelEncoder.ChunkTask(0, chunks, c -> {
+                int start = c * chunk, end = Math.min(n, start + chunk);
+                parts[c] = new Modulator();
+                codes[c] = new BitBuffer((end - start) * bits);
+                job.run(parts[c], start, end, codes[c]);
+            }));
+            for (int c = 0; c < chunks; c++) {
+                out.append(codes[c]);
+                signal += parts[c].signal;
+                noise += parts[c].noise;
+                samples += parts[c].samples;
+            }
+        }
+
+        private void encodeRange(float[] block, int from, int to, BitBuffer out) {
+            if (scratch == null) scratch = new double[SCRATCH_SAMPLES];
+            for (int i = from; i < to; i += SCRATCH_SAMPLES) {
+                int n = Math.min(SCRATCH_SAMPLES, to - i);
+                for (int k = 0; k < n; k++) scratch[k] = block[i + k];
+                encodeRange(scratch, 0, n, out);
+            }
+        }
+
+        private void encodeRange(double[] block, int from, int to, BitBuffer out) {
+            if (method == Method.PCM) pcm(block, from, to, out);
+            else delta(block, from, to, out);
+            samples += to - from;
+        }
+
+        private void pcm(double[] block, int from, int to, BitBuffer out) {
+            int levels = 1 << bits, top = levels - 1, half = levels >>> 1, last = half - 1;
+            double middle = (min + max) / 2, inverseHalf = 2 / (max - min);
+            double s = 0, e = 0;
+            long acc = 0;
+            int fill = 0;
+            for (int i = from; i < to; i++) {
+                double x = block[i];
+                int q;
+                if (hint == null) {
+                    // truncation toward zero is floor here once negatives are clamped; NaN gives 0
+                    q = Math.min(top, Math.max(0, (int) ((x - min) * scale)));
+                } else {
+                    double d = (x - middle) * inverseHalf, a = Math.abs(d);
+                    int k = hint[bin(a)];
+                    while (k < last && a >= halfEdges[k + 1]) k++;
+                    q = d >= 0 ? half + k : half - 1 - k;
+                }
+                double err = x - values[q];
+                s += x * x;
+                e += err * err;
+                long code = reversed[q];
+                acc |= code << fill;
+                fill += bits;
+                if (fill >= 64) {
+                    out.appendBits(acc, 64);
+                    fill -= 64;
+                    acc = fill == 0 ? 0 : code >>> (bits - fill);
+                }
+            }
+            if (fill > 0) out.appendBits(acc, fill);
+            signal += s;
+            noise += e;
+        }
+
+        private void delta(double[] block, int from, int to, BitBuffer out) {
+            boolean cvsd = method == Method.CVSD;
+            double a = approx, b = boost, s = 0, e = 0;
+            int h = history;
+            long acc = 0;
+            int fill = 0;
+            for (int i = from; i < to; i++) {
+                double x = block[i];
+                int bit = x >= a ? 1 : 0;
+                double st = step;
+                if (cvsd) {
+                    h = h << 1 | bit;
+                    b = nextBoost(b, h);
+                    st += b;
+                }
+                a += bit != 0 ? st : -st;
+                double err = x - a;
+                s += x * x;
+                e += err * err;
+                acc |= (long) bit << fill;
+                if (++fill == 64) {
+                    out.appendBits(acc, 64);
+                    acc = 0;
+                    fill = 0;
+                }
+            }
+            if (fill > 0) out.appendBits(acc, fill);
+            approx = a;
+            boost = b;
+            history = h;
+            signal += s;
+            noise += e;
+        }
+
+        public long samples() {
+            return samples;
+        }
+
+        /** Signal-to-noise ratio of the samples encoded so far against their reconstruction, in dB. */
+        public double snrDb() {
+            return AnalogFrontEnd.snrDb(signal, noise);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeJob {
+        void run(Modulator m, int start, int end, BitBuffer out);
+    }
+}
@@ -0,0 +1,391 @@
+package dcproject;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Bitstream statistics computed on the packed words of a {@link BitBuffer}: run lengths with
+ * {@code numberOfTrailingZeros}/{@code numberOfLeadingZeros} and a shift-and run finder,
+ * transitions and densities with {@code bitCount}, the running digital sum with per-byte prefix
+ * tables, and the longest palindrome with Manacher's algorithm whose extension step compares
+ * 64 bits at a time against a reversed copy. Each group is a {@link Metric} and only the
+ * selected ones are computed.
+ */
+public final class BitAnalytics {
+    public enum Metric {
+        /** Longest run of zeros and of ones. */
+        RUNS,
+        /** Bit transitions and their density. */
+        TRANSITIONS,
+        /** Ones density, disparity and running digital sum extremes. */
+        DENSITY,
+        /** Longest palindromic substring; needs the whole stream and 4 bytes per half bit. */
+        PALINDROME;
+
+        /** Parses a comma-separated list such as {@code runs,density}, or {@code all} / {@code none}. */
+        public static Set<Metric> parseSet(String list) {
+            EnumSet<Metric> set = EnumSet.noneOf(Metric.class);
+            for (String part : list.split(",")) {
+                String key = part.trim().toUpperCase(Locale.ROOT);
+                if (key.isEmpty() || key.equals("NONE")) continue;
+                if (key.equals("ALL")) {
+                    set.addAll(EnumSet.allOf(Metric.class));
+                    continue;
+                }
+                try {
+                    set.add(valueOf(key));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown metric: " + part.trim());
+                }
+            }
+            return set;
+        }
+    }
+
+    /** Per-byte running digital sum (+1 per one, -1 per zero, LSB first): total, highest and lowest prefix. */
+    private static final byte[] SUM = new byte[256], MAX_PREFIX = new byte[256], MIN_PREFIX = new byte[256];
+
+    static {
+        for (int b = 0; b < 256; b++) {
+            int sum = 0, max = 0, min = 0;
+            for (int k = 0; k < 8; k++) {
+                sum += ((b >>> k) & 1) != 0 ? 1 : -1;
+                max = Math.max(max, sum);
+                min = Math.min(min, sum);
+            }
+            SUM[b] = (byte) sum;
+            MAX_PREFIX[b] = (byte) max;
+            MIN_PREFIX[b] = (byte) min;
+        }
+    }
+
+    private BitAnalytics() { }
+
+    public static Report analyze(BitBuffer bits, Set<Metric> metrics, TaskProgress progress) {
+        Accumulator acc = new Accumulator(metrics);
+        try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ANALYSIS)) {
+            acc.add(bits, progress);
+            span.items(bits.size());
+        }
+        EnumSet<Metric> computed = EnumSet.copyOf(acc.metrics);
+        int palindromeStart = 0, palindromeLength = 0;
+        if (metrics.contains(Metric.PALINDROME)) {
+            long p;
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.PALINDROME)) {
+                p = longestPalindrome(bits, progress);
+                span.items(bits.size());
+            }
+            palindromeStart = (int) (p >>> 32);
+            palindromeLength = (int) p;
+            computed.add(Metric.PALINDROME);
+        }
+        return acc.report(computed, palindromeStart, palindromeLength);
+    }
+
+    /**
+     * Every metric except {@link Metric#PALINDROME}, fed chunk by chunk for streams that are never
+     * held whole. Accumulators over consecutive ranges {@linkplain #append merge} into the one over
+     * their concatenation, so {@link IncrementalEncoder} keeps one per block and re-adds only the
+     * blocks an edit touched.
+     */
+    public static final class Accumulator {
+        private final EnumSet<Metric> metrics;
+        private final boolean runs, transitions, density;
+        private final Run zeroRun = new Run(), oneRun = new Run();
+        private long bits, ones, transitionCount;
+        private long rds, maxRds, minRds;
+        private long first = -1, last = -1;
+
+        public Accumulator(Set<Metric> metrics) {
+            this.metrics = EnumSet.noneOf(Metric.class);
+            this.metrics.addAll(metrics);
+            this.metrics.remove(Metric.PALINDROME);
+            runs = metrics.contains(Metric.RUNS);
+            transitions = metrics.contains(Metric.TRANSITIONS);
+            density = metrics.contains(Metric.DENSITY);
+        }
+
+        public void add(BitBuffer chunk) {
+            add(chunk, TaskProgress.NONE);
+        }
+
+        public void add(BitBuffer chunk, TaskProgress progress) {
+            int size = chunk.size();
+            for (int w = 0, n = chunk.wordCount(); w < n; w++) {
+                if ((w & (TaskProgress.STEP_MASK >>> 6)) == 0) progress.update(w, n);
+                addWord(chunk.word(w), Math.min(64, size - (w << 6)));
+            }
+            bits += size;
+        }
+
+        /** Adds bits {@code [from, to)} of {@code chunk}. */
+        public void add(BitBuffer chunk, int from, int to) {
+            for (int i = from; i < to; i += 64) {
+                int n = Math.min(64, to - i);
+                addWord(chunk.getBits(i, n), n);
+            }
+            bits += to - from;
+        }
+
+        /** Continues this accumulator with everything {@code next} has seen, as if its bits had been added here. */
+        public void append(Accumulator next) {
+            if (next.bits == 0) return;
+            if (bits == 0) first = next.first;
+            zeroRun.append(next.zeroRun);
+            oneRun.append(next.oneRun);
+            if (last >= 0 && last != next.first) transitionCount++;
+            transitionCount += next.transitionCount;
+            maxRds = Math.max(maxRds, rds + next.maxRds);
+            minRds = Math.min(minRds, rds + next.minRds);
+            rds += next.rds;
+            ones += next.ones;
+            bits += next.bits;
+            last = next.last;
+        }
+
+        /** The low {@code n} bits of {@code word}; higher bits are zero. */
+        private void addWord(long word, int n) {
+            long valid = n == 64 ? -1L : (1L << n) - 1;
+            ones += Long.bitCount(word);
+            if (runs) {
+                zeroRun.add(~word & valid, valid, n);
+                oneRun.add(word, valid, n);
+            }
+            if (transitions) {
+                // the first bit of the stream has no predecessor: compare it with itself
+                long previous = last < 0 ? word & 1 : last;
+                transitionCount += Long.bitCount((word ^ (word << 1 | previous)) & valid);
+            }
+            if (first < 0) first = word & 1;
+            last = (word >>> (n - 1)) & 1;
+            if (density) {
+                int k = 0;
+                for (; k + 8 <= n; k += 8) {
+                    int b = (int) (word >>> k) & 0xFF;
+                    maxRds = Math.max(maxRds, rds + MAX_PREFIX[b]);
+                    minRds = Math.min(minRds, rds + MIN_PREFIX[b]);
+                    rds += SUM[b];
+                }
+                for (; k < n; k++) {
+                    rds += ((word >>> k) & 1) != 0 ? 1 : -1;
+                    maxRds = Math.max(maxRds, rds);
+                    minRds = Math.min(minRds, rds);
+                }
+            }
+        }
+
+        public Report report() {
+            return report(EnumSet.copyOf(metrics), 0, 0);
+        }
+
+        private Report report(EnumSet<Metric> metrics, int palindromeStart, int palindromeLength) {
+            return new Report(metrics, bits, ones, zeroRun.longest, oneRun.longest, transitionCount,
+                    minRds, maxRds, palindromeStart, palindromeLength);
+        }
+    }
+
+    /**
+     * Longest run of one kind of bit across words; {@code current} is the run still open at the
+     * end and {@code prefix} the run from the start, equal to each other until the first break.
+     */
+    private static final class Run {
+        long prefix, current, longest;
+        boolean broken;
+
+        /** {@code run} marks the run's bits among the {@code n} valid ones. */
+        void add(long run, long valid, int n) {
+            long breaks = ~run & valid;
+            if (breaks == 0) {
+                current += n;
+                if (!broken) prefix = current;
+                longest = Math.max(longest, current);
+                return;
+            }
+            current += Long.numberOfTrailingZeros(breaks);
+            if (!broken) prefix = current;
+            broken = true;
+            longest = Math.max(longest, Math.max(current, longestRun(run)));
+            // the bits above the highest break
+            current = n - 64 + Long.numberOfLeadingZeros(breaks);
+        }
+
+        void append(Run next) {
+            longest = Math.max(Math.max(longest, next.longest), current + next.prefix);
+            if (!broken) prefix += next.prefix;
+            current = next.broken ? next.current : current + next.current;
+            broken |= next.broken;
+        }
+    }
+
+    /**
+     * Longest run of set bits in {@code x} in a dozen shifts: {@code p[j]} marks the starts of runs
+     * of {@code 2^j} ones, and the length is assembled greedily from the largest power down.
+     */
+    static int longestRun(long x) {
+        if (x == -1L) return 64;
+        if (x == 0) return 0;
+        long p1 = x, p2 = p1 & (p1 >>> 1), p4 = p2 & (p2 >>> 2), p8 = p4 & (p4 >>> 4);
+        long p16 = p8 & (p8 >>> 8), p32 = p16 & (p16 >>> 16);
+        long starts = -1L;
+        int len = 0;
+        long t;
+        if ((t = starts & (p32 >>> len)) != 0) { starts = t; len += 32; }
+        if ((t = starts & (p16 >>> len)) != 0) { starts = t; len += 16; }
+        if ((t = starts & (p8 >>> len)) != 0) { starts = t; len += 8; }
+        if ((t = starts & (p4 >>> len)) != 0) { starts = t; len += 4; }
+        if ((t = starts & (p2 >>> len)) != 0) { starts = t; len += 2; }
+        if ((starts & (p1 >>> len)) != 0) len += 1;
+        return len;
+    }
+
+    // ==== PALINDROME ====
+    /**
+     * Manacher's algorithm over the 2n + 1 centers (even: between bits, odd: on a bit), returning
+     * {@code start << 32 | length} of the first longest palindrome, the same one
+     * {@link SignalEngine#manachersLongestPalindrome} finds. Extensions compare 64 bits ahead of
+     * the palindrome with 64 bits behind it, read forwards from a reversed copy.
+     */
+    public static long longestPalindrome(BitBuffer bits, TaskProgress progress) {
+        int n = bits.size();
+        if (n == 0) return 0;
+        long[] forward = words(bits), backward = words(reverse(bits));
+        int centers = 2 * n + 1;
+        int[] len = new int[centers];
+        int center = 0, right = 0, best = 0, bestCenter = 0;
+        for (int k = 1; k < centers - 1; k++) {
+            if ((k & TaskProgress.STEP_MASK) == 0) progress.update(k, centers);
+            int l = right > k ? Math.min(right - k, len[2 * center - k]) : k & 1;
+            // the palindrome covers bits [(k - l) / 2, (k + l) / 2)
+            int lo = (k - l) >> 1, hi = (k + l) >> 1;
+            if (right <= k + l) {
+                while (lo > 0 && hi < n) {
+                    int m = Math.min(64, Math.min(lo, n - hi));
+                    long diff = (bitsAt(forward, hi) ^ bitsAt(backward, n - lo)) & (-1L >>> (64 - m));
+                    if (diff != 0) {
+                        int same = Long.numberOfTrailingZeros(diff);
+                        lo -= same;
+                        hi += same;
+                        break;
+                    }
+                    lo -= m;
+                    hi += m;
+                }
+                l = hi - lo;
+            }
+            len[k] = l;
+            if (k + l > right) {
+                center = k;
+                right = k + l;
+            }
+            if (l > best) {
+                best = l;
+                bestCenter = k;
+            }
+        }
+        return (long) ((bestCenter - best) >> 1) << 32 | best;
+    }
+
+    /** The backing words plus one zero word, so {@link #bitsAt} never needs a bounds branch. */
+    private static long[] words(BitBuffer bits) {
+        long[] words = new long[bits.wordCount() + 1];
+        for (int w = 0; w < words.length - 1; w++) words[w] = bits.word(w);
+        return words;
+    }
+
+    private static BitBuffer reverse(BitBuffer bits) {
+        int n = bits.size();
+        BitBuffer out = new BitBuffer(n);
+        int end = n;
+        for (; end >= 64; end -= 64) out.appendBits(Long.reverse(bits.getBits(end - 64, 64)), 64);
+        if (end > 0) out.appendBits(Long.reverse(bits.getBits(0, end)) >>> (64 - end), end);
+        return out;
+    }
+
+    /** 64 bits starting at bit {@code from}. */
+    private static long bitsAt(long[] words, int from) {
+        int w = from >>> 6, off = from & 63;
+        long lo = words[w] >>> off;
+        return off == 0 ? lo : lo | words[w + 1] << (64 - off);
+    }
+
+    // ==== REPORT ====
+    public static final class Report {
+        private final Set<Metric> metrics;
+        private final long bits, ones, longestZeroRun, longestOneRun, transitions;
+        private final long minRunningDisparity, maxRunningDisparity, disparity;
+        private final int palindromeStart, palindromeLength;
+
+        Report(Set<Metric> metrics, long bits, long ones, long longestZeroRun, long longestOneRun, long transitions,
+               long minRunningDisparity, long maxRunningDisparity, int palindromeStart, int palindromeLength) {
+            this.metrics = metrics;
+            this.bits = bits;
+            this.ones = ones;
+            this.longestZeroRun = longestZeroRun;
+            this.longestOneRun = longestOneRun;
+            this.transitions = transitions;
+            this.minRunningDisparity = minRunningDisparity;
+            this.maxRunningDisparity = maxRunningDisparity;
+            this.disparity = 2 * ones - bits;
+            this.palindromeStart = palindromeStart;
+            this.palindromeLength = palindromeLength;
+        }
+
+        public boolean has(Metric metric) {
+            return metrics.contains(metric);
+        }
+
+        public long bits() {
+            return bits;
+        }
+
+        /** Always counted: one popcount per word. */
+        public long ones() {
+            return ones;
+        }
+
+        public long longestZeroRun() {
+            return longestZeroRun;
+        }
+
+        public long longestOneRun() {
+            return longestOneRun;
+        }
+
+        public long transitions() {
+            return transitions;
+        }
+
+        /** Transitions per bit boundary. */
+        public double transitionDensity() {
+            return bits < 2 ? 0 : transitions / (double) (bits - 1);
+        }
+
+        public double onesDensity() {
+            return bits == 0 ? 0 : ones / (double) bits;
+        }
+
+        /** Ones minus zeros. */
+        public long disparity() {
+            return disparity;
+        }
+
+        /** Mean level of the stream as ±1 symbols, 0 for a DC-balanced stream. */
+        public double dcBalance() {
+            return bits == 0 ? 0 : disparity / (double) bits;
+        }
+
+        /** Largest excursion of the running digital sum from zero. */
+        public long maxRunningDisparity() {
+            return Math.max(maxRunningDisparity, -minRunningDisparity);
+        }
+
+        public int palindromeStart() {
+            return palindromeStart;
+        }
+
+        public int palindromeLength() {
+            return palindromeLength;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Growable sequence of bits packed into a {@code long[]}. Bit {@code i} lives in word
+ * {@code i >>> 6} at position {@code i & 63}; bits past {@link #size()} are always zero so
+ * whole words can be used directly for popcount and word-at-a-time scans.
+ */
+public final class BitBuffer {
+    private long[] words;
+    private int size;
+
+    public BitBuffer() {
+        this(64);
+    }
+
+    public BitBuffer(int capacityBits) {
+        words = new long[Math.max(1, (capacityBits + 63) >>> 6)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0, wordCount(), 0L);
+        size = 0;
+    }
+
+    public int get(int i) {
+        Objects.checkIndex(i, size);
+        return (int) (words[i >>> 6] >>> i) & 1;
+    }
+
+    public void set(int i, int bit) {
+        Objects.checkIndex(i, size);
+        if (bit != 0) words[i >>> 6] |= 1L << i;
+        else words[i >>> 6] &= ~(1L << i);
+    }
+
+    public void append(int bit) {
+        ensureCapacity(size + 1);
+        if (bit != 0) words[size >>> 6] |= 1L << size;
+        size++;
+    }
+
+    /** Appends the low {@code count} bits of {@code bits}, least significant bit first. */
+    public void appendBits(long bits, int count) {
+        if (count < 0 || count > 64) throw new IllegalArgumentException("count must be in [0, 64]: " + count);
+        if (count == 0) return;
+        if (count < 64) bits &= (1L << count) - 1;
+        ensureCapacity(size + count);
+        int w = size >>> 6, off = size & 63;
+        words[w] |= bits << off;
+        if (off != 0 && off + count > 64) words[w + 1] = bits >>> (64 - off);
+        size += count;
+    }
+
+    /** Appends {@code count} copies of {@code bit}, a word at a time. */
+    public void appendRepeated(int bit, int count) {
+        if (count < 0) throw new IllegalArgumentException("count must not be negative: " + count);
+        long pattern = bit != 0 ? -1L : 0L;
+        for (; count >= 64; count -= 64) appendBits(pattern, 64);
+        appendBits(pattern, count);
+    }
+
+    public void append(BitBuffer other) {
+        append(other, 0, other.size);
+    }
+
+    /** Appends bits {@code [from, to)} of {@code other}, 64 bits per step. */
+    public void append(BitBuffer other, int from, int to) {
+        Objects.checkFromToIndex(from, to, other.size);
+        ensureCapacity(size + (to - from));
+        int i = from;
+        for (; i + 64 <= to; i += 64) appendBits(other.getBits(i, 64), 64);
+        if (i < to) appendBits(other.getBits(i, to - i), to - i);
+    }
+
+    /** Returns bits {@code [from, from + count)} packed least significant bit first; {@code count <= 64}. */
+    public long getBits(int from, int count) {
+        if (count < 0 || count > 64) throw new IllegalArgumentException("count must be in [0, 64]: " + count);
+        Objects.checkFromIndexSize(from, count, size);
+        if (count == 0) return 0L;
+        int w = from >>> 6, off = from & 63;
+        long bits = words[w] >>> off;
+        if (off != 0 && off + count > 64) bits |= words[w + 1] << (64 - off);
+        return count == 64 ? bits : bits & ((1L << count) - 1);
+    }
+
+    /** Number of backing words that hold at least one bit of the sequence. */
+    public int wordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    /** Raw backing word; bits past {@link #size()} read as zero. */
+    public long word(int index) {
+        Objects.checkIndex(index, wordCount());
+        return words[index];
+    }
+
+    public int popCount() {
+        int count = 0;
+        for (int w = 0, n = wordCount(); w < n; w++) count += Long.bitCount(words[w]);
+        return count;
+    }
+
+    /** Number of 1 bits in {@code [from, to)}. */
+    public int popCount(int from, int to) {
+        Objects.checkFromToIndex(from, to, size);
+        if (from == to) return 0;
+        int fw = from >>> 6, lw = (to - 1) >>> 6;
+        long firstMask = -1L << from, lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (fw == lw) return Long.bitCount(words[fw] & firstMask & lastMask);
+        int count = Long.bitCount(words[fw] & firstMask) + Long.bitCount(words[lw] & lastMask);
+        for (int w = fw + 1; w < lw; w++) count += Long.bitCount(words[w]);
+        return count;
+    }
+
+    /** Index of the first 1 bit at or after {@code from}, or -1 if there is none. */
+    public int nextSetBit(int from) {
+        if (from < 0) throw new IndexOutOfBoundsException("from < 0: " + from);
+        if (from >= size) return -1;
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        for (int n = wordCount(); ; ) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == n) return -1;
+            word = words[w];
+        }
+    }
+
+    /** Index of the last 1 bit at or before {@code from}, or -1 if there is none. */
+    public int previousSetBit(int from) {
+        if (from < 0) return -1;
+        if (from >= size) throw new IndexOutOfBoundsException("from >= size: " + from);
+        int w = from >>> 6;
+        long word = words[w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            if (w-- == 0) return -1;
+            word = words[w];
+        }
+    }
+
+    /** Drops every bit at or past {@code newSize}. */
+    public void truncate(int newSize) {
+        Objects.checkIndex(newSize, size + 1);
+        if (newSize == size) return;
+        int n = wordCount();
+        int w = newSize >>> 6;
+        if ((newSize & 63) != 0) words[w++] &= -1L >>> (64 - (newSize & 63));
+        Arrays.fill(words, w, n, 0L);
+        size = newSize;
+    }
+
+    private void ensureCapacity(int bits) {
+        if (bits < 0) throw new IllegalStateException("BitBuffer capacity overflow");
+        int needed = (bits + 63) >>> 6;
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length + (words.length >> 1)));
+        }
+    }
+
+    /** Renders the sequence as '0'/'1' characters. */
+    @Override
+    public String toString() {
+        char[] out = new char[size];
+        for (int i = 0; i < size; i++) out[i] = (char) ('0' + ((words[i >>> 6] >>> i) & 1));
+        return new String(out);
+    }
+}
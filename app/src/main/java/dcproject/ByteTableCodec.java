@@ -0,0 +1,331 @@
+package dcproject;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven kernels for the unscrambled line codes. For NRZ-L, NRZ-I, Manchester, Differential
+ * Manchester and AMI the segments produced by eight input bits depend only on the byte and one
+ * carried level (the last NRZ-I/Differential Manchester level or the last AMI pulse), so every
+ * (byte, level) pair is expanded once into its merged run list and the next level; encoding
+ * copies one table entry per byte.
+ * <p>
+ * Decoding rasterizes the waveform block by block into two tick bitmaps (level above zero, level
+ * below zero), splits them into even and odd half-bit slots with 256-entry de-interleave tables
+ * and evaluates each code's sampling rule on 64 bits at a time with plain word logic. The rules
+ * are those of the original per-bit decoders: slot {@code 2b} is sampled for NRZ-L, AMI and the
+ * Differential Manchester reference, slot {@code 2b + 1} for NRZ-I, and both for Manchester.
+ * {@link #descramble} reuses the bitmaps to undo B8ZS and HDB3 substitutions with the same word
+ * logic.
+ */
+public final class ByteTableCodec {
+    /** A count followed by up to 16 packed runs, {@code ticks << 2 | (level + 1)}. */
+    private static final int STRIDE = 17;
+    private static final int[][] RUNS = new int[LineCode.values().length][];
+    private static final byte[][] NEXT = new byte[LineCode.values().length][];
+
+    /** Slots per raster block; a multiple of 128 so every block yields whole output words. */
+    private static final int BLOCK_TICKS = 1 << 16;
+    private static final byte[] EVEN = new byte[256], ODD = new byte[256];
+
+    static {
+        for (LineCode code : LineCode.values()) if (supports(code)) buildTables(code);
+        for (int v = 0; v < 256; v++) {
+            int even = 0, odd = 0;
+            for (int k = 0; k < 4; k++) {
+                even |= ((v >>> (2 * k)) & 1) << k;
+                odd |= ((v >>> (2 * k + 1)) & 1) << k;
+            }
+            EVEN[v] = (byte) even;
+            ODD[v] = (byte) odd;
+        }
+    }
+
+    private ByteTableCodec() { }
+
+    public static boolean supports(LineCode code) {
+        return !code.isScrambled();
+    }
+
+    /** Carried level of a fresh stream: the NRZ-I/Differential Manchester start level or the AMI pulse before the first. */
+    public static int initialLevel(LineCode code) {
+        return code == LineCode.AMI ? -1 : 1;
+    }
+
+    // ==== ENCODING ====
+    public static void encode(LineCode code, BitBuffer bits, Waveform out, TaskProgress progress) {
+        encode(code, bits, 0, bits.size(), initialLevel(code), out, progress);
+    }
+
+    /**
+     * Encodes bits {@code [from, to)} starting from the carried {@code level} and returns the level
+     * after the last bit.
+     */
+    public static int encode(LineCode code, BitBuffer bits, int from, int to, int level, Waveform out, TaskProgress progress) {
+        if (!supports(code)) throw new IllegalArgumentException("No byte tables for " + code);
+        int[] runs = RUNS[code.ordinal()];
+        byte[] next = NEXT[code.ordinal()];
+        int state = level < 0 ? 1 : 0;
+        int i = from;
+        for (; i + 64 <= to; i += 64) {
+            if (((i - from) & TaskProgress.STEP_MASK) == 0) progress.update(i - from, to - from);
+            long word = bits.getBits(i, 64);
+            for (int k = 0; k < 64; k += 8) {
+                int idx = state << 8 | (int) (word >>> k) & 0xFF;
+                out.appendRuns(runs, idx * STRIDE);
+                state = next[idx];
+            }
+        }
+        for (; i + 8 <= to; i += 8) {
+            int idx = state << 8 | (int) bits.getBits(i, 8);
+            out.appendRuns(runs, idx * STRIDE);
+            state = next[idx];
+        }
+        level = state == 0 ? 1 : -1;
+        for (; i < to; i++) level = step(code, level, bits.get(i), out);
+        return level;
+    }
+
+    /** Reference single-bit encoder the tables are generated from. */
+    private static int step(LineCode code, int level, int bit, SegmentSink out) {
+        switch (code) {
+            case NRZ_L:
+                out.append(bit == 1 ? 1 : -1, Waveform.TICKS_PER_BIT);
+                return level;
+            case NRZ_I:
+                if (bit == 1) level = -level;
+                out.append(level, Waveform.TICKS_PER_BIT);
+                return level;
+            case MANCHESTER: {
+                int first = bit == 1 ? 1 : -1;
+                out.append(first, 1);
+                out.append(-first, 1);
+                return level;
+            }
+            case DIFF_MANCHESTER:
+                if (bit == 0) level = -level;
+                out.append(level, 1);
+                out.append(-level, 1);
+                return level;
+            case AMI:
+                if (bit == 0) {
+                    out.append(0, Waveform.TICKS_PER_BIT);
+                } else {
+                    level = -level;
+                    out.append(level, Waveform.TICKS_PER_BIT);
+                }
+                return level;
+            default:
+                throw new IllegalArgumentException("No byte tables for " + code);
+        }
+    }
+
+    private static void buildTables(LineCode code) {
+        int[] runs = new int[512 * STRIDE];
+        byte[] next = new byte[512];
+        for (int idx = 0; idx < 512; idx++) {
+            int level = idx >= 256 ? -1 : 1;
+            Waveform scratch = new Waveform(16);
+            for (int k = 0; k < 8; k++) level = step(code, level, (idx >>> k) & 1, scratch);
+            int base = idx * STRIDE;
+            runs[base] = scratch.segmentCount();
+            for (int s = 0; s < scratch.segmentCount(); s++) {
+                runs[base + 1 + s] = (scratch.end(s) - scratch.start(s)) << 2 | (scratch.level(s) + 1);
+            }
+            next[idx] = (byte) (level < 0 ? 1 : 0);
+        }
+        RUNS[code.ordinal()] = runs;
+        NEXT[code.ordinal()] = next;
+    }
+
+    // ==== DECODING ====
+    /** Decodes with the unscrambled rule for {@code code}; the scrambled codes use the AMI rule. */
+    public static BitBuffer decode(LineCode code, Waveform wave, TaskProgress progress) {
+        int numBits = wave.bitCount();
+        BitBuffer out = new BitBuffer(numBits);
+        if (numBits == 0) return out;
+        int slots = numBits * Waveform.TICKS_PER_BIT;
+        long[] pos = new long[BLOCK_TICKS / 64], neg = new long[BLOCK_TICKS / 64];
+        // the NRZ-I and Differential Manchester reference before bit 0 is slot 0 itself
+        long carryPos = wave.level(0) > 0 ? 1 : 0, carryNeg = wave.level(0) < 0 ? 1 : 0;
+        int segment = 0;
+        for (int base = 0; base < slots; base += BLOCK_TICKS) {
+            progress.update(base / Waveform.TICKS_PER_BIT, numBits);
+            int limit = Math.min(base + BLOCK_TICKS, slots);
+            segment = rasterize(wave, segment, base, limit, pos, neg);
+            for (int w = 0, words = (limit - base + 63) >>> 6; w < words; w += 2) {
+                long lo = pos[w], hi = w + 1 < words ? pos[w + 1] : 0;
+                long pe = even(lo) | even(hi) << 32, po = odd(lo) | odd(hi) << 32;
+                lo = neg[w];
+                hi = w + 1 < words ? neg[w + 1] : 0;
+                long ne = even(lo) | even(hi) << 32, no = odd(lo) | odd(hi) << 32;
+                long bitsOut;
+                switch (code) {
+                    case NRZ_L:
+                        bitsOut = pe;
+                        break;
+                    case NRZ_I: {
+                        long prevPos = po << 1 | carryPos, prevNeg = no << 1 | carryNeg;
+                        carryPos = po >>> 63;
+                        carryNeg = no >>> 63;
+                        bitsOut = (po ^ prevPos) | (no ^ prevNeg);
+                        break;
+                    }
+                    case MANCHESTER:
+                        // first half above the second: + over 0/-, or 0 over -
+                        bitsOut = pe & ~po | ~pe & ~ne & no;
+                        break;
+                    case DIFF_MANCHESTER: {
+                        long prevPos = pe << 1 | carryPos, prevNeg = ne << 1 | carryNeg;
+                        carryPos = pe >>> 63;
+                        carryNeg = ne >>> 63;
+                        bitsOut = ~((pe ^ prevPos) | (ne ^ prevNeg));
+                        break;
+                    }
+                    default:
+                        bitsOut = pe | ne;
+                        break;
+                }
+                out.appendBits(bitsOut, Math.min(64, numBits - out.size()));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decodes AMI with B8ZS or HDB3 substitutions undone, appending {@code wave.bitCount()} bits to
+     * {@code out}, and returns the number of code violations: bipolar violations (pulses with the
+     * polarity of the pulse before them) that are not part of a substitution. Same results as
+     * the {@link StreamingDecoder} for {@code code}, 64 bits at a time:
+     * <ul>
+     * <li>the mask of bits whose latest pulse (at or before the bit) was positive comes from one
+     * carry-propagating add: a positive pulse's carry ripples through the zeros and positive
+     * pulses above it and stops at the next negative one;</li>
+     * <li>violations are the positive pulses after a positive one and the negative pulses after a
+     * negative one;</li>
+     * <li>a substitution is found at its last pulse by and-ing shifted pulse and violation masks,
+     * the previous word supplying the bits shifted in, and its pulses are cleared before the
+     * word is appended one step later.</li>
+     * </ul>
+     */
+    public static long descramble(LineCode code, Waveform wave, BitBuffer out, TaskProgress progress) {
+        if (!code.isScrambled()) throw new IllegalArgumentException("not a scrambled code: " + code);
+        boolean b8zs = code == LineCode.AMI_B8ZS;
+        int numBits = wave.bitCount();
+        if (numBits == 0) return 0;
+        int slots = numBits * Waveform.TICKS_PER_BIT;
+        long[] pos = new long[BLOCK_TICKS / 64], neg = new long[BLOCK_TICKS / 64];
+        // the encoders start as if after a negative pulse, so "latest pulse positive" starts clear
+        long carry = 0, prevPulses = 0, prevViolations = 0, prevMatches = 0, pending = 0;
+        long violations = 0, substitutions = 0;
+        int segment = 0, emitted = 0;
+        boolean first = true;
+        for (int base = 0; base < slots; base += BLOCK_TICKS) {
+            progress.update(base / Waveform.TICKS_PER_BIT, numBits);
+            int limit = Math.min(base + BLOCK_TICKS, slots);
+            segment = rasterize(wave, segment, base, limit, pos, neg);
+            for (int w = 0, words = (limit - base + 63) >>> 6; w < words; w += 2) {
+                long hi = w + 1 < words ? pos[w + 1] : 0;
+                long pe = even(pos[w]) | even(hi) << 32;
+                hi = w + 1 < words ? neg[w + 1] : 0;
+                long ne = even(neg[w]) | even(hi) << 32;
+
+                long notNeg = ~ne;
+                long positive = notNeg & ~(notNeg + pe + carry) | pe;
+                long before = positive << 1 | carry;
+                carry = positive >>> 63;
+                long pulses = pe | ne, viol = pe & before | ne & ~before;
+                violations += Long.bitCount(viol);
+
+                long matches, cleared;
+                if (b8zs) {
+                    // 0 0 0 V B 0 V B, found at the final B
+                    matches = pulses & shift(pulses, prevPulses, 1) & shift(pulses, prevPulses, 3) & shift(pulses, prevPulses, 4)
+                            & ~(shift(pulses, prevPulses, 2) | shift(pulses, prevPulses, 5)
+                                | shift(pulses, prevPulses, 6) | shift(pulses, prevPulses, 7))
+                            & ~viol & shift(viol, prevViolations, 1) & ~shift(viol, prevViolations, 3) & shift(viol, prevViolations, 4);
+                    if (first) matches &= -1L << 7;
+                    cleared = matches | matches >>> 1 | matches >>> 3 | matches >>> 4;
+                    pending &= ~(matches << 63 | matches << 61 | matches << 60);
+                } else {
+                    // B 0 0 V or 0 0 0 V, found at the V
+                    matches = pulses & viol & ~(shift(pulses, prevPulses, 1) | shift(pulses, prevPulses, 2));
+                    if (first) matches &= -1L << 3;
+                    // a V three bits after an accepted one lies inside its substitution's window
+                    if ((matches & shift(matches, prevMatches, 3)) != 0) matches = resolveHdb3(matches, prevMatches);
+                    cleared = matches | matches >>> 3;
+                    pending &= ~(matches << 61);
+                }
+                substitutions += Long.bitCount(matches);
+                if (!first) {
+                    out.appendBits(pending, 64);
+                    emitted += 64;
+                }
+                pending = pulses & ~cleared;
+                prevPulses = pulses;
+                prevViolations = viol;
+                prevMatches = matches;
+                first = false;
+            }
+        }
+        out.appendBits(pending, numBits - emitted);
+        return violations - (b8zs ? 2 : 1) * substitutions;
+    }
+
+    /** Bit {@code i} of the result is bit {@code i - k} of the stream, taken from {@code previous} below 0. */
+    private static long shift(long word, long previous, int k) {
+        return word << k | previous >>> (64 - k);
+    }
+
+    /** Drops, in stream order, every HDB3 candidate that follows an accepted one by three bits. */
+    private static long resolveHdb3(long candidates, long previous) {
+        long accepted = 0;
+        for (long rest = candidates; rest != 0; rest &= rest - 1) {
+            long bit = rest & -rest;
+            if ((bit & shift(accepted, previous, 3)) == 0) accepted |= bit;
+        }
+        return accepted;
+    }
+
+    /**
+     * Sets slots {@code [base, limit)} of the two bitmaps from the segments, starting at
+     * {@code segment}; returns the segment that continues past {@code limit}.
+     */
+    private static int rasterize(Waveform wave, int segment, int base, int limit, long[] pos, long[] neg) {
+        int words = (limit - base + 63) >>> 6;
+        Arrays.fill(pos, 0, words, 0L);
+        Arrays.fill(neg, 0, words, 0L);
+        for (int n = wave.segmentCount(); segment < n; segment++) {
+            int start = Math.max(wave.start(segment), base), end = Math.min(wave.end(segment), limit);
+            int level = wave.level(segment);
+            if (level != 0 && start < end) setRange(level > 0 ? pos : neg, start - base, end - base);
+            if (wave.end(segment) > limit) break;
+        }
+        return segment;
+    }
+
+    private static void setRange(long[] words, int from, int to) {
+        int fw = from >>> 6, lw = (to - 1) >>> 6;
+        long firstMask = -1L << from, lastMask = -1L >>> (63 - ((to - 1) & 63));
+        if (fw == lw) {
+            words[fw] |= firstMask & lastMask;
+            return;
+        }
+        words[fw] |= firstMask;
+        for (int w = fw + 1; w < lw; w++) words[w] = -1L;
+        words[lw] |= lastMask;
+    }
+
+    /** The 32 even-indexed bits of {@code w}, packed. */
+    private static long even(long w) {
+        long r = 0;
+        for (int k = 0; k < 8; k++) r |= (long) EVEN[(int) (w >>> (8 * k)) & 0xFF] << (4 * k);
+        return r;
+    }
+
+    /** The 32 odd-indexed bits of {@code w}, packed. */
+    private static long odd(long w) {
+        long r = 0;
+        for (int k = 0; k < 8; k++) r |= (long) ODD[(int) (w >>> (8 * k)) & 0xFF] << (4 * k);
+        return r;
+    }
+}
@@ -0,0 +1,142 @@
+package dcproject;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Shows a {@link ChannelSimulator} sweep: bit error rate against Eb/N0 on a log scale on the
+ * left, and the eye diagram of the selected point on the right, brightness growing with the
+ * square root of the trace count. Clicking the curve selects the nearest point.
+ */
+public final class ChannelPanel extends JPanel {
+    private static final Color GRID_COLOR = new Color(80, 80, 80);
+    private static final Stroke GRID_STROKE =
+            new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0f, new float[]{4f, 4f}, 0f);
+    private static final Stroke TRACE_STROKE = new BasicStroke(1.5f);
+    /** Lowest error rate on the axis; points with no errors are drawn on it. */
+    private static final int MIN_DECADE = -9;
+
+    private final Path2D.Double path = new Path2D.Double();
+    private final Ellipse2D.Double marker = new Ellipse2D.Double();
+    private final BufferedImage eyeImage =
+            new BufferedImage(ChannelSimulator.EYE_WIDTH, ChannelSimulator.EYE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+    private ChannelSimulator.Point[] points;
+    private String label = "";
+    private int selected;
+    private Rectangle berArea = new Rectangle();
+
+    public ChannelPanel() {
+        setBackground(Color.black);
+        setBorder(new TitledBorder("Channel Simulation"));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (points == null || !berArea.contains(e.getPoint())) return;
+                int nearest = 0;
+                for (int p = 1; p < points.length; p++) {
+                    if (Math.abs(x(p) - e.getX()) < Math.abs(x(nearest) - e.getX())) nearest = p;
+                }
+                select(nearest);
+            }
+        });
+    }
+
+    /** Shows a sweep of {@code label}, selecting its middle point's eye. */
+    public void setResults(ChannelSimulator.Point[] points, String label) {
+        this.points = points;
+        this.label = label;
+        select(points.length / 2);
+    }
+
+    private void select(int point) {
+        selected = point;
+        ChannelSimulator.Point p = points[point];
+        double peak = Math.max(1, p.eyePeak());
+        for (int y = 0; y < ChannelSimulator.EYE_HEIGHT; y++) {
+            for (int x = 0; x < ChannelSimulator.EYE_WIDTH; x++) {
+                int v = (int) (Math.sqrt(p.eye(x, y) / peak) * 255);
+                eyeImage.setRGB(x, y, v == 0 ? 0 : (v / 4) << 16 | v << 8 | v / 4);
+            }
+        }
+        repaint();
+    }
+
+    private double x(int point) {
+        double from = points[0].ebN0Db(), to = points[points.length - 1].ebN0Db();
+        return berArea.x + (to == from ? 0.5 : (points[point].ebN0Db() - from) / (to - from)) * berArea.width;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (points == null || points.length == 0) return;
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        Insets in = getInsets();
+        FontMetrics fm = g2.getFontMetrics();
+        int width = getWidth() - in.left - in.right, height = getHeight() - in.top - in.bottom - 56;
+        berArea = new Rectangle(in.left + 56, in.top + 24, width / 2 - 72, height);
+        Rectangle eyeArea = new Rectangle(in.left + width / 2 + 16, in.top + 24, width / 2 - 32, height);
+        if (berArea.width <= 0 || berArea.height <= 0) return;
+
+        // BER axis: decades from 10^0 down to the lowest nonzero rate or 10^-9
+        int lowest = -1;
+        for (ChannelSimulator.Point p : points) {
+            if (p.errors() > 0) lowest = Math.min(lowest, (int) Math.floor(Math.log10(p.ber())));
+        }
+        int decades = -Math.max(MIN_DECADE, lowest);
+        g2.setStroke(GRID_STROKE);
+        for (int d = 0; d <= decades; d++) {
+            int y = berArea.y + d * berArea.height / decades;
+            g2.setColor(GRID_COLOR);
+            g2.drawLine(berArea.x, y, berArea.x + berArea.width, y);
+            g2.setColor(Color.lightGray);
+            String text = d == 0 ? "1" : "1e-" + d;
+            g2.drawString(text, berArea.x - fm.stringWidth(text) - 4, y + fm.getAscent() / 2);
+        }
+        for (int p = 0; p < points.length; p++) {
+            int x = (int) Math.round(x(p));
+            g2.setColor(GRID_COLOR);
+            g2.drawLine(x, berArea.y, x, berArea.y + berArea.height);
+            g2.setColor(Color.lightGray);
+            String text = String.format("%.0f", points[p].ebN0Db());
+            g2.drawString(text, x - fm.stringWidth(text) / 2, berArea.y + berArea.height + fm.getAscent() + 2);
+        }
+        g2.drawString("Eb/N0 (dB)", berArea.x + berArea.width - fm.stringWidth("Eb/N0 (dB)"),
+                berArea.y + berArea.height + 2 * fm.getAscent() + 4);
+
+        path.reset();
+        g2.setStroke(TRACE_STROKE);
+        for (int p = 0; p < points.length; p++) {
+            double exponent = points[p].errors() == 0 ? -decades : Math.max(-decades, Math.log10(points[p].ber()));
+            double y = berArea.y - exponent / decades * berArea.height;
+            if (p == 0) path.moveTo(x(p), y);
+            else path.lineTo(x(p), y);
+            marker.setFrame(x(p) - 3, y - 3, 6, 6);
+            g2.setColor(p == selected ? Color.yellow : Color.green);
+            g2.fill(marker);
+        }
+        g2.setColor(Color.green);
+        g2.draw(path);
+
+        ChannelSimulator.Point p = points[selected];
+        g2.setColor(Color.white);
+        g2.drawString(String.format("%s   BER at %.1f dB: %d / %d = %.3g", label, p.ebN0Db(), p.errors(), p.bits(), p.ber()),
+                berArea.x, berArea.y - 6);
+        if (eyeArea.width > 0) {
+            g2.drawImage(eyeImage, eyeArea.x, eyeArea.y, eyeArea.width, eyeArea.height, null);
+            g2.setColor(GRID_COLOR);
+            g2.setStroke(GRID_STROKE);
+            g2.draw(eyeArea);
+            g2.setColor(Color.white);
+            g2.drawString(String.format("Eye diagram at %.1f dB (2 bit periods, first %d bits)", p.ebN0Db(), ChannelSimulator.EYE_BITS),
+                    eyeArea.x, eyeArea.y - 6);
+        }
+    }
+}
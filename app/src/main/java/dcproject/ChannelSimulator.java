@@ -0,0 +1,216 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Monte-Carlo bit error rate of a line code over a noisy channel. Random bits are encoded by
+ * {@link SignalEngine#encode}, the waveform is oversampled at {@code samplesPerTick} samples per
+ * half-bit tick with Gaussian edge jitter, passed through a one-pole low-pass filter and given
+ * additive white Gaussian noise; an integrate-and-dump receiver decides every bit and
+ * {@link SignalEngine#decodeSlots} decodes the result. Codes holding one level for the whole bit
+ * are integrated over both ticks and sliced once, the decision filling both slots; the Manchester
+ * codes compare the two half-bit integrals and write the sign of the difference as a mid-bit
+ * transition. Either way every decision sees the full bit energy, so NRZ-L and Manchester follow
+ * {@code Q(sqrt(2 Eb/N0))}. Errors are counted against the decode of the noiseless waveform, so
+ * the rate is what the channel adds.
+ * <p>
+ * Work is split into {@link #BLOCK_BITS}-bit blocks run on the common fork-join pool. Every block
+ * draws from its own {@link SplittableRandom}, split off a root seed in block order, and counts
+ * its errors into its own slot, so a sweep is reproducible for a given seed whatever the thread
+ * count. The first {@link #EYE_BITS} bits of every point are also traced into an eye diagram.
+ */
+public final class ChannelSimulator {
+    public static final int BLOCK_BITS = 1 << 16;
+    /** Eye diagram raster: two bit periods wide, levels {@code -EYE_RANGE..EYE_RANGE} high. */
+    public static final int EYE_WIDTH = 128, EYE_HEIGHT = 96;
+    public static final double EYE_RANGE = 2.0;
+    public static final int EYE_BITS = 1 << 12;
+    public static final int MAX_SAMPLES_PER_TICK = 16;
+
+    private final LineCode code;
+    private final double jitter, bandwidth;
+    private final int samplesPerTick;
+
+    /**
+     * {@code jitter} is the RMS edge displacement in bit periods (truncated at half a tick),
+     * {@code bandwidth} the filter's 3 dB cutoff in multiples of the bit rate or 0 for none, and
+     * {@code samplesPerTick} a power of two up to {@link #MAX_SAMPLES_PER_TICK}.
+     */
+    public ChannelSimulator(LineCode code, double jitter, double bandwidth, int samplesPerTick) {
+        if (!(jitter >= 0)) throw new IllegalArgumentException("jitter must not be negative: " + jitter);
+        if (!(bandwidth >= 0)) throw new IllegalArgumentException("bandwidth must not be negative: " + bandwidth);
+        if (samplesPerTick < 1 || samplesPerTick > MAX_SAMPLES_PER_TICK || Integer.bitCount(samplesPerTick) != 1) {
+            throw new IllegalArgumentException("samples per tick must be a power of two up to " + MAX_SAMPLES_PER_TICK + ": " + samplesPerTick);
+        }
+        this.code = Objects.requireNonNull(code);
+        this.jitter = jitter;
+        this.bandwidth = bandwidth;
+        this.samplesPerTick = samplesPerTick;
+    }
+
+    public LineCode code() {
+        return code;
+    }
+
+    /** Simulates {@code bitsPerPoint} bits at every Eb/N0 in {@code ebN0Db}. */
+    public Point[] sweep(double[] ebN0Db, long bitsPerPoint, long seed, TaskProgress progress) {
+        if (bitsPerPoint <= 0) throw new IllegalArgumentException("bits per point must be positive: " + bitsPerPoint);
+        long blocksPerPoint = (bitsPerPoint + BLOCK_BITS - 1) / BLOCK_BITS;
+        if (blocksPerPoint * ebN0Db.length > Integer.MAX_VALUE) throw new IllegalArgumentException("too many bits: " + bitsPerPoint);
+        int blocks = (int) blocksPerPoint, tasks = blocks * ebN0Db.length;
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[tasks];
+        for (int t = 0; t < tasks; t++) randoms[t] = root.split();
+        long[] errors = new long[tasks];
+        int[][] eyes = new int[ebN0Db.length][EYE_WIDTH * EYE_HEIGHT];
+        ParallelEncoder.Progress done = new ParallelEncoder.Progress(progress, bitsPerPoint * ebN0Db.length);
+        ForkJoinPool.commonPool().invoke(new ParallelEncoder.ChunkTask(0, tasks, t -> {
+            int point = t / blocks, block = t % blocks;
+            int n = (int) Math.min(BLOCK_BITS, bitsPerPoint - (long) block * BLOCK_BITS);
+            errors[t] = runBlock(ebN0Db[point], n, randoms[t], block == 0 ? eyes[point] : null);
+            randoms[t] = null;
+            done.advance(n);
+        }));
+
+        Point[] points = new Point[ebN0Db.length];
+        for (int p = 0; p < points.length; p++) {
+            long sum = 0;
+            for (int b = 0; b < blocks; b++) sum += errors[p * blocks + b];
+            points[p] = new Point(ebN0Db[p], bitsPerPoint, sum, eyes[p]);
+        }
+        return points;
+    }
+
+    /** Sends {@code n} random bits through the channel and returns the number of bit errors. */
+    private long runBlock(double ebN0Db, int n, SplittableRandom random, int[] eye) {
+        BitBuffer bits = new BitBuffer(n);
+        for (int i = 0; i < n; i += 64) bits.appendBits(random.nextLong(), Math.min(64, n - i));
+        Waveform wave = SignalEngine.encode(code, bits, TaskProgress.NONE);
+        byte[] clean = wave.halfBitLevels();
+        byte[] received = new byte[clean.length];
+        receive(wave, ebN0Db, random, received, eye);
+        BitBuffer expected = SignalEngine.decodeSlots(code, clean, n, TaskProgress.NONE);
+        BitBuffer actual = SignalEngine.decodeSlots(code, received, n, TaskProgress.NONE);
+        long diff = 0;
+        for (int w = 0; w < expected.wordCount(); w++) diff += Long.bitCount(expected.word(w) ^ actual.word(w));
+        return diff;
+    }
+
+    /** Oversamples {@code wave} through the channel and decides every bit into two {@code slots}. */
+    private void receive(Waveform wave, double ebN0Db, SplittableRandom random, byte[] slots, int[] eye) {
+        int spt = samplesPerTick, spb = spt * Waveform.TICKS_PER_BIT;
+        // Eb/N0 for a unit-level bit of spb samples with noise variance sigma^2 = N0 / 2 per sample
+        double sigma = Math.sqrt(spb / (2 * Math.pow(10, ebN0Db / 10)));
+        double alpha = bandwidth > 0 ? 1 - Math.exp(-2 * Math.PI * bandwidth / spb) : 1;
+        double jitterSamples = jitter * spb;
+        boolean ternary = code == LineCode.AMI || code.isScrambled();
+        boolean midBit = code == LineCode.MANCHESTER || code == LineCode.DIFF_MANCHESTER;
+        long eyeSamples = eye == null ? 0 : (long) EYE_BITS * spb;
+        int columns = EYE_WIDTH / (2 * spb);
+
+        double y = wave.level(0), previous = y, first = 0, sum = 0;
+        // the eye shows what the integrator sees: a sliding mean over one decision's samples
+        int span = midBit ? spt : spb;
+        double[] window = eye == null ? null : new double[span];
+        double windowSum = y * span;
+        if (window != null) Arrays.fill(window, y);
+        int tick = 0, inBit = 0;
+        long pos = 0;
+        for (int s = 0, count = wave.segmentCount(); s < count && tick < slots.length; s++) {
+            int level = wave.level(s);
+            long edge = (long) wave.end(s) * spt;
+            if (s < count - 1 && jitterSamples > 0) {
+                long shift = Math.round(random.nextGaussian() * jitterSamples);
+                edge = Math.max(pos, edge + Math.max(-spt / 2, Math.min(spt / 2, shift)));
+            }
+            for (; pos < edge; pos++) {
+                y += alpha * (level - y);
+                double v = y + sigma * random.nextGaussian();
+                if (pos < eyeSamples) {
+                    int slot = (int) (pos % span);
+                    windowSum += v - window[slot];
+                    window[slot] = v;
+                    double mean = windowSum / span;
+                    trace(eye, pos, previous, mean, spb, columns);
+                    previous = mean;
+                }
+                sum += v;
+                if (++inBit == spt) first = sum;
+                if (inBit == spb) {
+                    int decision;
+                    if (midBit) {
+                        decision = first >= sum - first ? 1 : -1;
+                        slots[tick++] = (byte) decision;
+                        slots[tick++] = (byte) -decision;
+                    } else {
+                        double mean = sum / spb;
+                        decision = ternary ? (mean > 0.5 ? 1 : mean < -0.5 ? -1 : 0) : (mean >= 0 ? 1 : -1);
+                        slots[tick++] = (byte) decision;
+                        slots[tick++] = (byte) decision;
+                    }
+                    if (tick == slots.length) break;
+                    sum = 0;
+                    inBit = 0;
+                }
+            }
+        }
+    }
+
+    /** Adds the line from the previous point to {@code v} to the eye, centred on a bit. */
+    private static void trace(int[] eye, long pos, double previous, double v, int spb, int columns) {
+        int phase = (int) ((pos + spb / 2) % (2 * spb));
+        for (int k = 1; k <= columns; k++) {
+            double at = previous + (v - previous) * k / columns;
+            int row = (int) ((EYE_RANGE - at) / (2 * EYE_RANGE) * EYE_HEIGHT);
+            // the line into phase 0 wraps around from the right edge
+            if (row >= 0 && row < EYE_HEIGHT) eye[row * EYE_WIDTH + ((phase - 1) * columns + k + EYE_WIDTH) % EYE_WIDTH]++;
+        }
+    }
+
+    /** One Eb/N0 point of a sweep. */
+    public static final class Point {
+        private final double ebN0Db;
+        private final long bits, errors;
+        private final int[] eye;
+
+        Point(double ebN0Db, long bits, long errors, int[] eye) {
+            this.ebN0Db = ebN0Db;
+            this.bits = bits;
+            this.errors = errors;
+            this.eye = eye;
+        }
+
+        public double ebN0Db() {
+            return ebN0Db;
+        }
+
+        public long bits() {
+            return bits;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public double ber() {
+            return errors / (double) bits;
+        }
+
+        /** Number of traces through eye cell ({@code x}, {@code y}), row 0 at level {@code EYE_RANGE}. */
+        public int eye(int x, int y) {
+            Objects.checkIndex(x, EYE_WIDTH);
+            Objects.checkIndex(y, EYE_HEIGHT);
+            return eye[y * EYE_WIDTH + x];
+        }
+
+        public int eyePeak() {
+            int peak = 0;
+            for (int c : eye) peak = Math.max(peak, c);
+            return peak;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package dcproject;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Decodes a sampled line signal whose clock is not known exactly: captured samples with an
+ * arbitrary start phase, a bit rate off from the nominal {@code samplesPerBit}, jitter and noise.
+ * A Gardner timing loop strobes every symbol, a bit for the NRZ and AMI codes and a half-bit tick
+ * for the Manchester codes: it interpolates the sample at the symbol centre and at the symbol
+ * boundary before it, and the boundary sample times the change across the boundary says whether
+ * the strobes run early or late. A proportional-integral filter of that error steers the strobe
+ * phase and the symbol period. Each strobe is sliced to a line level (by sign, or against half
+ * the tracked pulse amplitude for the AMI family) and goes to the code's
+ * {@link StreamingDecoder} as a symbol's worth of ticks, so B8ZS and HDB3 are descrambled as usual.
+ * <p>
+ * For the Manchester codes, which tick of a pair starts a bit is found from where the level
+ * changes, since they always change mid-bit. The first {@link #ALIGN_TICKS} ticks are held back
+ * until that is settled. After that every window of as many ticks is checked again, and a tick is
+ * dropped, counted as a slip, if the loop has slipped half a bit. NRZ-L and Manchester bits come
+ * out inverted if the capture is.
+ * <p>
+ * Samples are fed in blocks of any size in one pass; the only state is a short ring of recent
+ * samples. Instances are not thread safe.
+ */
+public final class ClockRecovery {
+    /** Ticks per alignment decision. */
+    public static final int ALIGN_TICKS = 512;
+    public static final double MIN_SAMPLES_PER_BIT = 4, MAX_SAMPLES_PER_BIT = 1 << 16;
+    /** The tracked bit rate stays within this fraction of the nominal one. */
+    public static final double MAX_RATE_ERROR = 0.02;
+    private static final double PHASE_GAIN = 0.08, FREQUENCY_GAIN = 0.0005, AMPLITUDE_GAIN = 1.0 / 64;
+    /** Fewer transitions than this in a window leave the alignment as it is. */
+    private static final int MIN_TRANSITIONS = 8;
+
+    private final LineCode code;
+    private final StreamingDecoder decoder;
+    private final double nominal;
+    private final boolean ternary;
+    /** Ticks per strobe: 1 for the Manchester codes, whose ticks need aligning into bits. */
+    private final int symbolTicks;
+    private final double[] history;
+    private final int mask;
+    private final byte[] held = new byte[ALIGN_TICKS];
+
+    private long samples, ticks, slips;
+    private double next, period, previous, amplitude;
+    private int lastLevel, heldCount, boundaryChanges, midChanges, windowTicks;
+    /** Half of the bit the next tick handed to the decoder falls in: 0 first, 1 second. */
+    private int half;
+    private boolean aligned;
+
+    public ClockRecovery(LineCode code, double samplesPerBit) {
+        if (!(samplesPerBit >= MIN_SAMPLES_PER_BIT && samplesPerBit <= MAX_SAMPLES_PER_BIT)) {
+            throw new IllegalArgumentException("samples per bit must be " + (int) MIN_SAMPLES_PER_BIT + " to " + (int) MAX_SAMPLES_PER_BIT + ": " + samplesPerBit);
+        }
+        this.code = Objects.requireNonNull(code);
+        decoder = StreamingDecoder.create(code);
+        ternary = code == LineCode.AMI || code.isScrambled();
+        symbolTicks = code == LineCode.MANCHESTER || code == LineCode.DIFF_MANCHESTER ? 1 : Waveform.TICKS_PER_BIT;
+        nominal = samplesPerBit * symbolTicks / Waveform.TICKS_PER_BIT;
+        // room for a symbol and a half behind the newest sample at the slowest tracked rate
+        history = new double[Integer.highestOneBit((int) (nominal * (1 + MAX_RATE_ERROR) * 2) + 8) * 2];
+        mask = history.length - 1;
+        reset();
+    }
+
+    public LineCode code() {
+        return code;
+    }
+
+    /** Returns to the state of a fresh capture. */
+    public void reset() {
+        decoder.reset();
+        samples = ticks = slips = 0;
+        period = nominal;
+        // a capture starting on a symbol boundary gets its first symbol
+        next = nominal / 2;
+        previous = amplitude = 0;
+        lastLevel = heldCount = boundaryChanges = midChanges = windowTicks = half = 0;
+        aligned = false;
+    }
+
+    /** Feeds {@code block[from, to)}, appending the bits recovered so far to {@code out}. */
+    public void process(double[] block, int from, int to, BitBuffer out) {
+        for (int i = from; i < to; i++) {
+            history[(int) samples++ & mask] = block[i];
+            // interpolating at the strobe needs the sample after it
+            while (next <= samples - 2) strobe(out);
+        }
+    }
+
+    public void process(float[] block, int from, int to, BitBuffer out) {
+        for (int i = from; i < to; i++) {
+            history[(int) samples++ & mask] = block[i];
+            while (next <= samples - 2) strobe(out);
+        }
+    }
+
+    /** Ends the capture: decides the alignment of a short one and flushes the decoder. */
+    public void finish(BitBuffer out) {
+        if (symbolTicks == 1 && !aligned) release(out);
+        decoder.finish(out);
+    }
+
+    private double at(double t) {
+        long i = (long) t;
+        double a = history[(int) i & mask], b = history[(int) (i + 1) & mask];
+        return a + (t - i) * (b - a);
+    }
+
+    private void strobe(BitBuffer out) {
+        double y = at(next), boundary = at(Math.max(0, next - period / 2));
+        double mag = Math.abs(y);
+        // the amplitude rises at once so a first strobe near a crossing cannot inflate the error
+        if (mag > amplitude) amplitude = mag;
+        // Gardner: positive when the strobes are late
+        double error = amplitude > 0 ? boundary * (y - previous) / (amplitude * amplitude) : 0;
+        error = Math.max(-1, Math.min(1, error));
+        previous = y;
+        period = Math.max(nominal * (1 - MAX_RATE_ERROR), Math.min(nominal * (1 + MAX_RATE_ERROR),
+                period - FREQUENCY_GAIN * error * nominal));
+        next += period * (1 - PHASE_GAIN * error);
+
+        int level;
+        if (ternary) {
+            level = mag > amplitude / 2 ? (y > 0 ? 1 : -1) : 0;
+            if (level != 0) amplitude += (mag - amplitude) * AMPLITUDE_GAIN;
+        } else {
+            level = y >= 0 ? 1 : -1;
+            amplitude += (mag - amplitude) * AMPLITUDE_GAIN;
+        }
+        ticks += symbolTicks;
+        if (symbolTicks == 1) tick(level, out);
+        else decoder.decode(level, symbolTicks, out);
+    }
+
+    /** Aligns a Manchester tick into bits and decodes it. */
+    private void tick(int level, BitBuffer out) {
+        if (!aligned) {
+            // held ticks count as if the first of them started a bit
+            if (heldCount > 0 && level != held[heldCount - 1]) {
+                if ((heldCount & 1) == 0) boundaryChanges++;
+                else midChanges++;
+            }
+            held[heldCount++] = (byte) level;
+            if (heldCount == ALIGN_TICKS) release(out);
+            return;
+        }
+        if (level != lastLevel) {
+            if (half == 0) boundaryChanges++;
+            else midChanges++;
+        }
+        lastLevel = level;
+        if (++windowTicks == ALIGN_TICKS) {
+            boolean slipped = misaligned();
+            boundaryChanges = midChanges = windowTicks = 0;
+            if (slipped) {
+                // drop this tick so the next one pairs with the one before it
+                slips++;
+                return;
+            }
+        }
+        feed(level, out);
+    }
+
+    /** Hands the held ticks to the decoder, skipping the first if the pairing is off by half a bit. */
+    private void release(BitBuffer out) {
+        aligned = true;
+        int first = misaligned() ? 1 : 0;
+        boundaryChanges = midChanges = 0;
+        for (int i = first; i < heldCount; i++) feed(held[i], out);
+        if (heldCount > 0) lastLevel = held[heldCount - 1];
+        heldCount = 0;
+    }
+
+    /** Every Manchester bit changes level mid-bit, so more changes at bit boundaries mean the pairing is off. */
+    private boolean misaligned() {
+        return boundaryChanges >= MIN_TRANSITIONS && boundaryChanges > midChanges;
+    }
+
+    private void feed(int level, BitBuffer out) {
+        decoder.decode(level, 1, out);
+        half ^= 1;
+    }
+
+    public long samples() {
+        return samples;
+    }
+
+    public long ticks() {
+        return ticks;
+    }
+
+    /** Ticks dropped to restore the bit alignment after the loop slipped, not counting the initial alignment. */
+    public long slips() {
+        return slips;
+    }
+
+    /** Tracked bit rate relative to the nominal one, minus 1: positive when the signal runs fast. */
+    public double rateError() {
+        return nominal / period - 1;
+    }
+
+    /** The tracked samples per bit. */
+    public double samplesPerBit() {
+        return period * Waveform.TICKS_PER_BIT / symbolTicks;
+    }
+
+    public long codeViolations() {
+        return decoder.codeViolations();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s clock recovery: %d samples, %d ticks, %.4f samples/bit (%+.0f ppm), %d slips",
+                code.label(), samples, ticks, samplesPerBit(), rateError() * 1e6, slips);
+    }
+}
@@ -0,0 +1,148 @@
+package dcproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Incremental, allocation-free parser for comma/newline separated numbers. Input may arrive in
+ * arbitrary pieces ({@link #feed(ByteBuffer, Sink)}); a token split across pieces is carried over.
+ * Tokens are trimmed like {@link String#trim()} and parsed with the exact fast path (at most 18
+ * significant digits and a power-of-ten scale of at most 22), so results are bit-identical to
+ * {@link Double#parseDouble}, which remains the fallback for everything else. Tokens that do not
+ * parse are skipped, as {@code parseAnalogSamples} always did.
+ */
+public final class CsvNumberParser {
+    private static final int MAX_TOKEN = 256;
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(double value) throws IOException;
+    }
+
+    private final byte[] token = new byte[MAX_TOKEN];
+    private int length;
+    private boolean overflow;
+    private double value;
+
+    /** Parses a complete text; convenience for small inputs such as the UI field. */
+    public static double[] parse(CharSequence text) {
+        CsvNumberParser parser = new CsvNumberParser();
+        double[][] out = {new double[16]};
+        int[] count = {0};
+        Sink sink = v -> {
+            if (count[0] == out[0].length) out[0] = Arrays.copyOf(out[0], count[0] * 2);
+            out[0][count[0]++] = v;
+        };
+        try {
+            for (int i = 0, n = text.length(); i < n; i++) {
+                char c = text.charAt(i);
+                parser.accept(c < 0x80 ? (byte) c : (byte) 0x80, sink);
+            }
+            parser.finish(sink);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return Arrays.copyOf(out[0], count[0]);
+    }
+
+    /** Consumes every remaining byte of {@code buf}. */
+    public void feed(ByteBuffer buf, Sink sink) throws IOException {
+        for (int i = buf.position(), end = buf.limit(); i < end; i++) accept(buf.get(i), sink);
+        buf.position(buf.limit());
+    }
+
+    /** Flushes a trailing token that has no separator after it. */
+    public void finish(Sink sink) throws IOException {
+        endToken(sink);
+    }
+
+    private void accept(byte b, Sink sink) throws IOException {
+        if (b == ',' || b == '\n' || b == '\r') {
+            endToken(sink);
+        } else if (length == 0 && (b & 0xFF) <= ' ') {
+            // leading whitespace
+        } else if (length < MAX_TOKEN) {
+            token[length++] = b;
+        } else {
+            overflow = true;
+        }
+    }
+
+    private void endToken(Sink sink) throws IOException {
+        int len = length;
+        while (len > 0 && (token[len - 1] & 0xFF) <= ' ') len--;
+        boolean ok = !overflow && len > 0 && parseToken(len);
+        length = 0;
+        overflow = false;
+        if (ok) sink.accept(value);
+    }
+
+    private boolean parseToken(int len) {
+        int i = 0;
+        boolean negative = false;
+        if (token[0] == '-' || token[0] == '+') {
+            negative = token[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0, significant = 0, scale = 0;
+        boolean dot = false;
+        for (; i < len; i++) {
+            byte b = token[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa == 0 && b == '0') {
+                    if (dot) scale--;
+                    continue;
+                }
+                if (++significant > 18) return parseSlow(len);
+                mantissa = mantissa * 10 + (b - '0');
+                if (dot) scale--;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return parseSlow(len);
+        if (i < len) {
+            if (token[i] != 'e' && token[i] != 'E') return parseSlow(len);
+            i++;
+            boolean negExp = false;
+            if (i < len && (token[i] == '-' || token[i] == '+')) negExp = token[i++] == '-';
+            if (i == len) return parseSlow(len);
+            int exp = 0;
+            for (; i < len; i++) {
+                byte b = token[i];
+                if (b < '0' || b > '9' || exp > 10000) return parseSlow(len);
+                exp = exp * 10 + (b - '0');
+            }
+            scale += negExp ? -exp : exp;
+        }
+        if (mantissa == 0) {
+            value = negative ? -0.0 : 0.0;
+            return true;
+        }
+        if (mantissa >= (1L << 53) || scale < -22 || scale > 22) return parseSlow(len);
+        double v = scale >= 0 ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+        value = negative ? -v : v;
+        return true;
+    }
+
+    private boolean parseSlow(int len) {
+        try {
+            value = Double.parseDouble(new String(token, 0, len, StandardCharsets.ISO_8859_1));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
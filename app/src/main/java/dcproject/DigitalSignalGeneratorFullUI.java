@@ -0,0 +1,1285 @@
+package dcproject;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DigitalSignalGeneratorFullUI extends JFrame {
+    private JComboBox<String> inputTypeBox, encodingBox, analogMethodBox, scramblingTypeBox;
+    private JCheckBox scramblingCheckBox, liveEditBox, timingsBox;
+    private final Map<BitAnalytics.Metric, JCheckBox> metricBoxes = new EnumMap<>(BitAnalytics.Metric.class);
+    private JTextField inputField;
+    private JButton generateButton, decodeButton, cancelButton, simulateButton, multiplexButton, exportButton;
+    private JProgressBar progressBar;
+    private JPanel graphPanel;
+    private JTabbedPane viewTabs;
+    private SpectrumPanel spectrumPanel;
+    private ChannelPanel channelPanel;
+    private JSpinner snrFromSpinner, snrToSpinner, snrStepSpinner, jitterSpinner, bandwidthSpinner;
+    private JComboBox<String> bitsPerPointBox;
+    private JScrollBar graphScrollBar;
+    private JLabel resultLabel;
+    private JTextArea detailsArea;
+
+    private BitBuffer binaryData;
+    private Waveform waveform;
+    private WaveformPyramid pyramid;
+    private LineCode waveformCode;
+    private SignalTask<?> runningTask;
+    private SpectrumTask spectrumTask;
+
+    // Live editing: input changes re-encode incrementally once typing pauses for LIVE_DELAY_MS
+    private IncrementalEncoder incremental;
+    private final javax.swing.Timer liveTimer = new javax.swing.Timer(LIVE_DELAY_MS, e -> liveUpdate());
+    private boolean livePending;
+    private static final int LIVE_DELAY_MS = 150;
+
+    // Live scope: while one runs it owns graphPanel and the viewport controls are idle
+    private LiveScope scope;
+    private BitBuffer scopeLoop;
+    private JToggleButton scopeButton;
+    private JComboBox<Object> scopeSourceBox;
+    private JComboBox<String> scopeRateBox, scopeWindowBox;
+    private static final String SCOPE_INPUT = "Input (looped)", SCOPE_FILE = "File (looped)...";
+
+    // Multiplexed line on show, if any: waveform/pyramid hold the line, lanes one trace per channel below it
+    private TdmMultiplexer.Line tdmLine;
+    private WaveformPyramid[] tdmLanes;
+    private BitBuffer[] tdmDecoded;
+    private String tdmChannels = "NRZ-L 10110010\nAMI:B8ZS 100000000101\nManchester 0110";
+    private int tdmSlotBits = TdmMultiplexer.DEFAULT_SLOT_BITS;
+    /** Traces get no thinner than this; channels that do not fit are left out of the view. */
+    private static final int MIN_TRACE_HEIGHT = 24;
+
+    // Generated results by input and settings, so flipping back to a viewed configuration is instant
+    private final ResultCache<GenerationKey, Generation> cache =
+            new ResultCache<>(Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 4), Generation::byteSize);
+    private GenerationKey shownKey;
+
+    // Viewport over the waveform, in ticks; fitView keeps the whole signal visible across resizes
+    private final WaveformRenderer renderer = new WaveformRenderer();
+    private double viewStart, ticksPerPixel;
+    private boolean fitView = true, syncingScrollBar;
+    private int dragX;
+    private static final double MIN_TICKS_PER_PIXEL = 1.0 / 32;
+
+    private static final int PREVIEW_CHARS = 4096;
+
+    public DigitalSignalGeneratorFullUI() {
+        setTitle("Digital Signal Generator - Advanced Version");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setSize(1000, 700);
+        setLayout(new BorderLayout(10, 10));
+
+        // ==== TOP PANEL ====
+        JPanel topPanel = new JPanel(new GridLayout(4, 4, 10, 10));
+        topPanel.setBorder(new TitledBorder("Input Settings"));
+        inputTypeBox = new JComboBox<>(new String[]{"Digital", "Analog"});
+        encodingBox = new JComboBox<>(new String[]{
+                "NRZ-L", "NRZ-I", "Manchester",
+                "Differential Manchester", "AMI"
+        });
+        analogMethodBox = new JComboBox<>(new String[]{"PCM", "PCM μ-law", "PCM A-law", "DM", "CVSD"});
+        scramblingCheckBox = new JCheckBox("Scramble (AMI)");
+        liveEditBox = new JCheckBox("Live edit");
+        liveEditBox.setToolTipText("Re-encode incrementally while typing");
+        scramblingTypeBox = new JComboBox<>(new String[]{"B8ZS", "HDB3"});
+        inputField = new JTextField();
+        generateButton = new JButton("Generate Signal");
+        decodeButton = new JButton("Decode Signal");
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        multiplexButton = new JButton("Multiplex...");
+        multiplexButton.setToolTipText("Time-division multiplex several channels, each with its own encoding");
+        exportButton = new JButton("Export...");
+        exportButton.setToolTipText("Save the waveform as VCD, CSV or compact binary (.dcwf)");
+
+        topPanel.add(new JLabel("Input Type:"));
+        topPanel.add(new JLabel("Encoding Scheme:"));
+        topPanel.add(new JLabel("Digital/Analog Input:"));
+        topPanel.add(new JLabel("Analog Method:"));
+        topPanel.add(inputTypeBox);
+        topPanel.add(encodingBox);
+        topPanel.add(inputField);
+        topPanel.add(analogMethodBox);
+        topPanel.add(scramblingCheckBox);
+        topPanel.add(new JLabel("Scramble Type:"));
+        topPanel.add(liveEditBox);
+        topPanel.add(scramblingTypeBox);
+        metricBoxes.put(BitAnalytics.Metric.RUNS, new JCheckBox("Longest runs", true));
+        metricBoxes.put(BitAnalytics.Metric.TRANSITIONS, new JCheckBox("Transitions", true));
+        metricBoxes.put(BitAnalytics.Metric.DENSITY, new JCheckBox("Density / DC balance", true));
+        metricBoxes.put(BitAnalytics.Metric.PALINDROME, new JCheckBox("Longest palindrome", true));
+        for (JCheckBox box : metricBoxes.values()) topPanel.add(box);
+
+        add(topPanel, BorderLayout.NORTH);
+
+        // ==== GRAPH PANEL ====
+        graphPanel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                drawSignal((Graphics2D) g);
+            }
+        };
+        graphPanel.setBackground(Color.black);
+        graphPanel.setBorder(new TitledBorder("Signal Visualization"));
+        graphPanel.setToolTipText("Wheel: zoom, Shift+wheel or drag: pan, double-click: fit");
+        graphScrollBar = new JScrollBar(JScrollBar.HORIZONTAL);
+        JPanel graphContainer = new JPanel(new BorderLayout());
+        graphContainer.add(createScopeBar(), BorderLayout.NORTH);
+        graphContainer.add(graphPanel, BorderLayout.CENTER);
+        graphContainer.add(graphScrollBar, BorderLayout.SOUTH);
+        spectrumPanel = new SpectrumPanel();
+        viewTabs = new JTabbedPane();
+        viewTabs.addTab("Waveform", graphContainer);
+        viewTabs.addTab("Spectrum", spectrumPanel);
+        viewTabs.addTab("Channel", createChannelTab());
+        viewTabs.addChangeListener(e -> updateSpectrum());
+        add(viewTabs, BorderLayout.CENTER);
+        installViewportControls();
+
+        // ==== RESULT PANEL ====
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        resultLabel = new JLabel("Enter data, choose options, then 'Generate Signal'");
+        resultLabel.setFont(new Font("Consolas", Font.BOLD, 14));
+        bottomPanel.add(resultLabel, BorderLayout.NORTH);
+        detailsArea = new JTextArea(5, 40);
+        detailsArea.setEditable(false);
+        detailsArea.setFont(new Font("Consolas", Font.PLAIN, 12));
+        JScrollPane sp = new JScrollPane(detailsArea);
+        bottomPanel.add(sp, BorderLayout.CENTER);
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
+        bottomPanel.add(progressBar, BorderLayout.SOUTH);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        // ==== ACTION ====
+        inputTypeBox.addActionListener(e -> updateInputMode());
+        scramblingCheckBox.addActionListener(e -> {
+            updateScrambleControls();
+            settingsChanged();
+        });
+        encodingBox.addActionListener(e -> settingsChanged());
+        scramblingTypeBox.addActionListener(e -> settingsChanged());
+        generateButton.addActionListener(e -> generateSignal());
+        decodeButton.addActionListener(e -> decodeSignal());
+        cancelButton.addActionListener(e -> { if (runningTask != null) runningTask.cancel(true); });
+        simulateButton.addActionListener(e -> simulateChannel());
+        multiplexButton.addActionListener(e -> multiplexChannels());
+        exportButton.addActionListener(e -> exportWaveform());
+        liveTimer.setRepeats(false);
+        liveEditBox.addActionListener(e -> scheduleLiveUpdate());
+        inputField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                scheduleLiveUpdate();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                scheduleLiveUpdate();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                scheduleLiveUpdate();
+            }
+        });
+        timingsBox = new JCheckBox("Stage timings", Instrumentation.isEnabled());
+        timingsBox.setToolTipText("Time each pipeline stage and list it under the results");
+        timingsBox.addActionListener(e -> {
+            Instrumentation.reset();
+            Instrumentation.setEnabled(timingsBox.isSelected());
+        });
+        JPanel rightButtons = new JPanel(new GridLayout(6, 1, 10, 10));
+        rightButtons.add(generateButton);
+        rightButtons.add(decodeButton);
+        rightButtons.add(multiplexButton);
+        rightButtons.add(exportButton);
+        rightButtons.add(cancelButton);
+        rightButtons.add(timingsBox);
+        add(rightButtons, BorderLayout.EAST);
+        updateInputMode();
+        updateScrambleControls();
+    }
+
+    private void generateSignal() {
+        if (runningTask != null) return;
+        stopScope();
+        String input = inputField.getText().trim();
+        String inputType = inputTypeBox.getSelectedItem().toString();
+        if (input.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Digital".equals(inputType)
+                    ? "Enter valid binary data (0/1)!"
+                    : "Enter analog samples (CSV), e.g., 0.1,0.3,0.9,-0.2");
+            return;
+        }
+        String method = "Digital".equals(inputType) ? "" : analogMethodBox.getSelectedItem().toString();
+        GenerationKey key = new GenerationKey(input, inputType, method, selectedCode(), selectedMetrics());
+        Generation cached = cache.get(key);
+        if (cached != null) {
+            show(key, cached, true);
+            return;
+        }
+        startTask(new GenerateTask(key, input), "Generating");
+    }
+
+    /** A new encoding or scrambling choice regenerates the signal on screen, from the cache if it was seen before. */
+    private void settingsChanged() {
+        if (scope != null) {
+            runScope(scope.source(), scopeLoop);
+            return;
+        }
+        if (waveform == null || runningTask != null || inputField.getText().trim().isEmpty()) return;
+        if (liveEditBox.isSelected()) scheduleLiveUpdate();
+        else generateSignal();
+    }
+
+    private void show(GenerationKey key, Generation result, boolean cached) {
+        shownKey = key;
+        clearMultiplex();
+        binaryData = result.bits;
+        waveform = result.waveform;
+        pyramid = result.pyramid;
+        waveformCode = key.code;
+        StringBuilder details = new StringBuilder(result.details);
+        if (result.decoded != null) details.append("Decoded bitstream: ").append(preview(result.decoded, 0, result.decoded.size())).append('\n');
+        details.append("Result cache: ").append(cache).append('\n');
+        detailsArea.setText(details.toString());
+        resultLabel.setText("Signal generated: " + key.code.label() + (cached ? " (cached)" : ""));
+        resetView();
+        updateSpectrum();
+    }
+
+    /** Recomputes the spectrum in the background if its tab is showing and the waveform changed. */
+    private void updateSpectrum() {
+        if (viewTabs.getSelectedComponent() != spectrumPanel || waveform == null || spectrumPanel.source() == waveform) return;
+        if (spectrumTask != null) spectrumTask.cancel(true);
+        spectrumTask = new SpectrumTask(waveform, tdmLine != null ? "TDM line" : waveformCode.label());
+        spectrumTask.execute();
+    }
+
+    /** Computes a PSD beside the signal tasks; a newer waveform cancels it. */
+    private final class SpectrumTask extends SwingWorker<Spectrum.Psd, Void> {
+        private final Waveform wave;
+        private final String label;
+
+        SpectrumTask(Waveform wave, String label) {
+            this.wave = wave;
+            this.label = label;
+        }
+
+        @Override
+        protected Spectrum.Psd doInBackground() {
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.SPECTRUM)) {
+                Spectrum.Psd psd = Spectrum.of(wave, (done, total) -> {
+                    if (isCancelled()) throw new CancellationException();
+                });
+                span.items(wave.totalTicks());
+                return psd;
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (spectrumTask == this) spectrumTask = null;
+            if (isCancelled()) return;
+            try {
+                spectrumPanel.setSpectrum(get(), wave, label);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                resultLabel.setText("Spectrum failed: " + e.getCause());
+            }
+        }
+    }
+
+    private LineCode selectedCode() {
+        String encoding = encodingBox.getSelectedItem().toString();
+        boolean doScramble = scramblingCheckBox.isSelected() && "AMI".equals(encoding);
+        String scrambleType = scramblingTypeBox.getSelectedItem() == null ? "B8ZS" : scramblingTypeBox.getSelectedItem().toString();
+        return LineCode.of(encoding, doScramble, scrambleType);
+    }
+
+    private Set<BitAnalytics.Metric> selectedMetrics() {
+        Set<BitAnalytics.Metric> metrics = EnumSet.noneOf(BitAnalytics.Metric.class);
+        metricBoxes.forEach((metric, box) -> { if (box.isSelected()) metrics.add(metric); });
+        return metrics;
+    }
+
+    private void scheduleLiveUpdate() {
+        if (liveEditBox.isSelected()) liveTimer.restart();
+    }
+
+    /** Runs once typing pauses; an edit made while a task runs is picked up when it finishes. */
+    private void liveUpdate() {
+        if (!liveEditBox.isSelected()) return;
+        if (runningTask != null) {
+            livePending = true;
+            return;
+        }
+        String input = inputField.getText().trim();
+        if (input.isEmpty()) return;
+        stopScope();
+        startTask(new LiveTask(input, inputTypeBox.getSelectedItem().toString(), analogMethodBox.getSelectedItem().toString(),
+                selectedCode(), selectedMetrics(), incremental, pyramid), "Updating");
+    }
+
+    // ==== BACKGROUND TASKS ====
+    private void startTask(SignalTask<?> task, String label) {
+        runningTask = task;
+        generateButton.setEnabled(false);
+        decodeButton.setEnabled(false);
+        simulateButton.setEnabled(false);
+        multiplexButton.setEnabled(false);
+        exportButton.setEnabled(false);
+        cancelButton.setEnabled(true);
+        // the timings listed after a task cover it and the repaints since the previous one
+        if (Instrumentation.isEnabled()) Instrumentation.reset();
+        progressBar.setValue(0);
+        progressBar.setString(label + "...");
+        task.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) progressBar.setValue((Integer) e.getNewValue());
+        });
+        task.execute();
+    }
+
+    /** Runs off the EDT; results are applied in {@link #succeeded} back on the EDT. */
+    private abstract class SignalTask<T> extends SwingWorker<T, Void> {
+        /**
+         * Set by the worker as it starts, or by {@link #done} for a task cancelled before it
+         * started; whoever sets it releases the task.
+         */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        /** Maps a stage's own done/total onto the [from, to] slice of the progress bar. */
+        TaskProgress stage(int from, int to) {
+            return (done, total) -> {
+                if (isCancelled()) throw new CancellationException();
+                setProgress(from + (int) ((to - from) * done / Math.max(1, total)));
+            };
+        }
+
+        /** Only checks for cancellation, for work running beside a stage that owns the progress bar. */
+        TaskProgress cancellable() {
+            return (done, total) -> {
+                if (isCancelled()) throw new CancellationException();
+            };
+        }
+
+        /** Joins {@code future}, rethrowing what it failed with as if it had run here. */
+        <R> R join(CompletableFuture<R> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw e;
+            }
+        }
+
+        /** The task's work, run off the EDT. */
+        abstract T compute() throws Exception;
+
+        abstract void succeeded(T result);
+
+        /**
+         * A cancelled worker's {@link #done} runs at once, while {@link #compute} may still be
+         * inside a stage until its next progress check; the task is only released once it has
+         * returned, so no new task can start on state it is still writing.
+         */
+        @Override
+        protected final T doInBackground() throws Exception {
+            if (!claimed.compareAndSet(false, true)) throw new CancellationException();
+            try {
+                return compute();
+            } finally {
+                SwingUtilities.invokeLater(this::release);
+            }
+        }
+
+        private void release() {
+            if (runningTask == this) runningTask = null;
+            generateButton.setEnabled(true);
+            decodeButton.setEnabled(true);
+            simulateButton.setEnabled(true);
+            multiplexButton.setEnabled(true);
+            exportButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            if (livePending) {
+                livePending = false;
+                liveTimer.restart();
+            }
+        }
+
+        @Override
+        protected final void done() {
+            cancelButton.setEnabled(false);
+            if (claimed.compareAndSet(false, true)) release();
+            try {
+                T result = get();
+                progressBar.setValue(100);
+                progressBar.setString("Done");
+                succeeded(result);
+                if (Instrumentation.isEnabled()) detailsArea.append("Stage timings:\n" + Instrumentation.summary());
+            } catch (CancellationException e) {
+                progressBar.setValue(0);
+                progressBar.setString("Cancelled");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                progressBar.setString("Failed");
+                failed(e.getCause());
+            }
+        }
+
+        void failed(Throwable cause) {
+            JOptionPane.showMessageDialog(DigitalSignalGeneratorFullUI.this,
+                    cause instanceof IllegalArgumentException ? cause.getMessage() : "Task failed: " + cause);
+        }
+    }
+
+    /** Identifies a generation by a hash of the input text and every setting it depends on. */
+    private static final class GenerationKey {
+        final long hash;
+        final int length;
+        final String inputType, method;
+        final LineCode code;
+        final Set<BitAnalytics.Metric> metrics;
+
+        GenerationKey(String input, String inputType, String method, LineCode code, Set<BitAnalytics.Metric> metrics) {
+            this.hash = ResultCache.hash(input);
+            this.length = input.length();
+            this.inputType = inputType;
+            this.method = method;
+            this.code = code;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GenerationKey)) return false;
+            GenerationKey k = (GenerationKey) o;
+            return hash == k.hash && length == k.length && inputType.equals(k.inputType) && method.equals(k.method)
+                    && code == k.code && metrics.equals(k.metrics);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(hash, length, inputType, method, code, metrics);
+        }
+    }
+
+    private static final class Generation {
+        final BitBuffer bits;
+        final Waveform waveform;
+        final WaveformPyramid pyramid;
+        final String details;
+        /** Result of decoding {@link #waveform} with the same code, once the user asked for it. */
+        final BitBuffer decoded;
+
+        Generation(BitBuffer bits, Waveform waveform, WaveformPyramid pyramid, String details, BitBuffer decoded) {
+            this.bits = bits;
+            this.waveform = waveform;
+            this.pyramid = pyramid;
+            this.details = details;
+            this.decoded = decoded;
+        }
+
+        Generation withDecoded(BitBuffer decoded) {
+            return new Generation(bits, waveform, pyramid, details, decoded);
+        }
+
+        /** Rough retained size: packed bits, 5 bytes per segment, 4 per pyramid base bin, UTF-16 text. */
+        long byteSize() {
+            long size = 256 + 8L * bits.wordCount() + 5L * waveform.segmentCount()
+                    + 4L * (waveform.totalTicks() / WaveformPyramid.BASE_TICKS + 1) + 2L * details.length();
+            return decoded == null ? size : size + 8L * decoded.wordCount();
+        }
+    }
+
+    private final class GenerateTask extends SignalTask<Generation> {
+        private final GenerationKey key;
+        private final String input;
+
+        GenerateTask(GenerationKey key, String input) {
+            this.key = key;
+            this.input = input;
+        }
+
+        @Override
+        Generation compute() {
+            BitBuffer bits = parseInput(input, key.inputType, key.method, stage(0, 10));
+            // the statistics only read the bits, so they run beside the encoder
+            CompletableFuture<BitAnalytics.Report> analysis =
+                    CompletableFuture.supplyAsync(() -> BitAnalytics.analyze(bits, key.metrics, cancellable()));
+            Waveform wave;
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ENCODE)) {
+                wave = ParallelEncoder.encode(key.code, bits, stage(10, 80));
+                span.items(bits.size());
+            }
+            WaveformPyramid levels;
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.PYRAMID)) {
+                levels = WaveformPyramid.build(wave);
+                span.items(wave.totalTicks());
+            }
+            setProgress(90);
+            return new Generation(bits, wave, levels, describe(bits, join(analysis), key.code), null);
+        }
+
+        @Override
+        void succeeded(Generation result) {
+            cache.put(key, result);
+            show(key, result, false);
+        }
+    }
+
+    /** Re-encodes the edited input through the {@link IncrementalEncoder} of the previous live update. */
+    private final class LiveTask extends SignalTask<LiveTask> {
+        private final String input, inputType, method;
+        private final LineCode code;
+        private final Set<BitAnalytics.Metric> metrics;
+        private IncrementalEncoder encoder;
+        private WaveformPyramid levels;
+        private IncrementalEncoder.Change change;
+        private String details;
+
+        LiveTask(String input, String inputType, String method, LineCode code, Set<BitAnalytics.Metric> metrics,
+                 IncrementalEncoder encoder, WaveformPyramid levels) {
+            this.input = input;
+            this.inputType = inputType;
+            this.method = method;
+            this.code = code;
+            this.metrics = metrics;
+            this.encoder = encoder;
+            this.levels = levels;
+        }
+
+        @Override
+        LiveTask compute() {
+            BitBuffer bits = parseInput(input, inputType, method, stage(0, 10));
+            Set<BitAnalytics.Metric> tracked = EnumSet.copyOf(metrics);
+            tracked.add(BitAnalytics.Metric.RUNS);
+            if (encoder == null || encoder.code() != code || !encoder.metrics().equals(tracked)) {
+                encoder = new IncrementalEncoder(code, tracked);
+            }
+            Waveform before = encoder.waveform();
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ENCODE)) {
+                change = encoder.update(bits, stage(10, 90));
+                span.items(change.encodedBits);
+            }
+            // the pyramid on screen may belong to a full Generate rather than to this encoder
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.PYRAMID)) {
+                levels = levels != null && before != null && levels.waveform() == before
+                        ? WaveformPyramid.update(levels, encoder.waveform(), change)
+                        : WaveformPyramid.build(encoder.waveform());
+                span.items(encoder.waveform().totalTicks());
+            }
+            details = describe(bits, encoder.stats(), code);
+            if (metrics.contains(BitAnalytics.Metric.PALINDROME)) details += "Longest palindrome: not tracked while live editing\n";
+            return this;
+        }
+
+        @Override
+        void succeeded(LiveTask result) {
+            Waveform previous = waveform;
+            shownKey = null;
+            clearMultiplex();
+            incremental = encoder;
+            binaryData = encoder.bits();
+            waveform = encoder.waveform();
+            pyramid = levels;
+            waveformCode = code;
+            detailsArea.setText(details);
+            resultLabel.setText("Signal updated: " + code.label() + " (" + change.encodedBits + " bits re-encoded)");
+            // same length keeps the viewport and the fitted zoom, so only the edited columns change
+            if (previous != null && previous.totalTicks() == waveform.totalTicks()) {
+                repaintTicks(change.fromTick, change.toTick);
+            } else {
+                if (fitView) ticksPerPixel = fitTicksPerPixel();
+                clampView();
+            }
+            updateSpectrum();
+        }
+
+        @Override
+        void failed(Throwable cause) {
+            // input mid-edit is often invalid; no dialog while typing
+            resultLabel.setText(cause instanceof IllegalArgumentException ? cause.getMessage() : "Update failed: " + cause);
+        }
+    }
+
+    /** Repaints just the columns showing ticks {@code [from, to)}. */
+    private void repaintTicks(int from, int to) {
+        if (from >= to) return;
+        Rectangle area = plotArea();
+        int x0 = Math.max(area.x, area.x + (int) Math.floor((from - viewStart) / ticksPerPixel) - 1);
+        int x1 = Math.min(area.x + area.width, area.x + (int) Math.ceil((to - viewStart) / ticksPerPixel) + 1);
+        if (x0 < x1) graphPanel.repaint(x0, area.y, x1 - x0, area.height);
+    }
+
+    private static BitBuffer parseInput(String input, String inputType, String method, TaskProgress progress) {
+        double[] samples;
+        try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.PARSE)) {
+            if ("Digital".equals(inputType)) {
+                BitBuffer bits = SignalEngine.parseBits(input, progress);
+                span.items(bits.size());
+                return bits;
+            }
+            samples = SignalEngine.parseAnalogSamples(input);
+        }
+        if (samples.length == 0) throw new IllegalArgumentException("Invalid analog samples. Use comma-separated numbers.");
+        AnalogFrontEnd frontEnd = frontEnd(method);
+        boolean pcm = frontEnd.method() == AnalogFrontEnd.Method.PCM;
+        try (Instrumentation.Span span = Instrumentation.begin(pcm ? Instrumentation.Stage.PCM : Instrumentation.Stage.DELTA)) {
+            BitBuffer bits = frontEnd.encode(samples);
+            span.items(bits.size());
+            return bits;
+        }
+    }
+
+    /** The front end behind an analog method choice; 8-bit PCM over [-1, 1], DM steps as in {@link SignalCli}. */
+    private static AnalogFrontEnd frontEnd(String method) {
+        switch (method) {
+            case "PCM μ-law": return AnalogFrontEnd.pcm(8, -1.0, 1.0, AnalogFrontEnd.Companding.MU_LAW);
+            case "PCM A-law": return AnalogFrontEnd.pcm(8, -1.0, 1.0, AnalogFrontEnd.Companding.A_LAW);
+            case "DM": return AnalogFrontEnd.delta(0.1);
+            case "CVSD": return AnalogFrontEnd.cvsd(0.01, 0.16);
+            default: return AnalogFrontEnd.pcm(8, -1.0, 1.0, AnalogFrontEnd.Companding.LINEAR);
+        }
+    }
+
+    private static String describe(BitBuffer bits, BitAnalytics.Report stats, LineCode code) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Digital bitstream: ").append(preview(bits, 0, bits.size())).append('\n');
+        if (stats.has(BitAnalytics.Metric.PALINDROME)) {
+            sb.append("Longest palindrome: ").append(preview(bits, stats.palindromeStart(), stats.palindromeLength()))
+              .append(" (len=").append(stats.palindromeLength()).append(")\n");
+        }
+        if (stats.has(BitAnalytics.Metric.RUNS)) {
+            sb.append("Longest 0-run: ").append(stats.longestZeroRun())
+              .append(", longest 1-run: ").append(stats.longestOneRun()).append('\n');
+        }
+        if (stats.has(BitAnalytics.Metric.TRANSITIONS)) {
+            sb.append(String.format("Transitions: %d (density %.4f)\n", stats.transitions(), stats.transitionDensity()));
+        }
+        if (stats.has(BitAnalytics.Metric.DENSITY)) {
+            sb.append(String.format("Ones density: %.4f, DC balance: %+.4f, max running disparity: %d\n",
+                    stats.onesDensity(), stats.dcBalance(), stats.maxRunningDisparity()));
+        }
+        if (code.isScrambled()) sb.append("Scrambling: ").append(code == LineCode.AMI_B8ZS ? "B8ZS" : "HDB3").append(" applied\n");
+        return sb.toString();
+    }
+
+    private final class DecodeTask extends SignalTask<BitBuffer> {
+        private final LineCode code;
+        private final Waveform wave;
+        /** The cached generation {@link #wave} belongs to, or null. */
+        private final GenerationKey key;
+        /** Code violations found while descrambling B8ZS/HDB3, else -1. */
+        private long violations = -1;
+
+        DecodeTask(LineCode code, Waveform wave, GenerationKey key) {
+            this.code = code;
+            this.wave = wave;
+            this.key = key;
+        }
+
+        @Override
+        BitBuffer compute() {
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.DECODE)) {
+                BitBuffer out;
+                if (code.isScrambled()) {
+                    out = new BitBuffer(wave.bitCount());
+                    violations = SignalEngine.descramble(code, wave, out, stage(0, 100));
+                } else {
+                    out = SignalEngine.decode(code, wave, stage(0, 100));
+                }
+                span.items(out.size());
+                return out;
+            }
+        }
+
+        @Override
+        void succeeded(BitBuffer decoded) {
+            Generation cached = key == null ? null : cache.peek(key);
+            if (cached != null && cached.waveform == wave) cache.put(key, cached.withDecoded(decoded));
+            if (violations >= 0) detailsArea.append("Code violations: " + violations + "\n");
+            showDecoded(decoded);
+        }
+    }
+
+    private void showDecoded(BitBuffer decoded) {
+        detailsArea.append("Decoded bitstream: " + preview(decoded, 0, decoded.size()) + "\n");
+        JOptionPane.showMessageDialog(this, "Decoded bits length: " + decoded.size());
+    }
+
+    // ==== LIVE SCOPE ====
+    private JPanel createScopeBar() {
+        scopeSourceBox = new JComboBox<>(new Object[]{LiveScope.Source.RANDOM, LiveScope.Source.PRBS7, LiveScope.Source.PRBS15,
+                LiveScope.Source.PRBS23, LiveScope.Source.PRBS31, SCOPE_INPUT, SCOPE_FILE});
+        scopeRateBox = new JComboBox<>(new String[]{"1000", "10000", "100000", "1000000", "10000000"});
+        scopeRateBox.setSelectedItem("100000");
+        scopeWindowBox = new JComboBox<>(new String[]{"64", "256", "1024", "4096", "16384", "65536"});
+        scopeWindowBox.setSelectedItem("1024");
+        scopeButton = new JToggleButton("Live scope");
+        scopeButton.setToolTipText("Scroll an endless stream in the selected encoding across the graph");
+
+        JPanel bar = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        bar.add(new JLabel("Scope source"));
+        bar.add(scopeSourceBox);
+        bar.add(new JLabel("bits/s"));
+        bar.add(scopeRateBox);
+        bar.add(new JLabel("bits shown"));
+        bar.add(scopeWindowBox);
+        bar.add(scopeButton);
+
+        scopeButton.addActionListener(e -> {
+            if (scopeButton.isSelected()) startScope();
+            else stopScope();
+        });
+        scopeSourceBox.addActionListener(e -> { if (scope != null) startScope(); });
+        scopeRateBox.addActionListener(e -> { if (scope != null) runScope(scope.source(), scopeLoop); });
+        scopeWindowBox.addActionListener(e -> {
+            if (scope != null) scope.setWindowBits(Integer.parseInt(scopeWindowBox.getSelectedItem().toString()));
+        });
+        return bar;
+    }
+
+    /** (Re)starts the scope with the current source, rate and encoding. */
+    private void startScope() {
+        Object source = scopeSourceBox.getSelectedItem();
+        if (source == SCOPE_FILE) {
+            loadScopeFile();
+        } else if (source == SCOPE_INPUT) {
+            if (binaryData == null || binaryData.isEmpty()) {
+                stopScope();
+                JOptionPane.showMessageDialog(this, "Generate a signal first; its bits are looped.");
+                return;
+            }
+            runScope(LiveScope.Source.LOOP, binaryData);
+        } else {
+            runScope((LiveScope.Source) source, null);
+        }
+    }
+
+    /** Starts a scope on {@code source}, replacing any running one; encoding and rate changes restart it this way. */
+    private void runScope(LiveScope.Source source, BitBuffer loop) {
+        endScope();
+        scopeLoop = loop;
+        scope = new LiveScope(selectedCode(), source, loop, Long.parseLong(scopeRateBox.getSelectedItem().toString()));
+        scope.setWindowBits(Integer.parseInt(scopeWindowBox.getSelectedItem().toString()));
+        scope.start(graphPanel);
+        scopeButton.setSelected(true);
+        graphScrollBar.setEnabled(false);
+        resultLabel.setText("Live scope: " + source + ", " + scope.code().label());
+    }
+
+    /** Loops a file's bits: '0'/'1' text for .txt files, raw bytes (MSB first) otherwise. */
+    private void loadScopeFile() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            stopScope();
+            return;
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        MappedInput.Format format = path.getFileName().toString().endsWith(".txt") ? MappedInput.Format.ASCII : MappedInput.Format.RAW;
+        new SwingWorker<BitBuffer, Void>() {
+            @Override
+            protected BitBuffer doInBackground() throws IOException {
+                return MappedInput.readBits(path, format);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    BitBuffer bits = get();
+                    if (!bits.isEmpty()) {
+                        runScope(LiveScope.Source.LOOP, bits);
+                        return;
+                    }
+                    stopScope();
+                    resultLabel.setText("Live scope failed: no bits in " + path.getFileName());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    stopScope();
+                    resultLabel.setText("Live scope failed: " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /** Stops a running scope and logs its counters. */
+    private void endScope() {
+        if (scope == null) return;
+        scope.stop();
+        detailsArea.append(scope + "\n");
+        scope = null;
+        scopeLoop = null;
+    }
+
+    private void stopScope() {
+        scopeButton.setSelected(false);
+        if (scope == null) return;
+        endScope();
+        clampView();
+    }
+
+    // ==== CHANNEL SIMULATION ====
+    private JPanel createChannelTab() {
+        snrFromSpinner = new JSpinner(new SpinnerNumberModel(0.0, -10.0, 30.0, 1.0));
+        snrToSpinner = new JSpinner(new SpinnerNumberModel(12.0, -10.0, 30.0, 1.0));
+        snrStepSpinner = new JSpinner(new SpinnerNumberModel(1.0, 0.25, 10.0, 0.25));
+        jitterSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 0.25, 0.01));
+        jitterSpinner.setToolTipText("RMS edge jitter in bit periods");
+        bandwidthSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 8.0, 0.1));
+        bandwidthSpinner.setToolTipText("Low-pass cutoff in multiples of the bit rate, 0 for none");
+        bitsPerPointBox = new JComboBox<>(new String[]{"100000", "1000000", "10000000", "100000000", "1000000000"});
+        bitsPerPointBox.setSelectedItem("1000000");
+        simulateButton = new JButton("Simulate");
+        simulateButton.setToolTipText("BER sweep of the selected encoding over a noisy channel, on all cores");
+
+        JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controls.add(new JLabel("Eb/N0 from"));
+        controls.add(snrFromSpinner);
+        controls.add(new JLabel("to"));
+        controls.add(snrToSpinner);
+        controls.add(new JLabel("step"));
+        controls.add(snrStepSpinner);
+        controls.add(new JLabel("dB   Bits/point:"));
+        controls.add(bitsPerPointBox);
+        controls.add(new JLabel("Jitter (UI):"));
+        controls.add(jitterSpinner);
+        controls.add(new JLabel("Bandwidth (f_b):"));
+        controls.add(bandwidthSpinner);
+        controls.add(simulateButton);
+
+        channelPanel = new ChannelPanel();
+        JPanel tab = new JPanel(new BorderLayout());
+        tab.add(controls, BorderLayout.NORTH);
+        tab.add(channelPanel, BorderLayout.CENTER);
+        return tab;
+    }
+
+    private void simulateChannel() {
+        if (runningTask != null) return;
+        double from = (Double) snrFromSpinner.getValue(), to = (Double) snrToSpinner.getValue();
+        double step = (Double) snrStepSpinner.getValue();
+        if (to < from) {
+            JOptionPane.showMessageDialog(this, "Eb/N0 'to' must not be below 'from'.");
+            return;
+        }
+        double[] ebN0Db = new double[(int) Math.floor((to - from) / step + 1e-9) + 1];
+        for (int p = 0; p < ebN0Db.length; p++) ebN0Db[p] = from + p * step;
+        ChannelSimulator simulator = new ChannelSimulator(selectedCode(), (Double) jitterSpinner.getValue(),
+                (Double) bandwidthSpinner.getValue(), 4);
+        startTask(new SimulateTask(simulator, ebN0Db, Long.parseLong(bitsPerPointBox.getSelectedItem().toString())), "Simulating");
+    }
+
+    private final class SimulateTask extends SignalTask<ChannelSimulator.Point[]> {
+        private final ChannelSimulator simulator;
+        private final double[] ebN0Db;
+        private final long bitsPerPoint;
+
+        SimulateTask(ChannelSimulator simulator, double[] ebN0Db, long bitsPerPoint) {
+            this.simulator = simulator;
+            this.ebN0Db = ebN0Db;
+            this.bitsPerPoint = bitsPerPoint;
+        }
+
+        @Override
+        ChannelSimulator.Point[] compute() {
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.CHANNEL)) {
+                ChannelSimulator.Point[] points = simulator.sweep(ebN0Db, bitsPerPoint, System.nanoTime(), stage(0, 100));
+                span.items(bitsPerPoint * ebN0Db.length);
+                return points;
+            }
+        }
+
+        @Override
+        void succeeded(ChannelSimulator.Point[] points) {
+            channelPanel.setResults(points, simulator.code().label());
+            StringBuilder sb = new StringBuilder("Channel simulation, ").append(simulator.code().label()).append(":\n");
+            for (ChannelSimulator.Point p : points) {
+                sb.append(String.format("  Eb/N0 %5.1f dB: BER %.3e (%d errors in %d bits)\n", p.ebN0Db(), p.ber(), p.errors(), p.bits()));
+            }
+            detailsArea.setText(sb.toString());
+            resultLabel.setText("Channel simulated: " + simulator.code().label());
+        }
+    }
+
+    // ==== MULTIPLEXING ====
+    /** Asks for one channel per line, {@code ENCODING[:SCRAMBLE] BITS}, and a slot width, then multiplexes them. */
+    private void multiplexChannels() {
+        if (runningTask != null) return;
+        JTextArea channelsArea = new JTextArea(tdmChannels, 8, 48);
+        channelsArea.setFont(new Font("Consolas", Font.PLAIN, 12));
+        JSpinner slotSpinner = new JSpinner(new SpinnerNumberModel(tdmSlotBits, 1, 1 << 16, 1));
+        JPanel slotRow = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        slotRow.add(new JLabel("Slot (bits per channel per frame):"));
+        slotRow.add(slotSpinner);
+        JPanel form = new JPanel(new BorderLayout(5, 5));
+        form.add(new JLabel("One channel per line: ENCODING[:B8ZS|HDB3] BITS"), BorderLayout.NORTH);
+        form.add(new JScrollPane(channelsArea), BorderLayout.CENTER);
+        form.add(slotRow, BorderLayout.SOUTH);
+        if (JOptionPane.showConfirmDialog(this, form, "Multiplex Channels", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) return;
+        tdmChannels = channelsArea.getText();
+        tdmSlotBits = (Integer) slotSpinner.getValue();
+        List<String[]> specs = new ArrayList<>();
+        for (String line : tdmChannels.split("\n")) {
+            String spec = line.trim();
+            if (spec.isEmpty()) continue;
+            String[] parts = spec.split("\\s+", 2);
+            if (parts.length < 2) {
+                JOptionPane.showMessageDialog(this, "Channel " + (specs.size() + 1) + " needs an encoding and bits: " + spec);
+                return;
+            }
+            specs.add(parts);
+        }
+        if (specs.isEmpty() || specs.size() > TdmMultiplexer.MAX_CHANNELS) {
+            JOptionPane.showMessageDialog(this, "Enter 1 to " + TdmMultiplexer.MAX_CHANNELS + " channels.");
+            return;
+        }
+        stopScope();
+        startTask(new TdmTask(specs, tdmSlotBits), "Multiplexing");
+    }
+
+    /** {@code ENCODING} or {@code ENCODING:SCRAMBLE}, as in the encoding and scramble boxes. */
+    private static LineCode channelCode(String spec) {
+        int colon = spec.indexOf(':');
+        if (colon < 0) return LineCode.parse(spec);
+        return LineCode.of(spec.substring(0, colon), true, spec.substring(colon + 1));
+    }
+
+    private void clearMultiplex() {
+        tdmLine = null;
+        tdmLanes = null;
+        tdmDecoded = null;
+    }
+
+    private final class TdmTask extends SignalTask<TdmTask> {
+        private final List<String[]> specs;
+        private final TdmMultiplexer mux;
+        private TdmMultiplexer.Line line;
+        private BitBuffer[] decoded;
+        private WaveformPyramid linePyramid;
+        private WaveformPyramid[] lanes;
+
+        TdmTask(List<String[]> specs, int slotBits) {
+            this.specs = specs;
+            this.mux = new TdmMultiplexer(slotBits);
+        }
+
+        @Override
+        TdmTask compute() {
+            List<TdmMultiplexer.Channel> channels = new ArrayList<>(specs.size());
+            long bits = 0;
+            for (int c = 0; c < specs.size(); c++) {
+                String[] spec = specs.get(c);
+                BitBuffer data;
+                try {
+                    data = parseInput(spec[1], "Digital", "", cancellable());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Channel " + (c + 1) + ": " + e.getMessage());
+                }
+                channels.add(new TdmMultiplexer.Channel("Ch " + (c + 1), channelCode(spec[0]), data));
+                bits += data.size();
+            }
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ENCODE)) {
+                line = mux.multiplex(channels, stage(0, 50));
+                span.items(bits);
+            }
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.DECODE)) {
+                decoded = mux.decode(line.waveform(), channels, stage(50, 80));
+                span.items(bits);
+            }
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.PYRAMID)) {
+                linePyramid = WaveformPyramid.build(line.waveform());
+                lanes = new WaveformPyramid[channels.size()];
+                ParallelEncoder.Progress done = new ParallelEncoder.Progress(stage(80, 100), lanes.length);
+                TdmMultiplexer.forEachChannel(lanes.length, c -> {
+                    lanes[c] = WaveformPyramid.build(line.lane(c));
+                    done.advance(1);
+                });
+                span.items((long) line.waveform().totalTicks() * (lanes.length + 1));
+            }
+            return this;
+        }
+
+        @Override
+        void succeeded(TdmTask result) {
+            shownKey = null;
+            incremental = null;
+            binaryData = null;
+            waveform = line.waveform();
+            pyramid = linePyramid;
+            waveformCode = null;
+            tdmLine = line;
+            tdmLanes = lanes;
+            tdmDecoded = decoded;
+            StringBuilder sb = new StringBuilder(String.format("TDM line: %d channels, %d-bit slots, %d frames of %d bits%s\n",
+                    line.channels().size(), line.slotBits(), line.frames(), line.frameBits(),
+                    TdmMultiplexer.usesVirtualThreads() ? ", one virtual thread per channel" : ""));
+            for (int c = 0; c < decoded.length; c++) {
+                TdmMultiplexer.Channel channel = line.channels().get(c);
+                sb.append(String.format("%s %s: %d bits, %d decode errors\n", channel.name(), channel.code().label(),
+                        channel.bits().size(), TdmMultiplexer.bitErrors(channel.bits(), decoded[c])));
+            }
+            detailsArea.setText(sb.toString());
+            resultLabel.setText("Channels multiplexed: " + line.channels().size());
+            resetView();
+            updateSpectrum();
+        }
+    }
+
+    /** The line on top, then each channel's slots on its own trace, labelled, as far as they fit. */
+    private void paintMultiplex(Graphics2D g2, Rectangle area) {
+        int traces = Math.max(1, Math.min(tdmLanes.length + 1, area.height / MIN_TRACE_HEIGHT));
+        g2.setFont(g2.getFont().deriveFont(11f));
+        for (int t = 0; t < traces; t++) {
+            int y0 = area.y + (int) ((long) area.height * t / traces), y1 = area.y + (int) ((long) area.height * (t + 1) / traces);
+            Rectangle row = new Rectangle(area.x, y0, area.width, y1 - y0);
+            renderer.paint(g2, t == 0 ? pyramid : tdmLanes[t - 1], row, viewStart, ticksPerPixel);
+            g2.setColor(Color.lightGray);
+            String label = t == 0 ? "TDM line" : tdmLine.channels().get(t - 1).name() + " " + tdmLine.channels().get(t - 1).code().label();
+            g2.drawString(label, row.x + 4, row.y + g2.getFontMetrics().getAscent() + 1);
+        }
+        if (traces <= tdmLanes.length) {
+            g2.drawString("+" + (tdmLanes.length + 1 - traces) + " more channels", area.x + 4, area.y + area.height - 4);
+        }
+    }
+
+    // ==== EXPORT ====
+    /** Saves the waveform on show in the format its file name's extension picks. */
+    private void exportWaveform() {
+        if (runningTask != null) return;
+        if (waveform == null || waveform.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No signal to export.");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        for (WaveformExporter.Format f : WaveformExporter.Format.values()) {
+            chooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                    f.name() + " (*." + f.extension() + ")", f.extension()));
+        }
+        chooser.setSelectedFile(new java.io.File("signal." + WaveformExporter.Format.VCD.extension()));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path path = chooser.getSelectedFile().toPath();
+        WaveformExporter.Format format;
+        try {
+            format = WaveformExporter.Format.of(path);
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Name the file .vcd, .csv or .dcwf to pick the format.");
+            return;
+        }
+        String title = tdmLine != null ? "TDM " + tdmLine.channels().size() + " channels" : waveformCode.label();
+        startTask(new ExportTask(waveform, path, format, title), "Exporting");
+    }
+
+    private final class ExportTask extends SignalTask<Path> {
+        private final Waveform wave;
+        private final Path path;
+        private final WaveformExporter.Format format;
+        private final String title;
+
+        ExportTask(Waveform wave, Path path, WaveformExporter.Format format, String title) {
+            this.wave = wave;
+            this.path = path;
+            this.format = format;
+            this.title = title;
+        }
+
+        @Override
+        Path compute() throws IOException {
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.WRITE)) {
+                WaveformExporter.export(wave, path, format, title, stage(0, 100));
+                span.items(wave.segmentCount());
+            }
+            return path;
+        }
+
+        @Override
+        void succeeded(Path result) {
+            resultLabel.setText("Exported " + format + ": " + result.getFileName());
+        }
+    }
+
+    // ==== DRAW METHOD ====
+    private void drawSignal(Graphics2D g2) {
+        if (scope == null && (pyramid == null || waveform == null || waveform.isEmpty())) return;
+        Rectangle area = plotArea();
+        try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.RENDER)) {
+            if (scope != null) {
+                scope.paint(g2, area);
+            } else {
+                if (fitView) ticksPerPixel = fitTicksPerPixel();
+                if (tdmLanes != null) paintMultiplex(g2, area);
+                else renderer.paint(g2, pyramid, area, viewStart, ticksPerPixel);
+            }
+            span.items(area.width);
+        }
+    }
+
+    // ==== VIEWPORT ====
+    private void installViewportControls() {
+        graphPanel.addMouseWheelListener(e -> {
+            if (scope != null || waveform == null || waveform.isEmpty()) return;
+            if (e.isShiftDown()) panBy(e.getPreciseWheelRotation() * plotArea().width / 10.0);
+            else zoomAt(e.getX(), Math.pow(1.25, e.getPreciseWheelRotation()));
+        });
+        MouseAdapter drag = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                panBy(dragX - e.getX());
+                dragX = e.getX();
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) resetView();
+            }
+        };
+        graphPanel.addMouseListener(drag);
+        graphPanel.addMouseMotionListener(drag);
+        graphPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                if (fitView) ticksPerPixel = fitTicksPerPixel();
+                clampView();
+            }
+        });
+        graphScrollBar.addAdjustmentListener(e -> {
+            if (syncingScrollBar || scope != null || waveform == null) return;
+            viewStart = e.getValue();
+            fitView = false;
+            graphPanel.repaint();
+        });
+    }
+
+    private Rectangle plotArea() {
+        Insets in = graphPanel.getInsets();
+        return new Rectangle(in.left, in.top,
+                graphPanel.getWidth() - in.left - in.right, graphPanel.getHeight() - in.top - in.bottom);
+    }
+
+    private double fitTicksPerPixel() {
+        return waveform.totalTicks() / (double) Math.max(1, plotArea().width);
+    }
+
+    private void resetView() {
+        fitView = true;
+        viewStart = 0;
+        if (waveform != null && !waveform.isEmpty()) ticksPerPixel = fitTicksPerPixel();
+        clampView();
+    }
+
+    /** Zooms by {@code factor} (greater than 1 zooms out) keeping the tick under pixel {@code x} fixed. */
+    private void zoomAt(int x, double factor) {
+        double px = x - plotArea().x;
+        double anchor = viewStart + px * ticksPerPixel;
+        double fit = fitTicksPerPixel();
+        ticksPerPixel = Math.max(Math.min(MIN_TICKS_PER_PIXEL, fit), Math.min(fit, ticksPerPixel * factor));
+        fitView = ticksPerPixel >= fit;
+        viewStart = anchor - px * ticksPerPixel;
+        clampView();
+    }
+
+    private void panBy(double pixels) {
+        if (scope != null || waveform == null || waveform.isEmpty()) return;
+        viewStart += pixels * ticksPerPixel;
+        fitView = false;
+        clampView();
+    }
+
+    /** Keeps the viewport inside the signal, then syncs the scroll bar and repaints. */
+    private void clampView() {
+        if (scope != null || waveform == null || waveform.isEmpty()) {
+            graphScrollBar.setEnabled(false);
+            graphPanel.repaint();
+            return;
+        }
+        int total = waveform.totalTicks();
+        double visible = plotArea().width * ticksPerPixel;
+        viewStart = Math.max(0, Math.min(viewStart, total - visible));
+        int extent = (int) Math.min(total, Math.ceil(visible));
+        syncingScrollBar = true;
+        graphScrollBar.setEnabled(extent < total);
+        graphScrollBar.setValues((int) viewStart, extent, 0, total);
+        graphScrollBar.setUnitIncrement(Math.max(1, (int) (ticksPerPixel * 16)));
+        graphScrollBar.setBlockIncrement(Math.max(1, (int) (extent * 0.9)));
+        syncingScrollBar = false;
+        graphPanel.repaint();
+    }
+
+    private void updateInputMode() {
+        boolean isAnalog = "Analog".equals(inputTypeBox.getSelectedItem().toString());
+        analogMethodBox.setEnabled(isAnalog);
+        inputField.setToolTipText(isAnalog ? "Enter analog samples CSV in range [-1,1]" : "Enter binary string of 0/1");
+    }
+
+    private void updateScrambleControls() {
+        boolean enable = scramblingCheckBox.isSelected();
+        scramblingTypeBox.setEnabled(enable);
+    }
+
+    /** Bits {@code [from, from + length)} as 0/1 text, cut off after {@link #PREVIEW_CHARS}. */
+    private static String preview(BitBuffer bits, int from, int length) {
+        int shown = Math.min(length, PREVIEW_CHARS);
+        StringBuilder sb = new StringBuilder(shown + 32);
+        for (int i = 0; i < shown; i++) sb.append((char) ('0' + bits.get(from + i)));
+        if (shown < length) sb.append("... (").append(length).append(" chars)");
+        return sb.toString();
+    }
+
+    private void decodeSignal() {
+        if (runningTask != null) return;
+        if (waveform == null || waveform.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No signal to decode.");
+            return;
+        }
+        if (tdmDecoded != null) {
+            // every channel was demultiplexed and decoded with its own code along with the line
+            for (int c = 0; c < tdmDecoded.length; c++) {
+                detailsArea.append(tdmLine.channels().get(c).name() + " decoded: " + preview(tdmDecoded[c], 0, tdmDecoded[c].size()) + "\n");
+            }
+            return;
+        }
+        String encoding = encodingBox.getSelectedItem().toString();
+        String scrambleType = scramblingTypeBox.getSelectedItem() == null ? "B8ZS" : scramblingTypeBox.getSelectedItem().toString();
+        LineCode code = LineCode.of(encoding, scramblingCheckBox.isSelected(), scrambleType);
+        GenerationKey key = shownKey != null && shownKey.code == code ? shownKey : null;
+        Generation cached = key == null ? null : cache.peek(key);
+        if (cached != null && cached.decoded != null) {
+            showDecoded(cached.decoded);
+            return;
+        }
+        startTask(new DecodeTask(code, waveform, key), "Decoding");
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new DigitalSignalGeneratorFullUI().setVisible(true));
+    }
+}
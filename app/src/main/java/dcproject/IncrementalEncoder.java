@@ -0,0 +1,246 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Re-encodes an edited bitstream without redoing the unchanged parts. Every
+ * {@link #CHECKPOINT_BITS} bits the encoder state, the waveform length so far and the
+ * statistics of the block since the previous checkpoint are saved. An update diffs the new bits
+ * against the previous ones, resumes encoding at the last checkpoint before the first change,
+ * and as soon as it reaches an old checkpoint inside the unchanged suffix with the same encoder
+ * state it splices in the old waveform tail and the old blocks instead of encoding them again.
+ * Every code is symmetric under polarity, so a state that differs only in its sign (NRZ-I after
+ * a flipped bit, AMI after an added pulse) splices the old tail negated. The waveform is
+ * identical to {@link SignalEngine#encode} of the whole input.
+ * <p>
+ * Not thread safe; an update that throws (for example on cancellation) leaves the previous
+ * result in place.
+ */
+public final class IncrementalEncoder {
+    public static final int CHECKPOINT_BITS = 1 << 12;
+
+    private final LineCode code;
+    private final Set<BitAnalytics.Metric> metrics;
+    private final StreamingEncoder scrambled;
+
+    private BitBuffer bits;
+    private Waveform waveform;
+    private BitAnalytics.Report stats;
+    // checkpoint i: bit position, waveform ticks emitted there, encoder state, stats of the block up to checkpoint i + 1
+    private int[] checkpointBits = new int[0], checkpointTicks = new int[0];
+    private long[] checkpointStates = new long[0];
+    private BitAnalytics.Accumulator[] blocks = new BitAnalytics.Accumulator[0];
+    private int checkpoints;
+
+    /** {@code metrics} are kept up to date per block; {@link BitAnalytics.Metric#PALINDROME} is ignored. */
+    public IncrementalEncoder(LineCode code, Set<BitAnalytics.Metric> metrics) {
+        this.code = Objects.requireNonNull(code);
+        this.metrics = metrics;
+        scrambled = ByteTableCodec.supports(code) ? null : StreamingEncoder.create(code);
+    }
+
+    public LineCode code() {
+        return code;
+    }
+
+    public Set<BitAnalytics.Metric> metrics() {
+        return metrics;
+    }
+
+    /** The last encoded input, or null before the first update; not to be modified. */
+    public BitBuffer bits() {
+        return bits;
+    }
+
+    public Waveform waveform() {
+        return waveform;
+    }
+
+    public BitAnalytics.Report stats() {
+        return stats;
+    }
+
+    /** What an {@link #update} changed; ticks are in the new waveform. */
+    public static final class Change {
+        /** Ticks before this are unchanged. */
+        public final int fromTick;
+        /** Ticks from here on are the old ones shifted by {@link #shiftTicks}, or the end if nothing was reused. */
+        public final int toTick;
+        public final int shiftTicks;
+        /** Whether the reused tail is the old one with every level negated. */
+        public final boolean inverted;
+        public final int encodedBits;
+
+        Change(int fromTick, int toTick, int shiftTicks, boolean inverted, int encodedBits) {
+            this.fromTick = fromTick;
+            this.toTick = toTick;
+            this.shiftTicks = shiftTicks;
+            this.inverted = inverted;
+            this.encodedBits = encodedBits;
+        }
+
+        public boolean isEmpty() {
+            return fromTick == toTick && shiftTicks == 0;
+        }
+    }
+
+    /** Encodes {@code next}, which is copied, reusing whatever the previous input shares with it. */
+    public Change update(BitBuffer next, TaskProgress progress) {
+        next = copy(next);
+        int oldSize = bits == null ? 0 : bits.size(), newSize = next.size();
+        int prefix = bits == null ? 0 : commonPrefix(bits, next);
+        if (bits != null && prefix == oldSize && prefix == newSize) {
+            int end = waveform.totalTicks();
+            return new Change(end, end, 0, false, 0);
+        }
+        int suffix = bits == null ? 0 : commonSuffix(bits, next, Math.min(oldSize, newSize) - prefix);
+        int delta = newSize - oldSize;
+
+        // resume at the last checkpoint at or before the first change
+        int restart = 0;
+        if (bits != null) {
+            restart = Arrays.binarySearch(checkpointBits, 0, checkpoints, prefix);
+            if (restart < 0) restart = -restart - 2;
+        }
+        Builder b = new Builder(Math.max(checkpoints, 1) + Math.abs(delta) / CHECKPOINT_BITS + 2);
+        Waveform out = new Waveform(waveform == null ? 16 : waveform.segmentCount() + 16);
+        if (bits != null) {
+            for (int i = 0; i < restart; i++) b.add(checkpointBits[i], checkpointTicks[i], checkpointStates[i], blocks[i]);
+            out.append(waveform, 0, checkpointTicks[restart]);
+        }
+        int pos = bits == null ? 0 : checkpointBits[restart];
+        long state = bits == null ? initialState() : checkpointStates[restart];
+        int fromTick = out.totalTicks(), startBit = pos;
+
+        // old checkpoints whose remaining bits reappear unchanged in the new input
+        int candidate = restart + 1;
+        while (candidate < checkpoints && checkpointBits[candidate] < oldSize - suffix) candidate++;
+        while (candidate < checkpoints && checkpointBits[candidate] + delta <= pos) candidate++;
+
+        while (true) {
+            progress.update(pos, newSize);
+            int end = Math.min(pos + CHECKPOINT_BITS, newSize);
+            if (candidate < checkpoints) end = Math.min(end, checkpointBits[candidate] + delta);
+            b.add(pos, out.totalTicks(), state, null);
+            BitAnalytics.Accumulator block = new BitAnalytics.Accumulator(metrics);
+            block.add(next, pos, end);
+            b.blocks[b.count - 1] = block;
+            state = encode(next, pos, end, state, out);
+            pos = end;
+            if (candidate < checkpoints && pos == checkpointBits[candidate] + delta) {
+                long flip = state ^ checkpointStates[candidate];
+                if ((flip & ~1L) == 0) {
+                    // same remaining bits from the same state, up to polarity: the old tail follows
+                    int toTick = out.totalTicks(), shift = toTick - checkpointTicks[candidate];
+                    out.append(waveform, checkpointTicks[candidate], waveform.totalTicks(), flip != 0);
+                    for (int i = candidate; i < checkpoints; i++) {
+                        b.add(checkpointBits[i] + delta, checkpointTicks[i] + shift, checkpointStates[i] ^ flip, blocks[i]);
+                    }
+                    commit(next, out, b);
+                    return new Change(fromTick, toTick, shift, flip != 0, pos - startBit);
+                }
+                candidate++;
+            }
+            if (pos == newSize) break;
+        }
+        finish(state, out);
+        commit(next, out, b);
+        return new Change(fromTick, out.totalTicks(), 0, false, newSize - startBit);
+    }
+
+    private long initialState() {
+        if (scrambled == null) return StreamingEncoder.packState(ByteTableCodec.initialLevel(code), false, 0);
+        scrambled.reset();
+        return scrambled.saveState();
+    }
+
+    /** Encodes bits {@code [from, to)} from {@code state} and returns the state after them. */
+    private long encode(BitBuffer in, int from, int to, long state, Waveform out) {
+        if (scrambled == null) {
+            int level = ByteTableCodec.encode(code, in, from, to, StreamingEncoder.stateLevel(state), out, TaskProgress.NONE);
+            return StreamingEncoder.packState(level, false, 0);
+        }
+        scrambled.restoreState(state);
+        scrambled.encode(in, from, to, out);
+        return scrambled.saveState();
+    }
+
+    private void finish(long state, Waveform out) {
+        if (scrambled == null) return;
+        scrambled.restoreState(state);
+        scrambled.finish(out);
+    }
+
+    private void commit(BitBuffer next, Waveform out, Builder b) {
+        BitAnalytics.Accumulator total = new BitAnalytics.Accumulator(metrics);
+        for (int i = 0; i < b.count; i++) total.append(b.blocks[i]);
+        bits = next;
+        waveform = out;
+        stats = total.report();
+        checkpointBits = b.bits;
+        checkpointTicks = b.ticks;
+        checkpointStates = b.states;
+        blocks = b.blocks;
+        checkpoints = b.count;
+    }
+
+    private static BitBuffer copy(BitBuffer in) {
+        BitBuffer out = new BitBuffer(in.size());
+        out.append(in);
+        return out;
+    }
+
+    /** Length of the longest common prefix, a word at a time. */
+    private static int commonPrefix(BitBuffer a, BitBuffer b) {
+        int n = Math.min(a.size(), b.size()), i = 0;
+        for (; i + 64 <= n; i += 64) {
+            long diff = a.getBits(i, 64) ^ b.getBits(i, 64);
+            if (diff != 0) return i + Long.numberOfTrailingZeros(diff);
+        }
+        for (; i < n; i++) if (a.get(i) != b.get(i)) return i;
+        return n;
+    }
+
+    /** Length of the longest common suffix, at most {@code limit}. */
+    private static int commonSuffix(BitBuffer a, BitBuffer b, int limit) {
+        int an = a.size(), bn = b.size(), k = 0;
+        for (; k + 64 <= limit; k += 64) {
+            long diff = a.getBits(an - k - 64, 64) ^ b.getBits(bn - k - 64, 64);
+            if (diff != 0) return k + Long.numberOfLeadingZeros(diff);
+        }
+        for (; k < limit; k++) if (a.get(an - k - 1) != b.get(bn - k - 1)) return k;
+        return limit;
+    }
+
+    /** Growable parallel checkpoint arrays for the next state. */
+    private static final class Builder {
+        int[] bits, ticks;
+        long[] states;
+        BitAnalytics.Accumulator[] blocks;
+        int count;
+
+        Builder(int capacity) {
+            bits = new int[capacity];
+            ticks = new int[capacity];
+            states = new long[capacity];
+            blocks = new BitAnalytics.Accumulator[capacity];
+        }
+
+        void add(int bit, int tick, long state, BitAnalytics.Accumulator block) {
+            if (count == bits.length) {
+                int cap = count + (count >> 1) + 1;
+                bits = Arrays.copyOf(bits, cap);
+                ticks = Arrays.copyOf(ticks, cap);
+                states = Arrays.copyOf(states, cap);
+                blocks = Arrays.copyOf(blocks, cap);
+            }
+            bits[count] = bit;
+            ticks[count] = tick;
+            states[count] = state;
+            blocks[count] = block;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package dcproject;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-stage timings and allocation counts for the signal pipeline. A stage is timed by a
+ * {@link Span} in try-with-resources around its call; closing it adds the elapsed time, the bytes
+ * the calling thread allocated meanwhile and the items processed to the stage's totals, and
+ * commits a {@code dcproject.Stage} JDK Flight Recorder event when a recording enables it.
+ * <p>
+ * Off by default: {@link #begin} then returns a shared no-op span, so a disabled call site costs a
+ * volatile read. Enable with {@code -Ddcproject.metrics=true} or {@link #setEnabled}. Allocation
+ * is only seen on the calling thread, so work a stage hands to the fork-join pool shows up in its
+ * time but not in its bytes.
+ */
+public final class Instrumentation {
+    public enum Stage {
+        PARSE("bits"), PCM("bits"), DELTA("bits"), ENCODE("bits"), PYRAMID("ticks"), ANALYSIS("bits"),
+        PALINDROME("bits"), DECODE("bits"), RENDER("columns"), SPECTRUM("ticks"), CHANNEL("bits"), WRITE("segments"),
+        SHAPE("bits");
+
+        private final String unit;
+
+        Stage(String unit) {
+            this.unit = unit;
+        }
+
+        /** What {@link Span#items} counts for this stage. */
+        public String unit() {
+            return unit;
+        }
+
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // per stage: calls, total nanos, max nanos, allocated bytes, items
+    private static final int CALLS = 0, NANOS = 1, MAX_NANOS = 2, BYTES = 3, ITEMS = 4, FIELDS = 5;
+    private static final AtomicLongArray totals = new AtomicLongArray(Stage.values().length * FIELDS);
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+    private static volatile boolean enabled = Boolean.getBoolean("dcproject.metrics");
+
+    private Instrumentation() { }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (bean.isThreadAllocatedMemorySupported()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                    return bean;
+                }
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            // no allocation counts on this VM
+        }
+        return null;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /** Starts timing {@code stage} on this thread, or nothing if it is null; close the span when it ends. */
+    public static Span begin(Stage stage) {
+        return enabled && stage != null ? new Span(stage) : Span.NONE;
+    }
+
+    public static void reset() {
+        for (int i = 0; i < totals.length(); i++) totals.set(i, 0);
+    }
+
+    public static long calls(Stage stage) {
+        return totals.get(stage.ordinal() * FIELDS + CALLS);
+    }
+
+    public static long totalNanos(Stage stage) {
+        return totals.get(stage.ordinal() * FIELDS + NANOS);
+    }
+
+    public static long maxNanos(Stage stage) {
+        return totals.get(stage.ordinal() * FIELDS + MAX_NANOS);
+    }
+
+    /** Bytes allocated by the timed threads, or 0 where the VM cannot count them. */
+    public static long allocatedBytes(Stage stage) {
+        return totals.get(stage.ordinal() * FIELDS + BYTES);
+    }
+
+    public static long items(Stage stage) {
+        return totals.get(stage.ordinal() * FIELDS + ITEMS);
+    }
+
+    /** One line per stage that ran since the last {@link #reset}, for people. */
+    public static String summary() {
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT, "%-10s %6s %10s %10s %10s %12s%n",
+                "stage", "calls", "total ms", "max ms", "alloc MB", "rate"));
+        for (Stage s : Stage.values()) {
+            long calls = calls(s), nanos = totalNanos(s), items = items(s);
+            if (calls == 0) continue;
+            String rate = items == 0 || nanos == 0 ? "" : String.format(Locale.ROOT, "%.1f M%s/s", items * 1e3 / nanos, s.unit());
+            sb.append(String.format(Locale.ROOT, "%-10s %6d %10.2f %10.2f %10.2f %12s%n", s.label(), calls, nanos / 1e6,
+                    maxNanos(s) / 1e6, allocatedBytes(s) / (double) (1 << 20), rate));
+        }
+        return sb.toString();
+    }
+
+    /** The same totals as CSV with a header row, for scripts. */
+    public static String dump() {
+        StringBuilder sb = new StringBuilder("stage,calls,total_ns,max_ns,allocated_bytes,items,unit\n");
+        for (Stage s : Stage.values()) {
+            if (calls(s) == 0) continue;
+            sb.append(s.label()).append(',').append(calls(s)).append(',').append(totalNanos(s)).append(',')
+              .append(maxNanos(s)).append(',').append(allocatedBytes(s)).append(',').append(items(s)).append(',')
+              .append(s.unit()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static long threadAllocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static void record(Stage stage, long nanos, long bytes, long items) {
+        int base = stage.ordinal() * FIELDS;
+        totals.incrementAndGet(base + CALLS);
+        totals.addAndGet(base + NANOS, nanos);
+        totals.accumulateAndGet(base + MAX_NANOS, nanos, Math::max);
+        totals.addAndGet(base + BYTES, bytes);
+        totals.addAndGet(base + ITEMS, items);
+    }
+
+    /** One timed run of a stage; not shared between threads. */
+    public static final class Span implements AutoCloseable {
+        static final Span NONE = new Span();
+
+        private final Stage stage;
+        private final StageEvent event;
+        private final long startBytes, startNanos;
+        private long items;
+
+        private Span() {
+            stage = null;
+            event = null;
+            startBytes = startNanos = 0;
+        }
+
+        private Span(Stage stage) {
+            this.stage = stage;
+            event = new StageEvent();
+            event.begin();
+            startBytes = threadAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        /** Counts {@code n} more items, in the stage's {@link Stage#unit}, processed by this run. */
+        public Span items(long n) {
+            items += n;
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (stage == null) return;
+            long nanos = System.nanoTime() - startNanos;
+            long bytes = threadAllocatedBytes() - startBytes;
+            record(stage, nanos, bytes, items);
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage.label();
+                event.items = items;
+                event.allocated = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("dcproject.Stage")
+    @Label("Pipeline Stage")
+    @Category("DC Project")
+    @Description("One timed run of a signal pipeline stage")
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Items")
+        @Description("Bits, ticks or columns processed, by stage")
+        long items;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+    }
+}
@@ -0,0 +1,56 @@
+package dcproject;
+
+import java.util.Locale;
+
+/** Line coding schemes, including the scrambled AMI variants. */
+public enum LineCode {
+    NRZ_L("NRZ-L"),
+    NRZ_I("NRZ-I"),
+    MANCHESTER("Manchester"),
+    DIFF_MANCHESTER("Differential Manchester"),
+    AMI("AMI"),
+    AMI_B8ZS("AMI + B8ZS"),
+    AMI_HDB3("AMI + HDB3");
+
+    private final String label;
+
+    LineCode(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public boolean isScrambled() {
+        return this == AMI_B8ZS || this == AMI_HDB3;
+    }
+
+    /** Resolves the UI selection; scrambling only applies to AMI. */
+    public static LineCode of(String encoding, boolean scramble, String scrambleType) {
+        LineCode code = parse(encoding);
+        if (code == AMI && scramble) return "HDB3".equalsIgnoreCase(scrambleType) ? AMI_HDB3 : AMI_B8ZS;
+        return code;
+    }
+
+    /**
+     * Parses a UI label or a command-line spelling such as {@code nrzl}, {@code diff-manchester}
+     * or {@code b8zs}, ignoring case and separators.
+     */
+    public static LineCode parse(String name) {
+        String key = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+        switch (key) {
+            case "nrzl": return NRZ_L;
+            case "nrzi": return NRZ_I;
+            case "manchester": return MANCHESTER;
+            case "differentialmanchester":
+            case "diffmanchester": return DIFF_MANCHESTER;
+            case "ami": return AMI;
+            case "b8zs":
+            case "amib8zs": return AMI_B8ZS;
+            case "hdb3":
+            case "amihdb3": return AMI_HDB3;
+            default: throw new IllegalArgumentException("Unknown encoding: " + name);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package dcproject;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Oscilloscope view of an endless encoded bit stream. A producer thread generates bits (random,
+ * a PRBS or a looped buffer) at a target rate, runs them through a {@link StreamingEncoder} and
+ * writes the half-bit levels into a fixed {@code byte[]} ring; a Swing timer renders the newest
+ * {@link #windowBits()} bits at {@link #FRAME_MS} intervals, so the trace scrolls like a scope.
+ * <p>
+ * Frames are drawn straight into the {@code int[]} raster of a back {@link BufferedImage} (one
+ * min/max bar per pixel column over a pre-drawn graticule) and swapped with the front image that
+ * {@link #paint} blits; the images are only reallocated on resize and the producer reuses one
+ * chunk buffer, so the producer allocates nothing per chunk and a frame only the few bytes
+ * Java2D takes to draw the status line. The ring is published through
+ * a volatile tick counter; a frame whose ticks the producer overwrote while it was being drawn
+ * is discarded and counted as dropped, like clock ticks missed because the EDT was busy.
+ */
+public final class LiveScope {
+    public enum Source {
+        RANDOM("Random", 0, 0), PRBS7("PRBS-7", 7, 6), PRBS15("PRBS-15", 15, 14),
+        PRBS23("PRBS-23", 23, 18), PRBS31("PRBS-31", 31, 28), LOOP("Looped input", 0, 0);
+
+        private final String label;
+        /** Feedback taps of the ITU-T O.150 generator x^degree + x^tap + 1. */
+        final int degree, tap;
+
+        Source(String label, int degree, int tap) {
+            this.label = label;
+            this.degree = degree;
+            this.tap = tap;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public static final int FRAME_MS = 16;
+    public static final int RING_TICKS = 1 << 22;
+    public static final int MAX_WINDOW_BITS = 1 << 16;
+    /** Largest chunk the producer encodes between publications. */
+    public static final int MAX_CHUNK_BITS = 1 << 16;
+    /** Ticks a chunk can write past the published counter: the chunk plus a held-back scrambler run. */
+    private static final int CHUNK_SLACK = (MAX_CHUNK_BITS + 8) * Waveform.TICKS_PER_BIT;
+    /** A producer this far behind schedule gives up catching up and restarts its clock. */
+    private static final long MAX_BACKLOG_NANOS = 100_000_000L;
+
+    private static final int BACKGROUND = 0x000000, GRID = 0x505050, TRACE = 0x00FF00;
+    private static final Font STATUS_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+
+    private final LineCode code;
+    private final Source source;
+    private final BitBuffer loop;
+    private final long bitsPerSecond;
+    private final int chunkBits;
+    private volatile int windowBits = 1024;
+
+    // Producer side: only pump() touches these, apart from the volatile counters
+    private final byte[] ring = new byte[RING_TICKS];
+    private final StreamingEncoder encoder;
+    private final BitBuffer chunk;
+    private final SegmentSink sink = this::write;
+    private final SplittableRandom random = new SplittableRandom(1);
+    private int lfsr = -1, loopPos;
+    private long ticks;
+    private volatile long written, bitsProduced;
+    private volatile boolean running;
+    private Thread producer;
+
+    // Render side (EDT)
+    private BufferedImage front, back;
+    private Graphics2D backGraphics, frontGraphics;
+    private int[] backPixels, frontPixels, background;
+    private javax.swing.Timer frameTimer;
+    private long lastTickNanos, frames, dropped;
+    private long statsNanos, statsFrames, statsBits;
+    private double fps, bitRate;
+    private String status = "";
+
+    /** {@code loop} supplies the bits for {@link Source#LOOP} and is ignored otherwise. */
+    public LiveScope(LineCode code, Source source, BitBuffer loop, long bitsPerSecond) {
+        if (bitsPerSecond <= 0) throw new IllegalArgumentException("bit rate must be positive: " + bitsPerSecond);
+        if (source == Source.LOOP && (loop == null || loop.isEmpty())) throw new IllegalArgumentException("nothing to loop");
+        this.code = Objects.requireNonNull(code);
+        this.source = Objects.requireNonNull(source);
+        this.loop = loop;
+        this.bitsPerSecond = bitsPerSecond;
+        // about a millisecond of bits per chunk keeps the scroll smooth at low rates
+        this.chunkBits = (int) Math.max(1, Math.min(MAX_CHUNK_BITS, bitsPerSecond / 1000));
+        this.encoder = StreamingEncoder.create(code);
+        this.chunk = new BitBuffer(chunkBits);
+    }
+
+    public LineCode code() {
+        return code;
+    }
+
+    public Source source() {
+        return source;
+    }
+
+    public long bitsPerSecond() {
+        return bitsPerSecond;
+    }
+
+    public int windowBits() {
+        return windowBits;
+    }
+
+    /** Bits on screen, from 16 to {@link #MAX_WINDOW_BITS}; takes effect on the next frame. */
+    public void setWindowBits(int bits) {
+        if (bits < 16 || bits > MAX_WINDOW_BITS) throw new IllegalArgumentException("window must be 16.." + MAX_WINDOW_BITS + " bits: " + bits);
+        windowBits = bits;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Starts the producer thread and the frame clock, which renders into {@code view}'s insets. */
+    public void start(JComponent view) {
+        if (running) return;
+        running = true;
+        producer = new Thread(this::produce, "live-scope");
+        producer.setDaemon(true);
+        producer.start();
+        lastTickNanos = statsNanos = System.nanoTime();
+        frameTimer = new javax.swing.Timer(FRAME_MS, e -> frame(view));
+        frameTimer.start();
+    }
+
+    public void stop() {
+        if (!running) return;
+        running = false;
+        frameTimer.stop();
+        producer.interrupt();
+        try {
+            producer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long frames() {
+        return frames;
+    }
+
+    /** Frame clock ticks without a new frame, either missed or discarded as torn. */
+    public long droppedFrames() {
+        return dropped;
+    }
+
+    public long bitsProduced() {
+        return bitsProduced;
+    }
+
+    /** Frames per second over the last full second. */
+    public double fps() {
+        return fps;
+    }
+
+    /** Bits produced per second over the last full second. */
+    public double bitRate() {
+        return bitRate;
+    }
+
+    // ==== PRODUCER ====
+    private void produce() {
+        long start = System.nanoTime(), sent = 0;
+        while (running) {
+            pump(chunkBits);
+            sent += chunkBits;
+            long wait = start + (long) (sent * 1e9 / bitsPerSecond) - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            else if (wait < -MAX_BACKLOG_NANOS) start -= wait;
+        }
+    }
+
+    /**
+     * Generates {@code bits} bits, up to {@link #MAX_CHUNK_BITS}, encodes them into the ring and
+     * publishes them. Called by the producer thread; exposed so the ring can be filled without one.
+     */
+    public void pump(int bits) {
+        if (bits < 1 || bits > MAX_CHUNK_BITS) throw new IllegalArgumentException("chunk must be 1.." + MAX_CHUNK_BITS + " bits: " + bits);
+        chunk.clear();
+        switch (source) {
+            case RANDOM:
+                for (int i = 0; i < bits; i += 64) chunk.appendBits(random.nextLong(), Math.min(64, bits - i));
+                break;
+            case LOOP:
+                while (chunk.size() < bits) {
+                    int n = Math.min(bits - chunk.size(), loop.size() - loopPos);
+                    chunk.append(loop, loopPos, loopPos + n);
+                    loopPos = (loopPos + n) % loop.size();
+                }
+                break;
+            default:
+                prbs(bits);
+                break;
+        }
+        encoder.encode(chunk, sink);
+        written = ticks;
+        bitsProduced += bits;
+    }
+
+    /** Appends {@code bits} bits of the Fibonacci LFSR x^degree + x^tap + 1, seeded with all ones. */
+    private void prbs(int bits) {
+        int degree = source.degree, tap = source.tap, mask = (1 << degree) - 1;
+        int state = lfsr & mask;
+        for (int i = 0; i < bits; i += 64) {
+            int n = Math.min(64, bits - i);
+            long word = 0;
+            for (int k = 0; k < n; k++) {
+                int bit = (state >>> (degree - 1) ^ state >>> (tap - 1)) & 1;
+                state = (state << 1 | bit) & mask;
+                word |= (long) bit << k;
+            }
+            chunk.appendBits(word, n);
+        }
+        lfsr = state;
+    }
+
+    private void write(int level, int count) {
+        int from = (int) (ticks & (RING_TICKS - 1));
+        int first = Math.min(count, RING_TICKS - from);
+        Arrays.fill(ring, from, from + first, (byte) level);
+        if (first < count) Arrays.fill(ring, 0, count - first, (byte) level);
+        ticks += count;
+    }
+
+    // ==== RENDERING ====
+    private void frame(JComponent view) {
+        // a tick arriving n frame periods after the last one means n - 1 frames were missed
+        long now = System.nanoTime();
+        dropped += Math.max(0, Math.round((now - lastTickNanos) / (FRAME_MS * 1e6)) - 1);
+        lastTickNanos = now;
+        Insets in = view.getInsets();
+        int width = view.getWidth() - in.left - in.right, height = view.getHeight() - in.top - in.bottom;
+        if (!renderFrame(width, height)) return;
+        if (now - statsNanos >= 1_000_000_000L) {
+            long bits = bitsProduced;
+            fps = (frames - statsFrames) * 1e9 / (now - statsNanos);
+            bitRate = (bits - statsBits) * 1e9 / (now - statsNanos);
+            statsNanos = now;
+            statsFrames = frames;
+            statsBits = bits;
+            status = String.format("%s  %s  %s/s target, %s/s  %.0f fps  %d dropped  %d bits shown",
+                    source, code, rate(bitsPerSecond), rate(bitRate), fps, dropped, windowBits);
+        }
+        view.repaint(in.left, in.top, width, height);
+    }
+
+    /**
+     * Draws the newest window of the ring into the back buffer and swaps it to the front; false,
+     * with the front image kept, when there is nothing to draw or the producer overwrote the
+     * window meanwhile.
+     */
+    public boolean renderFrame(int width, int height) {
+        if (width <= 0 || height <= 0) return false;
+        if (back == null || back.getWidth() != width || back.getHeight() != height) allocate(width, height);
+        long end = written;
+        long span = Math.min((long) windowBits * Waveform.TICKS_PER_BIT, end);
+        if (span == 0) return false;
+        long start = end - span;
+        System.arraycopy(background, 0, backPixels, 0, backPixels.length);
+        trace(start, end, width, height);
+        if (written + CHUNK_SLACK - RING_TICKS > start) {
+            dropped++;
+            return false;
+        }
+        backGraphics.drawString(status, 8, 16);
+        BufferedImage image = front;
+        front = back;
+        back = image;
+        Graphics2D graphics = frontGraphics;
+        frontGraphics = backGraphics;
+        backGraphics = graphics;
+        int[] pixels = frontPixels;
+        frontPixels = backPixels;
+        backPixels = pixels;
+        frames++;
+        return true;
+    }
+
+    /** One bar per column from the lowest to the highest level in it, joined to the previous column's last level. */
+    private void trace(long start, long end, int width, int height) {
+        int mask = RING_TICKS - 1;
+        double ticksPerColumn = (end - start) / (double) width, center = height / 2.0, scale = height / 4.0;
+        int previous = ring[(int) (start & mask)];
+        for (int x = 0; x < width; x++) {
+            long t0 = start + (long) (x * ticksPerColumn);
+            long t1 = Math.min(end, Math.max(t0 + 1, start + (long) ((x + 1) * ticksPerColumn)));
+            int lo = previous, hi = previous;
+            for (long t = t0; t < t1; t++) {
+                int level = ring[(int) (t & mask)];
+                lo = Math.min(lo, level);
+                hi = Math.max(hi, level);
+            }
+            previous = ring[(int) ((t1 - 1) & mask)];
+            int top = Math.max(0, (int) Math.round(center - hi * scale) - 1);
+            int bottom = Math.min(height - 1, (int) Math.round(center - lo * scale));
+            for (int y = top; y <= bottom; y++) backPixels[y * width + x] = TRACE;
+        }
+    }
+
+    private void allocate(int width, int height) {
+        if (backGraphics != null) backGraphics.dispose();
+        if (frontGraphics != null) frontGraphics.dispose();
+        back = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        front = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        backPixels = ((DataBufferInt) back.getRaster().getDataBuffer()).getData();
+        frontPixels = ((DataBufferInt) front.getRaster().getDataBuffer()).getData();
+        backGraphics = graphics(back);
+        frontGraphics = graphics(front);
+        // graticule: dashed lines at levels -1, 0, +1 and ten vertical divisions
+        background = new int[width * height];
+        Arrays.fill(background, BACKGROUND);
+        for (int level = -1; level <= 1; level++) {
+            int y = (int) Math.round(height / 2.0 - level * height / 4.0);
+            if (y < height) for (int x = 0; x < width; x++) if ((x & 7) < 4) background[y * width + x] = GRID;
+        }
+        for (int d = 1; d < 10; d++) {
+            int x = d * width / 10;
+            for (int y = 0; y < height; y++) if ((y & 7) < 4) background[y * width + x] = GRID;
+        }
+        System.arraycopy(background, 0, frontPixels, 0, frontPixels.length);
+    }
+
+    private static Graphics2D graphics(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setFont(STATUS_FONT);
+        g.setColor(Color.white);
+        return g;
+    }
+
+    /** Blits the latest frame to the top left of {@code area}. */
+    public void paint(Graphics2D g2, Rectangle area) {
+        if (front != null) g2.drawImage(front, area.x, area.y, null);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Live scope: %d frames, %d dropped, %d bits of %s (%s) at %s/s target",
+                frames, dropped, bitsProduced, source, code, rate(bitsPerSecond));
+    }
+
+    private static String rate(double bitsPerSecond) {
+        if (bitsPerSecond >= 1e6) return String.format("%.2f Mbit", bitsPerSecond / 1e6);
+        if (bitsPerSecond >= 1e3) return String.format("%.1f kbit", bitsPerSecond / 1e3);
+        return String.format("%.0f bit", bitsPerSecond);
+    }
+}
@@ -0,0 +1,284 @@
+package dcproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bulk readers for large bitstream and sample files. Files are memory-mapped through a
+ * {@link FileChannel} one window at a time and decoded straight into reusable chunk buffers
+ * (a {@link BitBuffer} or a {@code double[]} block), so no {@code String} or boxed list is ever
+ * built and any file size is handled in constant memory. A {@code null} path reads stdin through
+ * a single reusable direct buffer instead; WAV needs a real file because its header is seekable.
+ */
+public final class MappedInput {
+    public enum Format {
+        /** '0'/'1' characters, whitespace ignored. */
+        ASCII(false),
+        /** Every byte is 8 bits, most significant bit first. */
+        RAW(false),
+        /** Comma or newline separated numbers. */
+        CSV(true),
+        /** Little-endian 32-bit float samples. */
+        F32(true),
+        /** Little-endian signed 16-bit samples, scaled to [-1, 1). */
+        S16(true),
+        /** RIFF/WAVE, 8/16/24/32-bit PCM or 32/64-bit float; the first channel is used. */
+        WAV(true);
+
+        private final boolean analog;
+
+        Format(boolean analog) {
+            this.analog = analog;
+        }
+
+        public boolean isAnalog() {
+            return analog;
+        }
+
+        public static Format parse(String name) {
+            for (Format f : values()) if (f.name().equalsIgnoreCase(name)) return f;
+            throw new IllegalArgumentException("Unknown input format: " + name);
+        }
+    }
+
+    @FunctionalInterface
+    public interface BitChunkConsumer {
+        /** The chunk is reused after the call returns. */
+        void accept(BitBuffer chunk) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface SampleBlockConsumer {
+        /** {@code block[0, count)} holds the samples; the array is reused after the call returns. */
+        void accept(double[] block, int count) throws IOException;
+    }
+
+    /** Largest mapping; a multiple of every frame size up to 16 bytes. */
+    private static final long WINDOW = 1L << 30;
+    private static final int STDIN_BUFFER = 1 << 16;
+
+    private MappedInput() { }
+
+    /** Reads a whole bit file into one buffer. */
+    public static BitBuffer readBits(Path path, Format format) throws IOException {
+        BitBuffer all = new BitBuffer();
+        readBits(path, format, STDIN_BUFFER * 8, all::append);
+        return all;
+    }
+
+    /** Delivers the bits of an {@link Format#ASCII} or {@link Format#RAW} input in chunks of about {@code chunkBits}. */
+    public static long readBits(Path path, Format format, int chunkBits, BitChunkConsumer consumer) throws IOException {
+        if (format.isAnalog()) throw new IllegalArgumentException(format + " is a sample format");
+        BitBuffer chunk = new BitBuffer(chunkBits + 64);
+        long[] total = {0};
+        BufferConsumer decoder = format == Format.RAW
+                ? buf -> {
+                    buf.order(ByteOrder.BIG_ENDIAN);
+                    while (buf.remaining() >= 8) {
+                        // big-endian load puts the first byte's MSB at bit 63; reversing makes it bit 0
+                        chunk.appendBits(Long.reverse(buf.getLong()), 64);
+                        if (chunk.size() >= chunkBits) total[0] += flush(chunk, consumer);
+                    }
+                    while (buf.hasRemaining()) chunk.appendBits(Integer.reverse(buf.get() & 0xFF) >>> 24, 8);
+                    if (chunk.size() >= chunkBits) total[0] += flush(chunk, consumer);
+                }
+                : buf -> {
+                    for (int i = buf.position(), end = buf.limit(); i < end; i++) {
+                        int c = buf.get(i);
+                        if (c == '0' || c == '1') {
+                            chunk.append(c - '0');
+                            if (chunk.size() >= chunkBits) total[0] += flush(chunk, consumer);
+                        } else if (!Character.isWhitespace(c)) {
+                            throw new IllegalArgumentException("Enter valid binary data (0/1)!");
+                        }
+                    }
+                    buf.position(buf.limit());
+                };
+        forEachBuffer(path, 0, -1, 1, decoder);
+        if (!chunk.isEmpty()) total[0] += flush(chunk, consumer);
+        return total[0];
+    }
+
+    /** Delivers the samples of a {@link Format#isAnalog() sample format} input in blocks of {@code block.length}. */
+    public static long readSamples(Path path, Format format, double[] block, SampleBlockConsumer consumer) throws IOException {
+        Blocks blocks = new Blocks(block, consumer);
+        switch (format) {
+            case CSV: {
+                CsvNumberParser parser = new CsvNumberParser();
+                forEachBuffer(path, 0, -1, 1, buf -> parser.feed(buf, blocks::add));
+                parser.finish(blocks::add);
+                break;
+            }
+            case F32: forEachBuffer(path, 0, -1, 4, new Frames(Frames.FLOAT32, 4, blocks)); break;
+            case S16: forEachBuffer(path, 0, -1, 2, new Frames(Frames.PCM16, 2, blocks)); break;
+            case WAV: readWav(path, blocks); break;
+            default: throw new IllegalArgumentException(format + " is a bit format");
+        }
+        blocks.flush();
+        return blocks.total;
+    }
+
+    private static long flush(BitBuffer chunk, BitChunkConsumer consumer) throws IOException {
+        int n = chunk.size();
+        consumer.accept(chunk);
+        chunk.clear();
+        return n;
+    }
+
+    // ==== BYTE SOURCES ====
+    /** Consumes whole units from the buffer; a partial trailing unit may be left for the next call. */
+    @FunctionalInterface
+    private interface BufferConsumer {
+        void accept(ByteBuffer buf) throws IOException;
+    }
+
+    /**
+     * Feeds bytes {@code [offset, offset + length)} of the file ({@code length < 0}: to the end)
+     * as read-only mappings of at most {@link #WINDOW} bytes, each a whole number of
+     * {@code unit}-byte frames; or stdin, when {@code path} is null.
+     */
+    private static void forEachBuffer(Path path, long offset, long length, int unit, BufferConsumer consumer) throws IOException {
+        if (path == null) {
+            ReadableByteChannel channel = Channels.newChannel(System.in);
+            ByteBuffer buf = ByteBuffer.allocateDirect(STDIN_BUFFER);
+            while (channel.read(buf) >= 0) {
+                buf.flip();
+                consumer.accept(buf);
+                buf.compact();
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = length < 0 ? channel.size() : Math.min(channel.size(), offset + length);
+            end -= (end - offset) % unit;
+            long window = WINDOW - WINDOW % unit;
+            for (long pos = offset; pos < end; pos += window) {
+                consumer.accept(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(window, end - pos)));
+            }
+        }
+    }
+
+    // ==== SAMPLES ====
+    private static final class Blocks {
+        private final double[] block;
+        private final SampleBlockConsumer consumer;
+        private int count;
+        long total;
+
+        Blocks(double[] block, SampleBlockConsumer consumer) {
+            this.block = block;
+            this.consumer = consumer;
+        }
+
+        void add(double sample) throws IOException {
+            block[count++] = sample;
+            if (count == block.length) flush();
+        }
+
+        void flush() throws IOException {
+            if (count == 0) return;
+            consumer.accept(block, count);
+            total += count;
+            count = 0;
+        }
+    }
+
+    /** Little-endian interleaved frames; only the first sample of each frame is kept. */
+    private static final class Frames implements BufferConsumer {
+        static final int PCM8 = 0, PCM16 = 1, PCM24 = 2, PCM32 = 3, FLOAT32 = 4, FLOAT64 = 5;
+
+        private final int encoding, frameBytes;
+        private final Blocks blocks;
+
+        Frames(int encoding, int frameBytes, Blocks blocks) {
+            this.encoding = encoding;
+            this.frameBytes = frameBytes;
+            this.blocks = blocks;
+        }
+
+        @Override
+        public void accept(ByteBuffer buf) throws IOException {
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            int p = buf.position(), end = buf.limit() - frameBytes;
+            for (; p <= end; p += frameBytes) blocks.add(sample(buf, p));
+            buf.position(p);
+        }
+
+        private double sample(ByteBuffer buf, int p) {
+            switch (encoding) {
+                case PCM8: return ((buf.get(p) & 0xFF) - 128) / 128.0;
+                case PCM16: return buf.getShort(p) / 32768.0;
+                case PCM24: return ((buf.get(p) & 0xFF) | (buf.get(p + 1) & 0xFF) << 8 | buf.get(p + 2) << 16) / 8388608.0;
+                case PCM32: return buf.getInt(p) / 2147483648.0;
+                case FLOAT32: return buf.getFloat(p);
+                default: return buf.getDouble(p);
+            }
+        }
+    }
+
+    /** Walks the RIFF chunks for {@code fmt } and {@code data}, then maps only the sample data. */
+    private static void readWav(Path path, Blocks blocks) throws IOException {
+        if (path == null) throw new IllegalArgumentException("WAV input must be a file");
+        long dataOffset = -1, dataLength = 0;
+        int encoding = -1, frameBytes = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0, 12);
+            if (header.getInt(0) != 0x46464952 || header.getInt(8) != 0x45564157) {
+                throw new IllegalArgumentException("not a RIFF/WAVE file");
+            }
+            long size = channel.size();
+            for (long pos = 12; pos + 8 <= size; ) {
+                readFully(channel, header, pos, 8);
+                int id = header.getInt(0);
+                long chunkSize = header.getInt(4) & 0xFFFFFFFFL;
+                if (id == 0x20746D66) { // "fmt "
+                    if (chunkSize < 16) throw new IllegalArgumentException("WAV fmt chunk is too short");
+                    readFully(channel, header, pos + 8, (int) Math.min(chunkSize, 40));
+                    int tag = header.getShort(0) & 0xFFFF;
+                    if (tag == 0xFFFE && chunkSize >= 26) tag = header.getShort(24) & 0xFFFF; // extensible: sub-format GUID
+                    frameBytes = header.getShort(12) & 0xFFFF;
+                    int sampleBits = header.getShort(14) & 0xFFFF;
+                    encoding = wavEncoding(tag, sampleBits);
+                } else if (id == 0x61746164) { // "data"
+                    dataOffset = pos + 8;
+                    dataLength = Math.min(chunkSize, size - dataOffset);
+                    break;
+                }
+                pos += 8 + chunkSize + (chunkSize & 1);
+            }
+        }
+        if (encoding < 0) throw new IllegalArgumentException("WAV file has no fmt chunk");
+        if (dataOffset < 0) throw new IllegalArgumentException("WAV file has no data chunk");
+        if (frameBytes <= 0) throw new IllegalArgumentException("WAV file has an invalid block align");
+        forEachBuffer(path, dataOffset, dataLength, frameBytes, new Frames(encoding, frameBytes, blocks));
+    }
+
+    private static int wavEncoding(int tag, int sampleBits) {
+        if (tag == 1) {
+            switch (sampleBits) {
+                case 8: return Frames.PCM8;
+                case 16: return Frames.PCM16;
+                case 24: return Frames.PCM24;
+                case 32: return Frames.PCM32;
+            }
+        } else if (tag == 3) {
+            if (sampleBits == 32) return Frames.FLOAT32;
+            if (sampleBits == 64) return Frames.FLOAT64;
+        }
+        throw new IllegalArgumentException("unsupported WAV format " + tag + " with " + sampleBits + "-bit samples");
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long pos, int length) throws IOException {
+        buf.clear().limit(length);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, pos + buf.position()) < 0) throw new IllegalArgumentException("truncated WAV header");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join line encoder for large inputs. The bit buffer is cut into chunks that are encoded
+ * concurrently from a seeded state, by {@link ByteTableCodec} or, for the scrambled codes, a
+ * {@link StreamingEncoder}, and concatenated; the output is identical to {@link SignalEngine#encode}.
+ * <p>
+ * The carried state at a chunk start comes from a prefix pass: the NRZ-I level and the AMI/B8ZS
+ * polarity depend only on the parity of the 1s before it, the Differential Manchester level on
+ * the parity of the 0s. For the scrambled codes chunk boundaries are moved to just after a 1 or,
+ * inside a zero run, to a whole number of substitution groups (8 zeros for B8ZS, 4 for HDB3)
+ * from its start, so no substitution straddles two chunks and all-zero inputs still split.
+ * HDB3, whose substitutions also flip the polarity, gets a per-chunk transfer function (polarity
+ * flip and final pulse parity for either starting parity) that is composed sequentially across
+ * the chunks.
+ */
+public final class ParallelEncoder {
+    /** Below this many bits the sequential encoders win. */
+    static final int MIN_PARALLEL_BITS = 1 << 18;
+    private static final int MIN_CHUNK_BITS = 1 << 16;
+
+    private ParallelEncoder() { }
+
+    public static Waveform encode(LineCode code, BitBuffer bits, TaskProgress progress) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int parallelism = pool.getParallelism();
+        if (bits.size() < MIN_PARALLEL_BITS || parallelism < 2) return SignalEngine.encode(code, bits, progress);
+        return encode(code, bits, Math.max(MIN_CHUNK_BITS, bits.size() / (parallelism * 4)), pool, progress);
+    }
+
+    static Waveform encode(LineCode code, BitBuffer bits, int chunkBits, ForkJoinPool pool, TaskProgress progress) {
+        int[] starts = boundaries(code, bits, chunkBits);
+        int chunks = starts.length - 1;
+
+        // pass 1: per-chunk 1 counts, or the HDB3 transfer for both starting parities
+        int[] summary = new int[code == LineCode.AMI_HDB3 ? 2 * chunks : chunks];
+        if (code == LineCode.AMI_HDB3) {
+            pool.invoke(new ChunkTask(0, chunks, c -> {
+                summary[2 * c] = hdb3Transfer(bits, starts[c], starts[c + 1], false);
+                summary[2 * c + 1] = hdb3Transfer(bits, starts[c], starts[c + 1], true);
+            }));
+        } else if (code != LineCode.NRZ_L && code != LineCode.MANCHESTER) {
+            pool.invoke(new ChunkTask(0, chunks, c -> summary[c] = bits.popCount(starts[c], starts[c + 1])));
+        }
+
+        // prefix: the state each chunk starts from
+        int[] levels = new int[chunks];
+        boolean[] oddPulses = new boolean[chunks];
+        int lastPulse = -1;
+        boolean odd = false;
+        long ones = 0;
+        for (int c = 0; c < chunks; c++) {
+            switch (code) {
+                case NRZ_I: levels[c] = (ones & 1) == 0 ? 1 : -1; break;
+                case DIFF_MANCHESTER: levels[c] = ((starts[c] - ones) & 1) == 0 ? 1 : -1; break;
+                case AMI: case AMI_B8ZS: levels[c] = (ones & 1) == 0 ? -1 : 1; break;
+                case AMI_HDB3: {
+                    levels[c] = lastPulse;
+                    oddPulses[c] = odd;
+                    int t = summary[2 * c + (odd ? 1 : 0)];
+                    if ((t & 2) != 0) lastPulse = -lastPulse;
+                    odd = (t & 1) != 0;
+                    break;
+                }
+                default: levels[c] = 1; break;
+            }
+            if (code != LineCode.AMI_HDB3) ones += summary[c];
+        }
+
+        // pass 2: encode every chunk from its seeded state
+        Waveform[] parts = new Waveform[chunks];
+        Progress done = new Progress(progress, bits.size());
+        pool.invoke(new ChunkTask(0, chunks, c -> {
+            Waveform part = new Waveform((starts[c + 1] - starts[c]) / 2);
+            if (ByteTableCodec.supports(code)) {
+                ByteTableCodec.encode(code, bits, starts[c], starts[c + 1], levels[c], part, TaskProgress.NONE);
+            } else {
+                StreamingEncoder encoder = StreamingEncoder.create(code);
+                if (c > 0) encoder.resume(levels[c], oddPulses[c]);
+                encoder.encode(bits, starts[c], starts[c + 1], part);
+                encoder.finish(part);
+            }
+            parts[c] = part;
+            done.advance(starts[c + 1] - starts[c]);
+        }));
+
+        int segments = 0;
+        for (Waveform part : parts) segments += part.segmentCount();
+        Waveform out = new Waveform(segments);
+        for (Waveform part : parts) out.append(part);
+        return out;
+    }
+
+    /**
+     * Chunk start offsets plus the end; for scrambled codes every inner start follows a 1 bit or
+     * a complete substitution group of its zero run.
+     */
+    static int[] boundaries(LineCode code, BitBuffer bits, int chunkBits) {
+        int n = bits.size();
+        int group = code == LineCode.AMI_B8ZS ? 8 : 4;
+        int[] starts = new int[n / chunkBits + 2];
+        int k = 1;
+        for (int b = chunkBits; b < n; b = starts[k - 1] + chunkBits) {
+            int start = b;
+            if (code.isScrambled() && bits.get(b - 1) == 0) {
+                // zeros are substituted in groups counted from the start of their run: cut at the
+                // first group boundary at or after b, or after the 1 ending the run if that is sooner
+                int runStart = bits.previousSetBit(b - 1) + 1;
+                int cut = runStart + (b - runStart + group - 1) / group * group;
+                int one = bits.nextSetBit(b);
+                start = one >= 0 && one < cut ? one + 1 : cut;
+                if (start >= n) break;
+            }
+            starts[k++] = start;
+        }
+        starts[k++] = n;
+        return Arrays.copyOf(starts, k);
+    }
+
+    /**
+     * HDB3 effect of bits {@code [from, to)} entered with no zeros held back: bit 1 is set when
+     * the pulse polarity ends up flipped, bit 0 when the pulse count since the last substitution
+     * ends up odd.
+     */
+    static int hdb3Transfer(BitBuffer bits, int from, int to, boolean odd) {
+        boolean flip = false;
+        for (int pos = from; ; ) {
+            int one = bits.nextSetBit(pos);
+            int runEnd = one < 0 || one >= to ? to : one;
+            int subs = (runEnd - pos) / 4;
+            if (subs > 0) {
+                // 000V keeps the polarity and only comes first after an odd count; B00V flips it
+                if (((subs - (odd ? 1 : 0)) & 1) != 0) flip = !flip;
+                odd = false;
+            }
+            if (runEnd == to) break;
+            flip = !flip;
+            odd = !odd;
+            pos = one + 1;
+        }
+        return (flip ? 2 : 0) | (odd ? 1 : 0);
+    }
+
+    @FunctionalInterface
+    interface ChunkJob {
+        void run(int chunk);
+    }
+
+    /** Splits a chunk index range in halves until single chunks remain. */
+    static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final transient ChunkJob job;
+
+        ChunkTask(int from, int to, ChunkJob job) {
+            this.from = from;
+            this.to = to;
+            this.job = job;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) job.run(from);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ChunkTask(from, mid, job), new ChunkTask(mid, to, job));
+        }
+    }
+
+    /** Serializes updates from the workers so the reported count only grows. */
+    static final class Progress {
+        private final TaskProgress target;
+        private final long total;
+        private long done;
+
+        Progress(TaskProgress target, long total) {
+            this.target = target;
+            this.total = total;
+        }
+
+        synchronized void advance(long bits) {
+            done += bits;
+            target.update(done, total);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Turns the rectangular segments of any encoder into a pulse-shaped {@code float} sample stream
+ * at {@code samplesPerBit} samples per bit, for DAC test benches and channel studies. It is a
+ * {@link SegmentSink}, so it can sit behind a {@link StreamingEncoder} or replay a
+ * {@link Waveform}; samples go to a {@link SampleSink} in chunks and memory stays constant.
+ * <p>
+ * Every half-bit tick is one symbol. Raised-cosine and root-raised-cosine shaping put a pulse with
+ * the given roll-off at each tick centre, so raised-cosine output passes exactly through the
+ * tick levels there; Gaussian shaping filters the rectangular ticks with a Gaussian of the given
+ * bandwidth-time product (3 dB bandwidth over bit rate), as in GMSK. Pulses are truncated to
+ * {@code spanBits} bits centred on the sample, and the line is taken to hold its first and last
+ * level beyond the ends of the stream.
+ * <p>
+ * The filter is polyphase over the small level alphabet: ticks go in groups of four, whose
+ * {@code 3^4 = 81} level combinations each have a precomputed row of {@code samplesPerBit}
+ * outputs per group position. One bit of output is then {@code spanBits / 2} row additions, two
+ * per pass, with no multiplies whatever the pulse. Instances are not thread safe.
+ */
+public final class PulseShaper implements SegmentSink {
+    public enum Shape {
+        RAISED_COSINE("rc", 0.35), ROOT_RAISED_COSINE("rrc", 0.35), GAUSSIAN("gaussian", 0.5);
+
+        private final String key;
+        private final double defaultParameter;
+
+        Shape(String key, double defaultParameter) {
+            this.key = key;
+            this.defaultParameter = defaultParameter;
+        }
+
+        /** Roll-off for the cosine shapes, bandwidth-time product for Gaussian. */
+        public double defaultParameter() {
+            return defaultParameter;
+        }
+
+        /** {@code rc}, {@code rrc} or {@code gaussian}, in any case. */
+        public static Shape parse(String name) {
+            for (Shape s : values()) if (s.key.equalsIgnoreCase(name.trim())) return s;
+            throw new IllegalArgumentException("Unknown pulse shape: " + name + " (expected rc, rrc or gaussian)");
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+
+    /** Receiver of shaped samples. */
+    @FunctionalInterface
+    public interface SampleSink {
+        /** {@code samples[0, count)} holds the next samples; the array is reused after the call returns. */
+        void accept(float[] samples, int count);
+    }
+
+    public static final int DEFAULT_SPAN_BITS = 8;
+    public static final int MAX_SAMPLES_PER_BIT = 256;
+    public static final int MAX_SPAN_BITS = 64;
+    /** Samples handed to the sink per call, short of the end of the stream. */
+    public static final int CHUNK_SAMPLES = 1 << 14;
+    private static final int GROUP_TICKS = 4, GROUP_CODES = 81;
+
+    private final Shape shape;
+    private final double parameter;
+    private final int samplesPerBit, spanBits, half, groups;
+    /** {@code table[((group * 81) + code) * samplesPerBit + phase]}. */
+    private final float[] table;
+    private final SampleSink out;
+    private final float[] chunk;
+    /** Ticks as level + 1, from {@link #half} bits before the next output bit on. */
+    private final byte[] window;
+    private int tickCount, nextBit, chunkFill, lastLevel;
+    private long pendingTicks, samples;
+    private boolean started;
+
+    /**
+     * {@code parameter} is the roll-off in [0, 1] for the cosine shapes or the bandwidth-time
+     * product (above 0) for Gaussian; {@code spanBits} is a multiple of 4 up to {@link #MAX_SPAN_BITS}.
+     */
+    public PulseShaper(Shape shape, double parameter, int samplesPerBit, int spanBits, SampleSink out) {
+        this.shape = Objects.requireNonNull(shape);
+        if (shape == Shape.GAUSSIAN ? !(parameter > 0) : !(parameter >= 0 && parameter <= 1)) {
+            throw new IllegalArgumentException((shape == Shape.GAUSSIAN ? "BT must be positive: " : "roll-off must be in [0, 1]: ") + parameter);
+        }
+        if (samplesPerBit < 1 || samplesPerBit > MAX_SAMPLES_PER_BIT) {
+            throw new IllegalArgumentException("samples per bit must be 1 to " + MAX_SAMPLES_PER_BIT + ": " + samplesPerBit);
+        }
+        if (spanBits < 4 || spanBits > MAX_SPAN_BITS || spanBits % 4 != 0) {
+            throw new IllegalArgumentException("span must be a multiple of 4 bits up to " + MAX_SPAN_BITS + ": " + spanBits);
+        }
+        this.parameter = parameter;
+        this.samplesPerBit = samplesPerBit;
+        this.spanBits = spanBits;
+        this.out = Objects.requireNonNull(out);
+        half = spanBits / 2;
+        groups = spanBits * Waveform.TICKS_PER_BIT / GROUP_TICKS;
+        table = buildTable();
+        int chunkBits = Math.max(1, CHUNK_SAMPLES / samplesPerBit);
+        chunk = new float[chunkBits * samplesPerBit];
+        window = new byte[(chunkBits + spanBits) * Waveform.TICKS_PER_BIT];
+    }
+
+    public PulseShaper(Shape shape, double parameter, int samplesPerBit, SampleSink out) {
+        this(shape, parameter, samplesPerBit, DEFAULT_SPAN_BITS, out);
+    }
+
+    /**
+     * Shapes a whole waveform into one array of {@code samplesPerBit} samples per bit, a trailing
+     * half bit counting as a whole one as {@link #finish} completes it.
+     */
+    public static float[] shape(Waveform wave, Shape shape, double parameter, int samplesPerBit) {
+        long total = ((long) wave.totalTicks() + 1) / Waveform.TICKS_PER_BIT * samplesPerBit;
+        if (total > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("too many samples: " + total);
+        float[] result = new float[(int) total];
+        int[] filled = {0};
+        PulseShaper shaper = new PulseShaper(shape, parameter, samplesPerBit, (samples, count) -> {
+            System.arraycopy(samples, 0, result, filled[0], count);
+            filled[0] += count;
+        });
+        shaper.append(wave);
+        shaper.finish();
+        return result;
+    }
+
+    public Shape shape() {
+        return shape;
+    }
+
+    public double parameter() {
+        return parameter;
+    }
+
+    public int samplesPerBit() {
+        return samplesPerBit;
+    }
+
+    public int spanBits() {
+        return spanBits;
+    }
+
+    /** Samples handed to the sink since construction or the last {@link #finish}. */
+    public long samples() {
+        return samples;
+    }
+
+    /** Value of a single tick pulse {@code t} bits from its centre, before truncation. */
+    public double pulse(double t) {
+        double x = t * Waveform.TICKS_PER_BIT, beta = parameter;
+        switch (shape) {
+            case RAISED_COSINE: {
+                double d = 1 - 4 * beta * beta * x * x;
+                if (Math.abs(d) < 1e-9) return Math.PI / 4 * sinc(1 / (2 * beta));
+                return sinc(x) * Math.cos(Math.PI * beta * x) / d;
+            }
+            case ROOT_RAISED_COSINE: {
+                if (Math.abs(x) < 1e-9) return 1 - beta + 4 * beta / Math.PI;
+                double q = 4 * beta * x;
+                if (Math.abs(Math.abs(q) - 1) < 1e-9) {
+                    double a = Math.PI / (4 * beta);
+                    return beta / Math.sqrt(2) * ((1 + 2 / Math.PI) * Math.sin(a) + (1 - 2 / Math.PI) * Math.cos(a));
+                }
+                return (Math.sin(Math.PI * x * (1 - beta)) + q * Math.cos(Math.PI * x * (1 + beta))) / (Math.PI * x * (1 - q * q));
+            }
+            default: {
+                // rectangular tick through a Gaussian: difference of two error functions
+                double a = Math.PI * parameter * Math.sqrt(2 / Math.log(2)), edge = 0.5 / Waveform.TICKS_PER_BIT;
+                return 0.5 * (erf(a * (t + edge)) - erf(a * (t - edge)));
+            }
+        }
+    }
+
+    private static double sinc(double x) {
+        return x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+    }
+
+    /** Abramowitz and Stegun 7.1.26, good to 1.5e-7: well below float resolution of the output. */
+    private static double erf(double x) {
+        double t = 1 / (1 + 0.3275911 * Math.abs(x));
+        double y = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))))
+                * Math.exp(-x * x);
+        return x < 0 ? -y : y;
+    }
+
+    /**
+     * Row for group {@code g} and every level combination: the sum of the group's four tick
+     * pulses at each phase of a bit. Tick {@code i} of the group is centred
+     * {@code 2g - half + (i + 0.5) / 2} bits from the start of the output bit.
+     */
+    private float[] buildTable() {
+        int n = samplesPerBit;
+        float[] t = new float[groups * GROUP_CODES * n];
+        double[] pulses = new double[GROUP_TICKS];
+        for (int g = 0; g < groups; g++) {
+            for (int p = 0; p < n; p++) {
+                for (int i = 0; i < GROUP_TICKS; i++) {
+                    double centre = 2 * g - half + (i + 0.5) / Waveform.TICKS_PER_BIT;
+                    pulses[i] = pulse(p / (double) n - centre);
+                }
+                for (int code = 0; code < GROUP_CODES; code++) {
+                    double v = 0;
+                    for (int i = 0, c = code; i < GROUP_TICKS; i++, c /= 3) v += (c % 3 - 1) * pulses[GROUP_TICKS - 1 - i];
+                    t[(g * GROUP_CODES + code) * n + p] = (float) v;
+                }
+            }
+        }
+        return t;
+    }
+
+    /** Replays every segment of {@code wave}. */
+    public void append(Waveform wave) {
+        for (int i = 0, n = wave.segmentCount(); i < n; i++) append(wave.level(i), wave.end(i) - wave.start(i));
+    }
+
+    @Override
+    public void append(int level, int ticks) {
+        if (level < -1 || level > 1) throw new IllegalArgumentException("level must be -1, 0 or +1: " + level);
+        if (ticks <= 0) return;
+        if (!started) {
+            // the line holds its first level before the stream
+            started = true;
+            fill(level, half * Waveform.TICKS_PER_BIT);
+            nextBit = half;
+        }
+        lastLevel = level;
+        pendingTicks += ticks;
+        fill(level, ticks);
+    }
+
+    /**
+     * Shapes what is left, holding the last level past the end (and completing a trailing half
+     * bit), hands the final samples to the sink and resets for a new stream.
+     */
+    public void finish() {
+        if (started) {
+            if ((pendingTicks & 1) != 0) {
+                pendingTicks++;
+                fill(lastLevel, 1);
+            }
+            fill(lastLevel, half * Waveform.TICKS_PER_BIT);
+            drain();
+            if (chunkFill > 0) out.accept(chunk, chunkFill);
+        }
+        tickCount = nextBit = chunkFill = 0;
+        pendingTicks = samples = 0;
+        started = false;
+    }
+
+    private void fill(int level, long ticks) {
+        byte code = (byte) (level + 1);
+        while (ticks > 0) {
+            int n = (int) Math.min(ticks, window.length - tickCount);
+            Arrays.fill(window, tickCount, tickCount + n, code);
+            tickCount += n;
+            ticks -= n;
+            if (tickCount == window.length) drain();
+        }
+    }
+
+    /** Emits every bit whose span is in the window, then keeps just the history the next bit needs. */
+    private void drain() {
+        int n = samplesPerBit, available = tickCount / Waveform.TICKS_PER_BIT;
+        float[] t = table, c = chunk;
+        byte[] w = window;
+        while (nextBit + half <= available && pendingTicks >= Waveform.TICKS_PER_BIT) {
+            int o = chunkFill, k = (nextBit - half) * Waveform.TICKS_PER_BIT;
+            int r0 = row(w, k, 0), r1 = row(w, k + GROUP_TICKS, 1);
+            // two rows per pass over the output bit
+            for (int p = 0; p < n; p++) c[o + p] = t[r0 + p] + t[r1 + p];
+            for (int g = 2; g < groups; g += 2) {
+                k += 2 * GROUP_TICKS;
+                r0 = row(w, k, g);
+                r1 = row(w, k + GROUP_TICKS, g + 1);
+                for (int p = 0; p < n; p++) c[o + p] += t[r0 + p] + t[r1 + p];
+            }
+            nextBit++;
+            pendingTicks -= Waveform.TICKS_PER_BIT;
+            samples += n;
+            chunkFill = o + n;
+            if (chunkFill == c.length) {
+                out.accept(c, chunkFill);
+                chunkFill = 0;
+            }
+        }
+        int from = (nextBit - half) * Waveform.TICKS_PER_BIT;
+        System.arraycopy(w, from, w, 0, tickCount - from);
+        tickCount -= from;
+        nextBit = half;
+    }
+
+    /** Offset in {@link #table} of the row for group {@code g} whose ticks start at {@code w[k]}. */
+    private int row(byte[] w, int k, int g) {
+        return (g * GROUP_CODES + 27 * w[k] + 9 * w[k + 1] + 3 * w[k + 2] + w[k + 3]) * samplesPerBit;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s %.2f, %d samples/bit, %d-bit span", shape, parameter, samplesPerBit, spanBits);
+    }
+}
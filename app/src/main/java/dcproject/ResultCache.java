@@ -0,0 +1,113 @@
+package dcproject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least-recently-used cache bounded by the estimated memory of its values rather than their
+ * count: {@code sizer} gives each value's size in bytes, and the eldest entries are evicted until
+ * the total fits in {@code maxBytes}. A value larger than the whole budget is not kept. Not
+ * thread safe.
+ */
+public final class ResultCache<K, V> {
+    private final long maxBytes;
+    private final ToLongFunction<? super V> sizer;
+    /** In insertion order; {@link #get} moves a hit to the end, so the eldest entry is the least recently used. */
+    private final LinkedHashMap<K, Sized<V>> entries = new LinkedHashMap<>();
+    private long bytes, hits, misses, evictions;
+
+    public ResultCache(long maxBytes, ToLongFunction<? super V> sizer) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        this.maxBytes = maxBytes;
+        this.sizer = sizer;
+    }
+
+    /** The value for {@code key}, now the most recently used, or null; counts a hit or a miss. */
+    public V get(K key) {
+        Sized<V> entry = entries.remove(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        entries.put(key, entry);
+        hits++;
+        return entry.value;
+    }
+
+    /** Like {@link #get} without touching the order or the counters. */
+    public V peek(K key) {
+        Sized<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /** Stores {@code value}, replacing any previous one, and evicts down to the budget. */
+    public void put(K key, V value) {
+        long size = sizer.applyAsLong(value);
+        Sized<V> old = entries.remove(key);
+        if (old != null) bytes -= old.bytes;
+        if (size > maxBytes) return;
+        entries.put(key, new Sized<>(value, size));
+        bytes += size;
+        for (Iterator<Map.Entry<K, Sized<V>>> it = entries.entrySet().iterator(); bytes > maxBytes; ) {
+            bytes -= it.next().getValue().bytes;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    public long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses, %d entries, %.1f of %.1f MB", hits, misses, entries.size(),
+                bytes / 1048576.0, maxBytes / 1048576.0);
+    }
+
+    /** 64-bit FNV-1a hash of {@code text}, for keys that stand in for large inputs. */
+    public static long hash(CharSequence text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            h = (h ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static final class Sized<V> {
+        final V value;
+        final long bytes;
+
+        Sized(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package dcproject;
+
+/**
+ * Receiver of waveform segments as encoders produce them. Consecutive calls may repeat a level;
+ * sinks that care about segment boundaries (such as {@link Waveform}) merge them.
+ */
+@FunctionalInterface
+public interface SegmentSink {
+    /** {@code ticks} half-bit ticks at {@code level} (-1, 0 or +1). */
+    void append(int level, int ticks);
+}
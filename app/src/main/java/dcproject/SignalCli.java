@@ -0,0 +1,800 @@
+package dcproject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * Headless entry point: runs {@link SignalEngine} over files, directories or stdin without ever
+ * loading AWT/Swing, so it works on display-less servers and in scripts.
+ */
+public final class SignalCli {
+    private static final String USAGE = String.join("\n",
+            "usage: java -cp dcproject.jar dcproject.SignalCli [options] [input ...]",
+            "  -e, --encoding NAME    NRZ-L, NRZ-I, Manchester, DiffManchester, AMI, B8ZS or HDB3 (default NRZ-L);",
+            "                         with --tdm a comma-separated list, one per channel, the last repeating",
+            "  -s, --scramble TYPE    B8ZS or HDB3 scrambling for AMI",
+            "  -t, --input-type TYPE  digital (0/1 text) or analog (CSV samples), default digital",
+            "  -f, --format FORMAT    input file format: ascii or raw (bytes, MSB first) for digital input;",
+            "                         csv, f32 or s16 (little-endian) or wav for analog input",
+            "  -a, --analog METHOD    PCM, DM or CVSD for analog input (default PCM)",
+            "      --pcm-bits N       bits per PCM sample, 1 to 16 (default 8)",
+            "      --range MIN:MAX    PCM input range; samples outside are clipped (default -1:1)",
+            "      --companding LAW   linear, mu (mu-law) or a (A-law) PCM (default linear)",
+            "      --dm-step S[:MAX]  DM step (default 0.1), or CVSD minimum and maximum step",
+            "                         (default 0.01:0.16)",
+            "  -o, --out DIR          write <name>.wave.csv, <name>.decoded.txt and <name>.stats.txt into DIR",
+            "                         instead of printing to stdout",
+            "      --no-waveform      skip the waveform output",
+            "      --no-decode        skip decoding",
+            "      --no-stats         skip statistics",
+            "      --export LIST      also write the waveform under --out as <name>.vcd (value change dump),",
+            "                         <name>.csv and/or <name>.dcwf (compact binary): comma-separated vcd,",
+            "                         csv, dcwf",
+            "      --analyses LIST    statistics to compute: comma-separated runs, transitions, density,",
+            "                         palindrome, or all / none (default all)",
+            "      --stream           encode the input chunk by chunk in constant memory; decoded bits",
+            "                         are only written with --out, the palindrome statistic is skipped",
+            "      --ber FROM:TO:STEP simulate the bit error rate of the encoding over a noisy channel at",
+            "                         Eb/N0 from FROM to TO dB instead of reading inputs; prints",
+            "                         ebn0_db,bits,errors,ber lines",
+            "      --ber-bits N       random bits per Eb/N0 point (default 1000000)",
+            "      --jitter UI        RMS edge jitter for --ber, in bit periods (default 0)",
+            "      --bandwidth F      low-pass cutoff for --ber, in multiples of the bit rate (default none)",
+            "      --seed N           random seed for --ber, so a sweep can be repeated (default: a new",
+            "                         seed every run)",
+            "      --shape TYPE[:P]   also write <name>.samples.f32 under --out: the waveform pulse-shaped",
+            "                         by rc, rrc (P = roll-off, default 0.35) or gaussian (P = BT, default",
+            "                         0.5), as little-endian float32 samples",
+            "      --samples-per-bit N",
+            "                         samples per bit for --shape (default 16)",
+            "      --recover SPB      decode captured analog samples (f32 by default, or csv, s16, wav) of",
+            "                         a signal at about SPB samples per bit, recovering its clock; writes",
+            "                         the decoded bits and a recovery section instead of the other outputs",
+            "      --tdm SLOT_BITS    multiplex every input as one channel onto a TDM line of frames with a",
+            "                         slot of SLOT_BITS bit periods per channel; writes tdm.wave.csv and",
+            "                         tdm.stats.txt for the line and <name>.decoded.txt per channel",
+            "      --metrics          time every pipeline stage and print stage,calls,total_ns,max_ns,",
+            "                         allocated_bytes,items,unit lines to stderr at exit",
+            "  -h, --help             show this help",
+            "Inputs are files, directories (every regular file inside, in name order) or - for stdin;",
+            "with no inputs stdin is read.");
+
+    private LineCode code = LineCode.NRZ_L;
+    private boolean analog, waveform = true, decode = true, stats = true, streaming;
+    private MappedInput.Format format;
+    private AnalogFrontEnd frontEnd;
+    private Set<BitAnalytics.Metric> analyses = EnumSet.allOf(BitAnalytics.Metric.class);
+    private Path outDir;
+    private double[] berPoints;
+    private long berBits = 1_000_000;
+    private double jitter, bandwidth;
+    private long seed = System.nanoTime();
+    private PulseShaper.Shape shape;
+    private double shapeParameter;
+    private int samplesPerBit = 16;
+    private double recoverSamplesPerBit;
+    private int tdmSlotBits;
+    private final List<WaveformExporter.Format> exports = new ArrayList<>();
+    /** Per-channel codes for {@code --tdm}; channels past the end use the last. */
+    private final List<LineCode> channelCodes = new ArrayList<>();
+    private final List<String> inputs = new ArrayList<>();
+    private final Writer stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+
+    private SignalCli() { }
+
+    public static void main(String[] args) {
+        SignalCli cli = new SignalCli();
+        try {
+            if (!cli.parseArgs(args)) {
+                System.out.println(USAGE);
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        int failures = cli.run();
+        if (Instrumentation.isEnabled()) System.err.print(Instrumentation.dump());
+        if (failures > 0) System.exit(1);
+    }
+
+    /** Returns false when only help was requested. */
+    private boolean parseArgs(String[] args) {
+        String encoding = null, scramble = null, method = "PCM", companding = "linear", range = "-1:1", dmStep = null;
+        int pcmBits = 8;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h": case "--help": return false;
+                case "-e": case "--encoding": encoding = value(args, ++i, arg); break;
+                case "-s": case "--scramble": scramble = value(args, ++i, arg); break;
+                case "-t": case "--input-type": analog = "analog".equalsIgnoreCase(expect(value(args, ++i, arg), "digital", "analog")); break;
+                case "-f": case "--format": format = MappedInput.Format.parse(value(args, ++i, arg)); break;
+                case "-a": case "--analog": method = expect(value(args, ++i, arg), "PCM", "DM", "CVSD"); break;
+                case "--pcm-bits": pcmBits = (int) parsePositive(value(args, ++i, arg), arg); break;
+                case "--range": range = value(args, ++i, arg); break;
+                case "--companding": companding = value(args, ++i, arg); break;
+                case "--dm-step": dmStep = value(args, ++i, arg); break;
+                case "-o": case "--out": outDir = Paths.get(value(args, ++i, arg)); break;
+                case "--no-waveform": waveform = false; break;
+                case "--export":
+                    for (String f : value(args, ++i, arg).split(",")) exports.add(WaveformExporter.Format.parse(f.trim()));
+                    break;
+                case "--no-decode": decode = false; break;
+                case "--no-stats": stats = false; break;
+                case "--analyses": analyses = BitAnalytics.Metric.parseSet(value(args, ++i, arg)); break;
+                case "--stream": streaming = true; break;
+                case "--ber": berPoints = parseRange(value(args, ++i, arg)); break;
+                case "--ber-bits": berBits = parsePositive(value(args, ++i, arg), arg); break;
+                case "--jitter": jitter = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--bandwidth": bandwidth = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--seed": seed = Long.parseLong(value(args, ++i, arg)); break;
+                case "--shape": parseShape(value(args, ++i, arg)); break;
+                case "--samples-per-bit": samplesPerBit = (int) parsePositive(value(args, ++i, arg), arg); break;
+                case "--recover": recoverSamplesPerBit = Double.parseDouble(value(args, ++i, arg)); break;
+                case "--tdm": tdmSlotBits = (int) parsePositive(value(args, ++i, arg), arg); break;
+                case "--metrics": Instrumentation.setEnabled(true); break;
+                default:
+                    if (arg.startsWith("-") && !arg.equals("-")) throw new IllegalArgumentException("unknown option " + arg);
+                    inputs.add(arg);
+            }
+        }
+        if (tdmSlotBits != 0) {
+            // fails on a bad slot width before any input is read
+            new TdmMultiplexer(tdmSlotBits);
+            if (streaming || shape != null || recoverSamplesPerBit != 0 || berPoints != null) {
+                throw new IllegalArgumentException("--tdm cannot be combined with --stream, --shape, --recover or --ber");
+            }
+            for (String name : (encoding == null ? code.label() : encoding).split(",")) {
+                channelCodes.add(scramble(LineCode.parse(name.trim()), scramble));
+            }
+            code = channelCodes.get(0);
+            if (scramble != null && channelCodes.stream().noneMatch(LineCode::isScrambled)) {
+                throw new IllegalArgumentException("--scramble requires AMI encoding");
+            }
+        } else {
+            if (encoding != null) code = LineCode.parse(encoding);
+            if (scramble != null) {
+                if (code != LineCode.AMI && !code.isScrambled()) throw new IllegalArgumentException("--scramble requires AMI encoding");
+                code = scramble(code, scramble);
+            }
+        }
+        frontEnd = frontEnd(method, pcmBits, range, AnalogFrontEnd.Companding.parse(companding), dmStep);
+        if (!exports.isEmpty() && (outDir == null || recoverSamplesPerBit != 0)) {
+            throw new IllegalArgumentException("--export needs --out and cannot be combined with --recover");
+        }
+        if (shape != null) {
+            if (outDir == null) throw new IllegalArgumentException("--shape needs --out");
+            // fails on a bad parameter before any input is read
+            new PulseShaper(shape, shapeParameter, samplesPerBit, (samples, count) -> { });
+        }
+        if (recoverSamplesPerBit != 0) {
+            // fails on a bad rate before any input is read
+            new ClockRecovery(code, recoverSamplesPerBit);
+            if (format == null) format = MappedInput.Format.F32;
+            if (!format.isAnalog()) throw new IllegalArgumentException("--recover reads analog samples, not " + format);
+        }
+        if (format == null) format = analog ? MappedInput.Format.CSV : MappedInput.Format.ASCII;
+        analog = format.isAnalog();
+        if (inputs.isEmpty()) inputs.add("-");
+        return true;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+        return args[i];
+    }
+
+    /** {@code code} scrambled by {@code scramble} if it is AMI and scrambling was asked for. */
+    private static LineCode scramble(LineCode code, String scramble) {
+        if (scramble == null || (code != LineCode.AMI && !code.isScrambled())) return code;
+        return LineCode.of("AMI", true, expect(scramble, "B8ZS", "HDB3"));
+    }
+
+    /** {@code FROM:TO:STEP} as the values FROM, FROM + STEP, ... up to TO. */
+    private static double[] parseRange(String range) {
+        String[] parts = range.split(":");
+        if (parts.length != 3) throw new IllegalArgumentException("expected FROM:TO:STEP but got " + range);
+        double from = Double.parseDouble(parts[0]), to = Double.parseDouble(parts[1]), step = Double.parseDouble(parts[2]);
+        if (!(step > 0) || to < from) throw new IllegalArgumentException("empty range " + range);
+        double[] values = new double[(int) Math.floor((to - from) / step + 1e-9) + 1];
+        for (int i = 0; i < values.length; i++) values[i] = from + i * step;
+        return values;
+    }
+
+    /** {@code S} or {@code MIN:MAX} as numbers; a missing MAX is NaN. */
+    private static double[] parsePair(String value, String option) {
+        int colon = value.indexOf(':', 1);
+        try {
+            return colon < 0 ? new double[]{Double.parseDouble(value), Double.NaN}
+                    : new double[]{Double.parseDouble(value.substring(0, colon)), Double.parseDouble(value.substring(colon + 1))};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " expects numbers but got " + value);
+        }
+    }
+
+    private static AnalogFrontEnd frontEnd(String method, int pcmBits, String range, AnalogFrontEnd.Companding companding, String dmStep) {
+        switch (method) {
+            case "DM": return AnalogFrontEnd.delta(dmStep == null ? 0.1 : parsePair(dmStep, "--dm-step")[0]);
+            case "CVSD": {
+                double[] steps = parsePair(dmStep == null ? "0.01:0.16" : dmStep, "--dm-step");
+                return AnalogFrontEnd.cvsd(steps[0], Double.isNaN(steps[1]) ? steps[0] * 16 : steps[1]);
+            }
+            default: {
+                double[] bounds = parsePair(range, "--range");
+                if (Double.isNaN(bounds[1])) throw new IllegalArgumentException("--range expects MIN:MAX but got " + range);
+                return AnalogFrontEnd.pcm(pcmBits, bounds[0], bounds[1], companding);
+            }
+        }
+    }
+
+    /** {@code TYPE} or {@code TYPE:PARAMETER}. */
+    private void parseShape(String value) {
+        int colon = value.indexOf(':');
+        shape = PulseShaper.Shape.parse(colon < 0 ? value : value.substring(0, colon));
+        shapeParameter = colon < 0 ? shape.defaultParameter() : Double.parseDouble(value.substring(colon + 1));
+    }
+
+    private static long parsePositive(String value, String option) {
+        long n = Long.parseLong(value);
+        if (n <= 0) throw new IllegalArgumentException(option + " must be positive: " + value);
+        return n;
+    }
+
+    private static String expect(String value, String... allowed) {
+        for (String a : allowed) if (a.equalsIgnoreCase(value)) return a;
+        throw new IllegalArgumentException("expected one of " + String.join(", ", allowed) + " but got " + value);
+    }
+
+    private int run() {
+        if (berPoints != null) return simulate();
+        int failures = 0;
+        try {
+            if (outDir != null) Files.createDirectories(outDir);
+        } catch (IOException e) {
+            System.err.println("error: cannot create " + outDir + ": " + e.getMessage());
+            return 1;
+        }
+        if (tdmSlotBits != 0) return multiplex();
+        for (String input : inputs) {
+            for (Path path : expand(input)) {
+                try {
+                    if (recoverSamplesPerBit != 0) recover(path);
+                    else if (streaming) processStreaming(path);
+                    else process(path);
+                } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+                    System.err.println("error: " + (path == null ? "stdin" : path) + ": " + e.getMessage());
+                    failures++;
+                }
+            }
+        }
+        return failures;
+    }
+
+    private int simulate() {
+        try {
+            ChannelSimulator simulator = new ChannelSimulator(code, jitter, bandwidth, 4);
+            ChannelSimulator.Point[] points;
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.CHANNEL)) {
+                points = simulator.sweep(berPoints, berBits, seed, TaskProgress.NONE);
+                span.items(berBits * berPoints.length);
+            }
+            stdout.write("ebn0_db,bits,errors,ber\n");
+            for (ChannelSimulator.Point p : points) {
+                // FROM + i * STEP is not exact: 0.1 steps give points like 0.30000000000000004
+                stdout.write(String.format(Locale.ROOT, "%.3f,%d,%d,%s\n", p.ebN0Db(), p.bits(), p.errors(), p.ber()));
+            }
+            stdout.flush();
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Reads every input as one channel of a {@link TdmMultiplexer} line, coded by its entry of
+     * {@link #channelCodes}, then writes the line, its statistics and each channel's decoded bits.
+     */
+    private int multiplex() {
+        List<TdmMultiplexer.Channel> channels = new ArrayList<>();
+        int failures = 0, index = 0;
+        for (String input : inputs) {
+            for (Path path : expand(input)) {
+                LineCode channelCode = channelCodes.get(Math.min(index++, channelCodes.size() - 1));
+                try {
+                    BitBuffer bits = new BitBuffer();
+                    try (Instrumentation.Span span = Instrumentation.begin(analog ? null : Instrumentation.Stage.PARSE)) {
+                        readInput(path, bits::append);
+                        span.items(bits.size());
+                    }
+                    channels.add(new TdmMultiplexer.Channel(path == null ? "stdin" : path.getFileName().toString(), channelCode, bits));
+                } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+                    System.err.println("error: " + (path == null ? "stdin" : path) + ": " + e.getMessage());
+                    failures++;
+                }
+            }
+        }
+        if (channels.isEmpty()) return Math.max(1, failures);
+        try {
+            TdmMultiplexer mux = new TdmMultiplexer(tdmSlotBits);
+            long bits = 0;
+            for (TdmMultiplexer.Channel c : channels) bits += c.bits().size();
+            TdmMultiplexer.Line line;
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ENCODE)) {
+                line = mux.multiplex(channels, TaskProgress.NONE);
+                span.items(bits);
+            }
+            BitBuffer[] decoded = null;
+            if (decode) {
+                try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.DECODE)) {
+                    decoded = mux.decode(line.waveform(), channels, TaskProgress.NONE);
+                    span.items(bits);
+                }
+            }
+            try (Output out = new Output("tdm")) {
+                if (stats) writeTdmStats(out.section("stats"), line, decoded);
+            }
+            if (decoded != null) {
+                for (int c = 0; c < channels.size(); c++) {
+                    try (Output out = new Output(channels.get(c).name())) {
+                        Writer w = out.section("decoded");
+                        w.write(SignalEngine.bitsToString(decoded[c]));
+                        w.write('\n');
+                    }
+                }
+            }
+            export("tdm", line.waveform(), "TDM " + channels.size() + " channels");
+            if (waveform) {
+                try (Output out = new Output("tdm");
+                     Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.WRITE)) {
+                    writeWaveform(out.section("wave"), line.waveform());
+                    span.items(line.waveform().segmentCount());
+                }
+            }
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("error: tdm: " + e.getMessage());
+            failures++;
+        }
+        return failures;
+    }
+
+    /** The line's layout, then one group of {@code channel<i>_} lines per channel; bit errors only when decoded. */
+    private static void writeTdmStats(Writer w, TdmMultiplexer.Line line, BitBuffer[] decoded) throws IOException {
+        List<TdmMultiplexer.Channel> channels = line.channels();
+        w.write("channels=" + channels.size() + "\n");
+        w.write("slot_bits=" + line.slotBits() + "\n");
+        w.write("frame_bits=" + line.frameBits() + "\n");
+        w.write("frames=" + line.frames() + "\n");
+        w.write("line_bits=" + (long) line.frames() * line.frameBits() + "\n");
+        w.write("segments=" + line.waveform().segmentCount() + "\n");
+        for (int c = 0; c < channels.size(); c++) {
+            TdmMultiplexer.Channel channel = channels.get(c);
+            String key = "channel" + c + "_";
+            w.write(key + "input=" + channel.name() + "\n");
+            w.write(key + "encoding=" + channel.code().label() + "\n");
+            w.write(key + "bits=" + channel.bits().size() + "\n");
+            if (decoded != null) w.write(key + "bit_errors=" + TdmMultiplexer.bitErrors(channel.bits(), decoded[c]) + "\n");
+        }
+    }
+
+    /** A directory expands to its regular files; {@code null} stands for stdin. */
+    private static List<Path> expand(String input) {
+        List<Path> out = new ArrayList<>();
+        if ("-".equals(input)) {
+            out.add(null);
+            return out;
+        }
+        Path path = Paths.get(input);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                files.filter(Files::isRegularFile).sorted().forEach(out::add);
+            } catch (IOException e) {
+                System.err.println("error: cannot list " + path + ": " + e.getMessage());
+            }
+        } else {
+            out.add(path);
+        }
+        return out;
+    }
+
+    private void process(Path path) throws IOException {
+        String name = path == null ? "stdin" : path.getFileName().toString();
+        BitBuffer bits = new BitBuffer();
+        AnalogFrontEnd.Modulator adc;
+        // analog input is timed block by block as PCM or DM instead
+        try (Instrumentation.Span span = Instrumentation.begin(analog ? null : Instrumentation.Stage.PARSE)) {
+            adc = readInput(path, bits::append);
+            span.items(bits.size());
+        }
+        // the statistics only read the bits, so they run beside the encoder
+        CompletableFuture<BitAnalytics.Report> analysis = stats
+                ? CompletableFuture.supplyAsync(() -> BitAnalytics.analyze(bits, analyses, TaskProgress.NONE)) : null;
+        Waveform wave;
+        try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ENCODE)) {
+            wave = ParallelEncoder.encode(code, bits, TaskProgress.NONE);
+            span.items(bits.size());
+        }
+
+        try (Output out = new Output(name)) {
+            if (stats) writeStats(out.section("stats"), name, join(analysis), wave.segmentCount(), adc);
+            if (decode) {
+                BitBuffer decoded;
+                try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.DECODE)) {
+                    decoded = SignalEngine.decode(code, wave, TaskProgress.NONE);
+                    span.items(decoded.size());
+                }
+                Writer w = out.section("decoded");
+                w.write(SignalEngine.bitsToString(decoded));
+                w.write('\n');
+            }
+            if (waveform) {
+                try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.WRITE)) {
+                    writeWaveform(out.section("wave"), wave);
+                    span.items(wave.segmentCount());
+                }
+            }
+        }
+        export(name, wave, code.label());
+        if (shape != null) {
+            try (F32Sink samples = new F32Sink(outDir.resolve(name + ".samples.f32"));
+                 Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.SHAPE)) {
+                PulseShaper shaper = new PulseShaper(shape, shapeParameter, samplesPerBit, samples);
+                shaper.append(wave);
+                shaper.finish();
+                span.items(wave.bitCount());
+            }
+        }
+    }
+
+    /** Writes {@code wave} as {@code <name>.<extension>} under {@code --out} in every {@code --export} format. */
+    private void export(String name, Waveform wave, String title) throws IOException {
+        for (WaveformExporter.Format f : exports) {
+            try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.WRITE)) {
+                WaveformExporter.export(wave, outDir.resolve(name + "." + f.extension()), f, title, TaskProgress.NONE);
+                span.items(wave.segmentCount());
+            }
+        }
+    }
+
+    /**
+     * Streams the input through {@link MappedInput} in chunks; analog samples are PCM or delta
+     * modulated block by block on the way, so neither text nor samples are ever held whole.
+     * Returns the analog front end's modulator, or null for digital input.
+     */
+    private AnalogFrontEnd.Modulator readInput(Path path, MappedInput.BitChunkConsumer consumer) throws IOException {
+        if (!analog) {
+            if (MappedInput.readBits(path, format, STREAM_CHUNK, consumer) == 0) throw new IllegalArgumentException("no bits");
+            return null;
+        }
+        AnalogBits bits = new AnalogBits(consumer);
+        if (MappedInput.readSamples(path, format, new double[ANALOG_BLOCK], bits) == 0) {
+            throw new IllegalArgumentException("no analog samples");
+        }
+        return bits.modulator;
+    }
+
+    /** One row per level change, then a closing row at the end time; times are in bit periods. */
+    private static void writeWaveform(Writer w, Waveform wave) throws IOException {
+        CsvWaveSink sink = new CsvWaveSink(w);
+        for (int i = 0, n = wave.segmentCount(); i < n; i++) sink.append(wave.level(i), wave.end(i) - wave.start(i));
+        sink.finish();
+    }
+
+    /**
+     * Pushes each input chunk through a {@link StreamingEncoder} (and {@link StreamingDecoder}),
+     * writing rows as segments arrive. Memory does not grow with the input length.
+     */
+    private void processStreaming(Path path) throws IOException {
+        String name = path == null ? "stdin" : path.getFileName().toString();
+        StreamingEncoder encoder = StreamingEncoder.create(code);
+        StreamingDecoder decoder = StreamingDecoder.create(code);
+        BitBuffer decoded = new BitBuffer(STREAM_CHUNK);
+        BitAnalytics.Accumulator counts = new BitAnalytics.Accumulator(analyses);
+
+        try (Output out = new Output(name);
+             F32Sink samples = shape != null ? new F32Sink(outDir.resolve(name + ".samples.f32")) : null;
+             Exports exported = new Exports(name)) {
+            Writer decodedOut = decode && outDir != null ? out.extra("decoded") : null;
+            CsvWaveSink csv = waveform ? new CsvWaveSink(out.section("wave")) : null;
+            PulseShaper shaper = samples != null ? new PulseShaper(shape, shapeParameter, samplesPerBit, samples) : null;
+            SegmentSink sink = (level, ticks) -> {
+                if (csv != null) csv.append(level, ticks);
+                if (decodedOut != null) decoder.decode(level, ticks, decoded);
+                if (shaper != null) shaper.append(level, ticks);
+                exported.append(level, ticks);
+            };
+            AnalogFrontEnd.Modulator adc = readInput(path, chunk -> {
+                try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ANALYSIS)) {
+                    counts.add(chunk);
+                    span.items(chunk.size());
+                }
+                // the sink writes and decodes the segments inside this stage
+                try (Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.ENCODE)) {
+                    encoder.encode(chunk, sink);
+                    span.items(chunk.size());
+                }
+                if (decodedOut != null) flushBits(decoded, decodedOut);
+            });
+            encoder.finish(sink);
+            if (decodedOut != null) {
+                decoder.finish(decoded);
+                flushBits(decoded, decodedOut);
+                decodedOut.write('\n');
+            }
+            if (csv != null) csv.finish();
+            if (shaper != null) shaper.finish();
+            if (stats) writeStats(out.section("stats"), name, counts.report(), csv != null ? csv.segments : -1, adc);
+        }
+    }
+
+    /** Decodes a capture through {@link ClockRecovery}, writing bits as they come. */
+    private void recover(Path path) throws IOException {
+        String name = path == null ? "stdin" : path.getFileName().toString();
+        ClockRecovery recovery = new ClockRecovery(code, recoverSamplesPerBit);
+        BitBuffer decoded = new BitBuffer(STREAM_CHUNK);
+        try (Output out = new Output(name);
+             Instrumentation.Span span = Instrumentation.begin(Instrumentation.Stage.DECODE)) {
+            Writer bits = out.section("decoded");
+            long samples = MappedInput.readSamples(path, format, new double[SAMPLE_BLOCK], (block, count) -> {
+                recovery.process(block, 0, count, decoded);
+                span.items(decoded.size());
+                flushBits(decoded, bits);
+            });
+            if (samples == 0) throw new IllegalArgumentException("no analog samples");
+            recovery.finish(decoded);
+            span.items(decoded.size());
+            flushBits(decoded, bits);
+            bits.write('\n');
+            if (stats) {
+                Writer w = out.section("recovery");
+                w.write("input=" + name + "\n");
+                w.write("encoding=" + code.label() + "\n");
+                w.write("samples=" + recovery.samples() + "\n");
+                w.write("ticks=" + recovery.ticks() + "\n");
+                w.write("samples_per_bit=" + recovery.samplesPerBit() + "\n");
+                w.write("rate_error_ppm=" + Math.round(recovery.rateError() * 1e6) + "\n");
+                w.write("slips=" + recovery.slips() + "\n");
+                w.write("code_violations=" + recovery.codeViolations() + "\n");
+            }
+        }
+    }
+
+    /**
+     * One {@code key=value} line per statistic; {@code segments < 0} when they were not counted,
+     * {@code adc} null for digital input.
+     */
+    private void writeStats(Writer w, String name, BitAnalytics.Report r, long segments, AnalogFrontEnd.Modulator adc) throws IOException {
+        w.write("input=" + name + "\n");
+        if (adc != null) {
+            w.write("analog=" + frontEnd + "\n");
+            w.write("samples=" + adc.samples() + "\n");
+            w.write("quantization_snr_db=" + adc.snrDb() + "\n");
+        }
+        w.write("encoding=" + code.label() + "\n");
+        w.write("bits=" + r.bits() + "\n");
+        w.write("ones=" + r.ones() + "\n");
+        if (segments >= 0) w.write("segments=" + segments + "\n");
+        if (r.has(BitAnalytics.Metric.RUNS)) {
+            w.write("longest_zero_run=" + r.longestZeroRun() + "\n");
+            w.write("longest_one_run=" + r.longestOneRun() + "\n");
+        }
+        if (r.has(BitAnalytics.Metric.TRANSITIONS)) {
+            w.write("transitions=" + r.transitions() + "\n");
+            w.write("transition_density=" + r.transitionDensity() + "\n");
+        }
+        if (r.has(BitAnalytics.Metric.DENSITY)) {
+            w.write("ones_density=" + r.onesDensity() + "\n");
+            w.write("dc_balance=" + r.dcBalance() + "\n");
+            w.write("max_running_disparity=" + r.maxRunningDisparity() + "\n");
+        }
+        if (r.has(BitAnalytics.Metric.PALINDROME)) {
+            w.write("longest_palindrome_start=" + r.palindromeStart() + "\n");
+            w.write("longest_palindrome_length=" + r.palindromeLength() + "\n");
+        }
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    private static void flushBits(BitBuffer bits, Writer w) throws IOException {
+        w.write(bits.toString());
+        bits.clear();
+    }
+
+    /** Writes merged level changes as {@code time,level} rows; times are in bit periods. */
+    private static final class CsvWaveSink implements SegmentSink {
+        private final Writer w;
+        private final StringBuilder row = new StringBuilder(32);
+        private long tick;
+        private int level = Integer.MIN_VALUE;
+        long segments;
+
+        CsvWaveSink(Writer w) throws IOException {
+            this.w = w;
+            w.write("time,level\n");
+        }
+
+        @Override
+        public void append(int level, int ticks) {
+            if (level != this.level) {
+                this.level = level;
+                segments++;
+                row(tick, level);
+            }
+            tick += ticks;
+        }
+
+        /** Closing row at the end time. */
+        void finish() {
+            if (segments > 0) row(tick, level);
+        }
+
+        private void row(long tick, int level) {
+            row.setLength(0);
+            row.append(tick / Waveform.TICKS_PER_BIT);
+            if (tick % Waveform.TICKS_PER_BIT != 0) row.append(".5");
+            row.append(',').append(level).append('\n');
+            try {
+                w.append(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** One {@link WaveformExporter} per {@code --export} format, fed the same segments while streaming. */
+    private final class Exports implements SegmentSink, Closeable {
+        private final WaveformExporter[] exporters = new WaveformExporter[exports.size()];
+
+        Exports(String name) throws IOException {
+            try {
+                for (int i = 0; i < exporters.length; i++) {
+                    WaveformExporter.Format f = exports.get(i);
+                    exporters[i] = new WaveformExporter(outDir.resolve(name + "." + f.extension()), f, code.label());
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void append(int level, int ticks) {
+            for (WaveformExporter e : exporters) e.append(level, ticks);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (WaveformExporter e : exporters) {
+                if (e == null) continue;
+                try {
+                    e.close();
+                } catch (IOException x) {
+                    if (failure == null) failure = x;
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    /** Writes shaped samples as little-endian float32. */
+    private static final class F32Sink implements PulseShaper.SampleSink, Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(PulseShaper.CHUNK_SAMPLES * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        F32Sink(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void accept(float[] samples, int count) {
+            try {
+                for (int from = 0; from < count; ) {
+                    int n = Math.min(count - from, buffer.capacity() / Float.BYTES);
+                    buffer.clear();
+                    buffer.asFloatBuffer().put(samples, from, n);
+                    buffer.limit(n * Float.BYTES);
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    from += n;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final int STREAM_CHUNK = 1 << 16;
+    private static final int SAMPLE_BLOCK = 1 << 13;
+    /** Large enough for the analog front end to quantize PCM blocks in parallel. */
+    private static final int ANALOG_BLOCK = 1 << 18;
+
+    /** Turns sample blocks into bit chunks through the {@link AnalogFrontEnd}, which carries the DM state between blocks. */
+    private final class AnalogBits implements MappedInput.SampleBlockConsumer {
+        private final MappedInput.BitChunkConsumer consumer;
+        private final BitBuffer chunk = new BitBuffer(ANALOG_BLOCK * frontEnd.bitsPerSample());
+        final AnalogFrontEnd.Modulator modulator = frontEnd.modulator();
+
+        AnalogBits(MappedInput.BitChunkConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void accept(double[] block, int count) throws IOException {
+            chunk.clear();
+            boolean pcm = frontEnd.method() == AnalogFrontEnd.Method.PCM;
+            try (Instrumentation.Span span = Instrumentation.begin(pcm ? Instrumentation.Stage.PCM : Instrumentation.Stage.DELTA)) {
+                modulator.encode(block, 0, count, chunk);
+                span.items(chunk.size());
+            }
+            if (!chunk.isEmpty()) consumer.accept(chunk);
+        }
+    }
+
+    /** Routes each section to its own file under {@code --out}, or to stdout behind a header line. */
+    private final class Output implements Closeable {
+        private final String name;
+        private Writer current, extra;
+
+        Output(String name) {
+            this.name = name;
+        }
+
+        Writer section(String kind) throws IOException {
+            closeCurrent();
+            if (outDir == null) {
+                current = stdout;
+                current.write("# " + name + " " + kind + "\n");
+            } else {
+                String ext = "wave".equals(kind) ? ".csv" : ".txt";
+                current = Files.newBufferedWriter(outDir.resolve(name + "." + kind + ext), StandardCharsets.US_ASCII);
+            }
+            return current;
+        }
+
+        /** A file that stays open alongside the current section; only valid with {@code --out}. */
+        Writer extra(String kind) throws IOException {
+            extra = Files.newBufferedWriter(outDir.resolve(name + "." + kind + ".txt"), StandardCharsets.US_ASCII);
+            return extra;
+        }
+
+        private void closeCurrent() throws IOException {
+            if (current == stdout) stdout.flush();
+            else if (current != null) current.close();
+            current = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeCurrent();
+            if (extra != null) extra.close();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package dcproject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumSet;
+
+/**
+ * Encoding, decoding and analysis engine shared by the Swing frame and the headless
+ * {@link SignalCli}. Everything here is stateless and free of AWT/Swing dependencies.
+ */
+public final class SignalEngine {
+    private SignalEngine() { }
+
+    // ==== INPUT ====
+    public static BitBuffer parseBits(String input, TaskProgress progress) {
+        int n = input.length();
+        BitBuffer bits = new BitBuffer(n);
+        for (int i = 0; i < n; i++) {
+            if ((i & TaskProgress.STEP_MASK) == 0) progress.update(i, n);
+            char c = input.charAt(i);
+            if (c != '0' && c != '1') throw new IllegalArgumentException("Enter valid binary data (0/1)!");
+            bits.append(c - '0');
+        }
+        return bits;
+    }
+
+    /** Comma separated samples; tokens that are not numbers are skipped. */
+    public static double[] parseAnalogSamples(String csv) {
+        return CsvNumberParser.parse(csv);
+    }
+
+    /** The frame's original quantizer, kept as is; {@link AnalogFrontEnd} is the configurable front end. */
+    public static BitBuffer pcmEncode(double[] samples, int bits, double minVal, double maxVal) {
+        BitBuffer out = new BitBuffer(samples.length * bits);
+        pcmEncode(samples, 0, samples.length, bits, minVal, maxVal, out);
+        return out;
+    }
+
+    /** Appends the {@code bits}-bit codes of samples {@code [from, to)}, most significant bit first. */
+    public static void pcmEncode(double[] samples, int from, int to, int bits, double minVal, double maxVal, BitBuffer out) {
+        int levels = (1 << bits);
+        for (int i = from; i < to; i++) {
+            double clamped = Math.max(minVal, Math.min(maxVal, samples[i]));
+            double norm = (clamped - minVal) / (maxVal - minVal);
+            int q = (int) Math.floor(norm * (levels - 1));
+            out.appendBits(Integer.reverse(q) >>> (32 - bits), bits);
+        }
+    }
+
+    /** The first sample seeds the approximation and produces no bit. */
+    public static BitBuffer deltaModulate(double[] samples, double step) {
+        if (samples.length == 0) return new BitBuffer();
+        BitBuffer out = new BitBuffer(samples.length);
+        deltaModulate(samples, 1, samples.length, step, samples[0], out);
+        return out;
+    }
+
+    /**
+     * Delta-modulates samples {@code [from, to)} starting from the running approximation
+     * {@code approx} and returns the updated approximation, so blocks can be chained.
+     */
+    public static double deltaModulate(double[] samples, int from, int to, double step, double approx, BitBuffer out) {
+        for (int i = from; i < to; i++) {
+            int bit = samples[i] >= approx ? 1 : 0;
+            out.append(bit);
+            approx += bit == 1 ? step : -step;
+        }
+        return approx;
+    }
+
+    // ==== ENCODING METHODS ====
+    public static Waveform encode(LineCode code, BitBuffer bits, TaskProgress progress) {
+        Waveform out = new Waveform();
+        switch (code) {
+            case NRZ_L: encodeNRZL(bits, out, progress); break;
+            case NRZ_I: encodeNRZI(bits, out, progress); break;
+            case MANCHESTER: encodeManchester(bits, out, progress); break;
+            case DIFF_MANCHESTER: encodeDiffManchester(bits, out, progress); break;
+            case AMI: encodeAMI(bits, out, progress); break;
+            case AMI_B8ZS: encodeAMIWithB8ZS(bits, out, progress); break;
+            case AMI_HDB3: encodeAMIWithHDB3(bits, out, progress); break;
+        }
+        return out;
+    }
+
+    public static void encodeNRZL(BitBuffer bits, Waveform out, TaskProgress progress) {
+        ByteTableCodec.encode(LineCode.NRZ_L, bits, out, progress);
+    }
+
+    public static void encodeNRZI(BitBuffer bits, Waveform out, TaskProgress progress) {
+        ByteTableCodec.encode(LineCode.NRZ_I, bits, out, progress);
+    }
+
+    public static void encodeManchester(BitBuffer bits, Waveform out, TaskProgress progress) {
+        ByteTableCodec.encode(LineCode.MANCHESTER, bits, out, progress);
+    }
+
+    public static void encodeDiffManchester(BitBuffer bits, Waveform out, TaskProgress progress) {
+        ByteTableCodec.encode(LineCode.DIFF_MANCHESTER, bits, out, progress);
+    }
+
+    public static void encodeAMI(BitBuffer bits, Waveform out, TaskProgress progress) {
+        ByteTableCodec.encode(LineCode.AMI, bits, out, progress);
+    }
+
+    public static void encodeAMIWithB8ZS(BitBuffer bits, Waveform out, TaskProgress progress) {
+        int n = bits.size();
+        int i = 0;
+        // amiPolarity tracks last NORMAL AMI pulse (+1/-1)
+        int amiPolarity = -1;
+        // prevNonZero tracks last emitted nonzero (includes violations)
+        int prevNonZero = amiPolarity;
+        while (i < n) {
+            if ((i & TaskProgress.STEP_MASK) == 0) progress.update(i, n);
+            if (i + 7 < n) {
+                boolean eightZeros = true;
+                for (int k = 0; k < 8; k++) {
+                    if (bits.get(i + k) != 0) { eightZeros = false; break; }
+                }
+                if (eightZeros) {
+                    // Emit 000 V B 0 V B with dynamic V/B depending on prevNonZero
+                    addLevelSegment(out, 0); // 0
+                    addLevelSegment(out, 0); // 0
+                    addLevelSegment(out, 0); // 0
+
+                    // V1: same as prevNonZero (violation)
+                    int V1 = prevNonZero == 0 ? 1 : prevNonZero;
+                    addLevelSegment(out, V1);
+                    prevNonZero = V1; // track last emitted nonzero
+
+                    // B1: normal AMI opposite of prevNonZero
+                    int B1 = -prevNonZero;
+                    addLevelSegment(out, B1);
+                    prevNonZero = B1;
+                    amiPolarity = B1; // normal pulse updates AMI polarity
+
+                    addLevelSegment(out, 0); // 0
+
+                    // V2: again same as prevNonZero (violation)
+                    int V2 = prevNonZero;
+                    addLevelSegment(out, V2);
+                    prevNonZero = V2;
+
+                    // B2: opposite of prevNonZero
+                    int B2 = -prevNonZero;
+                    addLevelSegment(out, B2);
+                    prevNonZero = B2;
+                    amiPolarity = B2; // update AMI polarity; ends equal to initial
+
+                    i += 8;
+                    continue;
+                }
+            }
+            int bit = bits.get(i);
+            if (bit == 0) {
+                addLevelSegment(out, 0);
+            } else {
+                // normal AMI alternation
+                amiPolarity = -amiPolarity; if (amiPolarity == 0) amiPolarity = 1;
+                addLevelSegment(out, amiPolarity);
+                prevNonZero = amiPolarity;
+            }
+            i++;
+        }
+    }
+
+    public static void encodeAMIWithHDB3(BitBuffer bits, Waveform out, TaskProgress progress) {
+        int n = bits.size();
+        int i = 0;
+        int lastPulse = -1;
+        int nonZeroSinceLastSub = 0;
+        while (i < n) {
+            if ((i & TaskProgress.STEP_MASK) == 0) progress.update(i, n);
+            if (i + 3 < n && bits.get(i) == 0 && bits.get(i + 1) == 0 && bits.get(i + 2) == 0 && bits.get(i + 3) == 0) {
+                if (nonZeroSinceLastSub % 2 == 0) {
+                    int b = -lastPulse; if (lastPulse == 0) b = 1; lastPulse = b;
+                    addLevelSegment(out, b);
+                    addLevelSegment(out, 0);
+                    addLevelSegment(out, 0);
+                    int v = lastPulse; if (v == 0) v = 1;
+                    addLevelSegment(out, v);
+                } else {
+                    addLevelSegment(out, 0);
+                    addLevelSegment(out, 0);
+                    addLevelSegment(out, 0);
+                    int v = lastPulse; if (v == 0) v = 1;
+                    addLevelSegment(out, v);
+                }
+                nonZeroSinceLastSub = 0;
+                i += 4;
+            } else {
+                int bit = bits.get(i);
+                if (bit == 0) {
+                    addLevelSegment(out, 0);
+                } else {
+                    lastPulse = -lastPulse; if (lastPulse == 0) lastPulse = 1;
+                    addLevelSegment(out, lastPulse);
+                    nonZeroSinceLastSub++;
+                }
+                i++;
+            }
+        }
+    }
+
+    private static void addLevelSegment(Waveform out, int level) {
+        out.appendBit(level);
+    }
+
+    // ==== DECODING METHODS ====
+    public static BitBuffer decode(LineCode code, Waveform wave, TaskProgress progress) {
+        switch (code) {
+            case NRZ_L: return decodeNRZL(wave, progress);
+            case NRZ_I: return decodeNRZI(wave, progress);
+            case MANCHESTER: return decodeManchester(wave, progress);
+            case DIFF_MANCHESTER: return decodeDiffManchester(wave, progress);
+            case AMI_B8ZS: return decodeB8ZS(wave, progress);
+            case AMI_HDB3: return decodeHDB3(wave, progress);
+            default: return decodeAMIBase(wave, progress);
+        }
+    }
+
+    /**
+     * {@code VectorDecoder.decodeSlots} when the JVM was started with
+     * {@code --add-modules jdk.incubator.vector}, otherwise null and {@link #decodeSlotsScalar} is used.
+     */
+    private static final MethodHandle VECTOR_DECODE_SLOTS = findVectorDecoder();
+
+    private static MethodHandle findVectorDecoder() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+        try {
+            return MethodHandles.lookup().findStatic(Class.forName("dcproject.VectorDecoder"), "decodeSlots",
+                    MethodType.methodType(BitBuffer.class, LineCode.class, byte[].class, int.class, TaskProgress.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    public static boolean isVectorDecodeAvailable() {
+        return VECTOR_DECODE_SLOTS != null;
+    }
+
+    /**
+     * Decodes {@code numBits} bits from raw half-bit levels, {@code slots[2b]} and {@code slots[2b + 1]}
+     * for bit {@code b} (see {@link Waveform#halfBitLevels()}), with the same rules as {@link #decode}.
+     */
+    public static BitBuffer decodeSlots(LineCode code, byte[] slots, int numBits, TaskProgress progress) {
+        if (numBits < 0 || slots.length < (long) numBits * Waveform.TICKS_PER_BIT) {
+            throw new IllegalArgumentException("need " + numBits * 2L + " slots, have " + slots.length);
+        }
+        if (VECTOR_DECODE_SLOTS != null && !code.isScrambled()) {
+            try {
+                return (BitBuffer) VECTOR_DECODE_SLOTS.invokeExact(code, slots, numBits, progress);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+        return decodeSlotsScalar(code, slots, numBits, progress);
+    }
+
+    public static BitBuffer decodeSlotsScalar(LineCode code, byte[] slots, int numBits, TaskProgress progress) {
+        BitBuffer out = new BitBuffer(numBits);
+        if (numBits == 0) return out;
+        if (code.isScrambled()) {
+            StreamingDecoder decoder = StreamingDecoder.create(code);
+            for (int b = 0; b < numBits; b++) {
+                if ((b & TaskProgress.STEP_MASK) == 0) progress.update(b, numBits);
+                decoder.pair(slots[2 * b], slots[2 * b + 1], out);
+            }
+            decoder.finish(out);
+            return out;
+        }
+        // the NRZ-I and Differential Manchester reference before bit 0 is slot 0 itself
+        int reference = slots[0];
+        for (int b = 0; b < numBits; b++) {
+            if ((b & TaskProgress.STEP_MASK) == 0) progress.update(b, numBits);
+            out.append(decodeSlot(code, slots, b, reference));
+            reference = code == LineCode.NRZ_I ? slots[2 * b + 1] : slots[2 * b];
+        }
+        return out;
+    }
+
+    /** Bit {@code b} of half-bit levels, given the previous bit's NRZ-I/Differential Manchester reference level. */
+    static int decodeSlot(LineCode code, byte[] slots, int b, int reference) {
+        int first = slots[2 * b], second = slots[2 * b + 1];
+        switch (code) {
+            case NRZ_L: return first > 0 ? 1 : 0;
+            case NRZ_I: return second != reference ? 1 : 0;
+            case MANCHESTER: return first > second ? 1 : 0;
+            case DIFF_MANCHESTER: return first == reference ? 1 : 0;
+            default: return first != 0 ? 1 : 0;
+        }
+    }
+
+    public static BitBuffer decodeNRZL(Waveform wave, TaskProgress progress) {
+        return ByteTableCodec.decode(LineCode.NRZ_L, wave, progress);
+    }
+
+    public static BitBuffer decodeNRZI(Waveform wave, TaskProgress progress) {
+        return ByteTableCodec.decode(LineCode.NRZ_I, wave, progress);
+    }
+
+    public static BitBuffer decodeManchester(Waveform wave, TaskProgress progress) {
+        return ByteTableCodec.decode(LineCode.MANCHESTER, wave, progress);
+    }
+
+    public static BitBuffer decodeDiffManchester(Waveform wave, TaskProgress progress) {
+        return ByteTableCodec.decode(LineCode.DIFF_MANCHESTER, wave, progress);
+    }
+
+    public static BitBuffer decodeAMIBase(Waveform wave, TaskProgress progress) {
+        return ByteTableCodec.decode(LineCode.AMI, wave, progress);
+    }
+
+    /** AMI with every B8ZS substitution turned back into eight zeros. */
+    public static BitBuffer decodeB8ZS(Waveform wave, TaskProgress progress) {
+        BitBuffer out = new BitBuffer(wave.bitCount());
+        descramble(LineCode.AMI_B8ZS, wave, out, progress);
+        return out;
+    }
+
+    /** AMI with every HDB3 substitution turned back into four zeros. */
+    public static BitBuffer decodeHDB3(Waveform wave, TaskProgress progress) {
+        BitBuffer out = new BitBuffer(wave.bitCount());
+        descramble(LineCode.AMI_HDB3, wave, out, progress);
+        return out;
+    }
+
+    /**
+     * Appends the decoded bits of a B8ZS or HDB3 waveform to {@code out} and returns its code
+     * violations, the bipolar violations no substitution accounts for.
+     */
+    public static long descramble(LineCode code, Waveform wave, BitBuffer out, TaskProgress progress) {
+        return ByteTableCodec.descramble(code, wave, out, progress);
+    }
+
+    // ==== ANALYSIS ====
+    public static String bitsToString(BitBuffer bits) {
+        return bits.toString();
+    }
+
+    public static String manachersLongestPalindrome(String s, TaskProgress progress) {
+        if (s.isEmpty()) return "";
+        StringBuilder t = new StringBuilder("^");
+        for (int i = 0; i < s.length(); i++) { t.append('#').append(s.charAt(i)); }
+        t.append("#$");
+        int n = t.length();
+        int[] p = new int[n];
+        int center = 0, right = 0;
+        for (int i = 1; i < n - 1; i++) {
+            if ((i & TaskProgress.STEP_MASK) == 0) progress.update(i, n);
+            int mir = 2 * center - i;
+            p[i] = (right > i) ? Math.min(right - i, p[mir]) : 0;
+            while (t.charAt(i + 1 + p[i]) == t.charAt(i - 1 - p[i])) p[i]++;
+            if (i + p[i] > right) { center = i; right = i + p[i]; }
+        }
+        int maxLen = 0, centerIdx = 0;
+        for (int i = 1; i < n - 1; i++) {
+            if (p[i] > maxLen) { maxLen = p[i]; centerIdx = i; }
+        }
+        int start = (centerIdx - maxLen) / 2;
+        return s.substring(start, start + maxLen);
+    }
+
+    public static int longestZeroRun(BitBuffer bits) {
+        return (int) BitAnalytics.analyze(bits, EnumSet.of(BitAnalytics.Metric.RUNS), TaskProgress.NONE).longestZeroRun();
+    }
+}
@@ -0,0 +1,196 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Power spectral density of a {@link Waveform} by Welch's method: the waveform is sampled at
+ * {@link #SAMPLES_PER_BIT} samples per bit, cut into Hann-windowed segments of
+ * {@link #segmentLength()} samples with 50% overlap, and the periodograms of the segments are
+ * averaged. Long signals are covered by at most {@link #MAX_SEGMENTS} evenly spaced segments, so
+ * the cost is bounded regardless of length. Frequencies are in multiples of the bit rate.
+ * <p>
+ * The FFT is an iterative in-place radix-2 transform on the instance's own {@code double[]}
+ * buffers with precomputed twiddles, and two real segments share one complex transform, so a
+ * {@link #welch} call allocates nothing but its result. Instances are not thread safe.
+ */
+public final class Spectrum {
+    public static final int SAMPLES_PER_TICK = 4;
+    public static final int SAMPLES_PER_BIT = SAMPLES_PER_TICK * Waveform.TICKS_PER_BIT;
+    public static final int DEFAULT_SEGMENT = 1024;
+    public static final int MIN_SEGMENT = 16;
+    public static final int MAX_SEGMENTS = 512;
+
+    private final int n, shift;
+    private final double[] cos, sin, window;
+    private final double windowPower;
+    private final double[] re, im;
+
+    /** {@code segmentLength} must be a power of two of at least {@link #MIN_SEGMENT}. */
+    public Spectrum(int segmentLength) {
+        if (segmentLength < MIN_SEGMENT || Integer.bitCount(segmentLength) != 1) {
+            throw new IllegalArgumentException("segment length must be a power of two >= " + MIN_SEGMENT + ": " + segmentLength);
+        }
+        n = segmentLength;
+        shift = 32 - Integer.numberOfTrailingZeros(n);
+        cos = new double[n / 2];
+        sin = new double[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            cos[k] = Math.cos(2 * Math.PI * k / n);
+            sin[k] = -Math.sin(2 * Math.PI * k / n);
+        }
+        window = new double[n];
+        double power = 0;
+        for (int i = 0; i < n; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / n);
+            power += window[i] * window[i];
+        }
+        windowPower = power;
+        re = new double[n];
+        im = new double[n];
+    }
+
+    /** The Welch PSD of {@code w} with segments as long as it allows, up to {@link #DEFAULT_SEGMENT}. */
+    public static Psd of(Waveform w, TaskProgress progress) {
+        long samples = (long) w.totalTicks() * SAMPLES_PER_TICK;
+        int length = (int) Math.min(DEFAULT_SEGMENT, Long.highestOneBit(Math.max(samples, 1)));
+        return new Spectrum(Math.max(MIN_SEGMENT, length)).welch(w, progress);
+    }
+
+    public int segmentLength() {
+        return n;
+    }
+
+    /** Forward DFT of {@code re + i im} in place; both arrays must have {@link #segmentLength()} elements. */
+    public void fft(double[] re, double[] im) {
+        if (re.length != n || im.length != n) throw new IllegalArgumentException("buffers must hold " + n + " values");
+        for (int i = 0; i < n; i++) {
+            int j = Integer.reverse(i) >>> shift;
+            if (j > i) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        for (int half = 1, step = n >> 1; half < n; half <<= 1, step >>= 1) {
+            for (int start = 0; start < n; start += half << 1) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    int a = start + k, b = a + half;
+                    double wr = cos[t], wi = sin[t];
+                    double xr = re[b] * wr - im[b] * wi;
+                    double xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+    }
+
+    /**
+     * Welch PSD of {@code w}. An empty waveform or one shorter than a segment is zero-padded into
+     * a single segment.
+     */
+    public Psd welch(Waveform w, TaskProgress progress) {
+        long samples = (long) w.totalTicks() * SAMPLES_PER_TICK;
+        long span = Math.max(0, samples - n);
+        int segments = (int) Math.min(MAX_SEGMENTS, span / (n / 2) + 1);
+        double stride = segments == 1 ? 0 : span / (double) (segments - 1);
+        double[] sum = new double[n / 2 + 1];
+        // Two real segments per transform, one in re and one in im: with Z = FFT(a + i b),
+        // |A[k]|^2 + |B[k]|^2 = (|Z[k]|^2 + |Z[n-k]|^2) / 2
+        for (int s = 0; s < segments; s += 2) {
+            progress.update(s, segments);
+            fill(w, Math.round(s * stride), re);
+            if (s + 1 < segments) fill(w, Math.round((s + 1) * stride), im);
+            else Arrays.fill(im, 0);
+            fft(re, im);
+            for (int k = 0; k <= n / 2; k++) {
+                int m = (n - k) & (n - 1);
+                sum[k] += 0.5 * (re[k] * re[k] + im[k] * im[k] + re[m] * re[m] + im[m] * im[m]);
+            }
+        }
+        // one-sided density per unit of bit rate
+        double scale = 1.0 / (SAMPLES_PER_BIT * windowPower * segments);
+        for (int k = 0; k <= n / 2; k++) sum[k] *= k == 0 || k == n / 2 ? scale : 2 * scale;
+        return new Psd(sum, SAMPLES_PER_BIT / (double) n, segments);
+    }
+
+    /** Windowed samples {@code [from, from + n)} of {@code w}, zero past its end. */
+    private void fill(Waveform w, long from, double[] out) {
+        int i = 0;
+        if (!w.isEmpty()) {
+            long end = (long) w.totalTicks() * SAMPLES_PER_TICK;
+            for (int s = w.segmentAt(from / SAMPLES_PER_TICK + 0.5), count = w.segmentCount(); s < count && i < n; s++) {
+                int level = w.level(s);
+                int until = (int) Math.min(n, Math.min(end, (long) w.end(s) * SAMPLES_PER_TICK) - from);
+                for (; i < until; i++) out[i] = level * window[i];
+            }
+        }
+        for (; i < n; i++) out[i] = 0;
+    }
+
+    /** A one-sided power spectral density from DC to half the sample rate. */
+    public static final class Psd {
+        private final double[] power;
+        private final double binWidth;
+        private final int segments;
+
+        Psd(double[] power, double binWidth, int segments) {
+            this.power = power;
+            this.binWidth = binWidth;
+            this.segments = segments;
+        }
+
+        public int bins() {
+            return power.length;
+        }
+
+        /** Density of bin {@code k}, in squared level units per bit rate. */
+        public double power(int k) {
+            Objects.checkIndex(k, power.length);
+            return power[k];
+        }
+
+        /** Centre frequency of bin {@code k} as a multiple of the bit rate. */
+        public double frequency(int k) {
+            return k * binWidth;
+        }
+
+        public double binWidth() {
+            return binWidth;
+        }
+
+        public int segments() {
+            return segments;
+        }
+
+        public double totalPower() {
+            double total = 0;
+            for (double p : power) total += p;
+            return total * binWidth;
+        }
+
+        /** Share of the power at frequencies below {@code frequency} (in bit rates). */
+        public double fractionBelow(double frequency) {
+            double total = 0, below = 0;
+            for (int k = 0; k < power.length; k++) {
+                total += power[k];
+                if (frequency(k) < frequency) below += power[k];
+            }
+            return total == 0 ? 0 : below / total;
+        }
+
+        /** Lowest frequency (in bit rates) below which {@code fraction} of the power lies. */
+        public double bandwidth(double fraction) {
+            double total = 0;
+            for (double p : power) total += p;
+            double acc = 0;
+            for (int k = 0; k < power.length; k++) {
+                acc += power[k];
+                if (acc >= fraction * total) return frequency(k);
+            }
+            return frequency(power.length - 1);
+        }
+    }
+}
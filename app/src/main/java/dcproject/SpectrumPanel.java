@@ -0,0 +1,103 @@
+package dcproject;
+
+import javax.swing.*;
+import javax.swing.border.TitledBorder;
+import java.awt.*;
+import java.awt.geom.Path2D;
+
+/**
+ * Plots a {@link Spectrum.Psd} in dB against frequency in multiples of the bit rate, with the
+ * share of power near DC and the 90% power bandwidth, the figures that separate the line codes.
+ */
+public final class SpectrumPanel extends JPanel {
+    private static final Color GRID_COLOR = new Color(80, 80, 80);
+    private static final Stroke GRID_STROKE =
+            new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0f, new float[]{4f, 4f}, 0f);
+    private static final Stroke TRACE_STROKE = new BasicStroke(1.5f);
+    /** Vertical range below the highest gridline. */
+    private static final double RANGE_DB = 60;
+    /** Power below this frequency (in bit rates) counts as DC content. */
+    public static final double LOW_FREQUENCY = 0.05;
+
+    private final Path2D.Double path = new Path2D.Double();
+    private Spectrum.Psd psd;
+    private Waveform source;
+    private String label = "";
+
+    public SpectrumPanel() {
+        setBackground(Color.black);
+        setBorder(new TitledBorder("Power Spectral Density"));
+    }
+
+    /** Shows {@code psd}, computed from {@code source}, titled {@code label}. */
+    public void setSpectrum(Spectrum.Psd psd, Waveform source, String label) {
+        this.psd = psd;
+        this.source = source;
+        this.label = label;
+        repaint();
+    }
+
+    /** The waveform the shown spectrum was computed from, or null. */
+    public Waveform source() {
+        return source;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (psd == null || psd.bins() < 2) return;
+        Graphics2D g2 = (Graphics2D) g;
+        Insets in = getInsets();
+        FontMetrics fm = g2.getFontMetrics();
+        Rectangle area = new Rectangle(in.left + 48, in.top + 24, getWidth() - in.left - in.right - 64,
+                getHeight() - in.top - in.bottom - 56);
+        if (area.width <= 0 || area.height <= 0) return;
+
+        double peak = 0;
+        for (int k = 0; k < psd.bins(); k++) peak = Math.max(peak, psd.power(k));
+        if (peak <= 0) return;
+        double top = Math.ceil(10 * Math.log10(peak) / 10) * 10, bottom = top - RANGE_DB;
+        double maxFrequency = psd.frequency(psd.bins() - 1);
+
+        // Grid: every 10 dB and every half bit rate
+        g2.setStroke(GRID_STROKE);
+        for (double db = bottom; db <= top; db += 10) {
+            int y = (int) Math.round(area.y + (top - db) / RANGE_DB * area.height);
+            g2.setColor(GRID_COLOR);
+            g2.drawLine(area.x, y, area.x + area.width, y);
+            g2.setColor(Color.lightGray);
+            String text = String.format("%.0f dB", db);
+            g2.drawString(text, area.x - fm.stringWidth(text) - 4, y + fm.getAscent() / 2);
+        }
+        for (double f = 0; f <= maxFrequency + 1e-9; f += 0.5) {
+            int x = (int) Math.round(area.x + f / maxFrequency * area.width);
+            g2.setColor(GRID_COLOR);
+            g2.drawLine(x, area.y, x, area.y + area.height);
+            g2.setColor(Color.lightGray);
+            String text = String.format("%.1f", f);
+            g2.drawString(text, x - fm.stringWidth(text) / 2, area.y + area.height + fm.getAscent() + 2);
+        }
+        g2.drawString("f / bit rate", area.x + area.width - fm.stringWidth("f / bit rate"),
+                area.y + area.height + 2 * fm.getAscent() + 4);
+
+        path.reset();
+        for (int k = 0; k < psd.bins(); k++) {
+            double db = Math.max(bottom, 10 * Math.log10(Math.max(psd.power(k), Double.MIN_NORMAL)));
+            double x = area.x + psd.frequency(k) / maxFrequency * area.width;
+            double y = area.y + (top - db) / RANGE_DB * area.height;
+            if (k == 0) path.moveTo(x, y);
+            else path.lineTo(x, y);
+        }
+        Shape oldClip = g2.getClip();
+        g2.clip(area);
+        g2.setColor(Color.green);
+        g2.setStroke(TRACE_STROKE);
+        g2.draw(path);
+        g2.setClip(oldClip);
+
+        g2.setColor(Color.white);
+        g2.drawString(String.format("%s   power below %.2f f_b: %.2f%%   90%% of power below %.2f f_b   (%d segments)",
+                label, LOW_FREQUENCY, 100 * psd.fractionBelow(LOW_FREQUENCY), psd.bandwidth(0.9), psd.segments()),
+                area.x, area.y - 6);
+    }
+}
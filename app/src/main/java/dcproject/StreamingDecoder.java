@@ -0,0 +1,279 @@
+package dcproject;
+
+/**
+ * Chunked counterpart of the {@link SignalEngine} decoders. Segments are fed in any number of
+ * {@link #decode} calls and the recovered bits are appended to a {@link BitBuffer}; the decoder
+ * carries the half-bit phase and the previous reference level across calls, so its output
+ * matches {@link SignalEngine#decode} exactly however the waveform is split.
+ * <p>
+ * Every decoder samples the same two points per bit, the first and second half-bit ticks, so the
+ * stream is handled as (first, second) level pairs and a long constant segment turns into a
+ * single bulk {@link #repeat} call.
+ */
+public abstract class StreamingDecoder {
+    private boolean pendingHalf;
+    private int pendingLevel;
+
+    public static StreamingDecoder create(LineCode code) {
+        switch (code) {
+            case NRZ_L: return new Nrzl();
+            case NRZ_I: return new Nrzi();
+            case MANCHESTER: return new Manchester();
+            case DIFF_MANCHESTER: return new DiffManchester();
+            case AMI_B8ZS: return new B8zs();
+            case AMI_HDB3: return new Hdb3();
+            default: return new AmiBase();
+        }
+    }
+
+    /** Decodes segments {@code [from, to)} of {@code wave}. */
+    public final void decode(Waveform wave, int from, int to, BitBuffer out) {
+        for (int i = from; i < to; i++) decode(wave.level(i), wave.end(i) - wave.start(i), out);
+    }
+
+    /** Consumes {@code ticks} half-bit ticks at {@code level}. */
+    public final void decode(int level, int ticks, BitBuffer out) {
+        if (ticks <= 0) return;
+        if (pendingHalf) {
+            pair(pendingLevel, level, out);
+            pendingHalf = false;
+            ticks--;
+        }
+        int pairs = ticks / Waveform.TICKS_PER_BIT;
+        if (pairs > 0) {
+            pair(level, level, out);
+            if (pairs > 1) repeat(level, pairs - 1, out);
+        }
+        if ((ticks & 1) != 0) {
+            pendingHalf = true;
+            pendingLevel = level;
+        }
+    }
+
+    /** Returns to the initial state; a dangling half bit is dropped like the batch decoders do. */
+    public void reset() {
+        pendingHalf = false;
+    }
+
+    /**
+     * Ends the stream: appends any bits still held back (only the B8ZS and HDB3 decoders hold
+     * any) and drops a dangling half bit. {@link #codeViolations()} stays readable; call
+     * {@link #reset()} before decoding another stream.
+     */
+    public void finish(BitBuffer out) {
+        pendingHalf = false;
+    }
+
+    /**
+     * Bipolar violations so far that are not part of a B8ZS or HDB3 substitution, i.e. line
+     * errors; always 0 for the other codes.
+     */
+    public long codeViolations() {
+        return 0;
+    }
+
+    /** One bit period with the given first and second half levels. */
+    abstract void pair(int first, int second, BitBuffer out);
+
+    /** {@code count} further bit periods at a constant level, following a {@link #pair} at that level. */
+    abstract void repeat(int level, int count, BitBuffer out);
+
+    private static final class Nrzl extends StreamingDecoder {
+        @Override
+        void pair(int first, int second, BitBuffer out) {
+            out.append(first > 0 ? 1 : 0);
+        }
+
+        @Override
+        void repeat(int level, int count, BitBuffer out) {
+            out.appendRepeated(level > 0 ? 1 : 0, count);
+        }
+    }
+
+    /** A 1 is a level change between the ends of consecutive bits; the first bit compares against its own start. */
+    private static final class Nrzi extends StreamingDecoder {
+        private boolean started;
+        private int last;
+
+        @Override
+        void pair(int first, int second, BitBuffer out) {
+            if (!started) {
+                last = first;
+                started = true;
+            }
+            out.append(second != last ? 1 : 0);
+            last = second;
+        }
+
+        @Override
+        void repeat(int level, int count, BitBuffer out) {
+            out.appendRepeated(0, count);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            started = false;
+        }
+    }
+
+    private static final class Manchester extends StreamingDecoder {
+        @Override
+        void pair(int first, int second, BitBuffer out) {
+            out.append(first > second ? 1 : 0);
+        }
+
+        @Override
+        void repeat(int level, int count, BitBuffer out) {
+            out.appendRepeated(0, count);
+        }
+    }
+
+    /** A 1 is the absence of a transition at the bit start; the first bit compares against itself. */
+    private static final class DiffManchester extends StreamingDecoder {
+        private boolean started;
+        private int lastMid;
+
+        @Override
+        void pair(int first, int second, BitBuffer out) {
+            if (!started) {
+                lastMid = first;
+                started = true;
+            }
+            out.append(first == lastMid ? 1 : 0);
+            lastMid = first;
+        }
+
+        @Override
+        void repeat(int level, int count, BitBuffer out) {
+            out.appendRepeated(1, count);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            started = false;
+        }
+    }
+
+    private static final class AmiBase extends StreamingDecoder {
+        @Override
+        void pair(int first, int second, BitBuffer out) {
+            out.append(first != 0 ? 1 : 0);
+        }
+
+        @Override
+        void repeat(int level, int count, BitBuffer out) {
+            out.appendRepeated(level != 0 ? 1 : 0, count);
+        }
+    }
+
+    /**
+     * AMI with B8ZS or HDB3 substitutions undone in a single pass. The last {@code window} levels
+     * are held back in a shift register, two bits per level, before they leave as AMI marks; a
+     * pulse that completes the code's substitution pattern turns the whole register into zeros
+     * instead. A bipolar violation is a pulse with the polarity of the pulse before it; those
+     * not explained by a substitution are counted as code violations.
+     */
+    private abstract static class Descrambler extends StreamingDecoder {
+        private final int window, mask, violationsPerSubstitution;
+        /** Held levels, newest in the low bits: 0 for zero, 1 for +1, 3 for -1 (the level's low two bits). */
+        int levels, held;
+        /** Last pulse seen, violations included, and last pulse to leave the register (or be substituted). */
+        int lastPulse = -1, outer = -1;
+        private long violations, substitutions;
+
+        Descrambler(int window, int violationsPerSubstitution) {
+            this.window = window;
+            this.mask = (1 << 2 * window) - 1;
+            this.violationsPerSubstitution = violationsPerSubstitution;
+        }
+
+        /** Whether the register, with {@code level} just pushed, holds a substitution. */
+        abstract boolean substituted(int level, boolean violation);
+
+        @Override
+        void pair(int first, int second, BitBuffer out) {
+            if (held == window) emitOldest(out);
+            held++;
+            levels = (levels << 2 | (first & 3)) & mask;
+            if (first == 0) return;
+            boolean violation = first == lastPulse;
+            if (violation) violations++;
+            lastPulse = first;
+            if (substituted(first, violation)) {
+                out.appendRepeated(0, window);
+                levels = 0;
+                held = 0;
+                outer = first;
+                substitutions++;
+            }
+        }
+
+        @Override
+        void repeat(int level, int count, BitBuffer out) {
+            if (level == 0 && count >= window) {
+                // a zero run flushes the register and can complete no pattern, which end in pulses
+                while (held > 0) emitOldest(out);
+                out.appendRepeated(0, count - window);
+                levels = 0;
+                held = window;
+            } else {
+                for (int i = 0; i < count; i++) pair(level, level, out);
+            }
+        }
+
+        private void emitOldest(BitBuffer out) {
+            int oldest = levels >>> 2 * --held & 3;
+            out.append(oldest != 0 ? 1 : 0);
+            if (oldest != 0) outer = oldest == 1 ? 1 : -1;
+        }
+
+        @Override
+        public void finish(BitBuffer out) {
+            super.finish(out);
+            while (held > 0) emitOldest(out);
+            levels = 0;
+        }
+
+        @Override
+        public long codeViolations() {
+            return violations - violationsPerSubstitution * substitutions;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            levels = held = 0;
+            lastPulse = outer = -1;
+            violations = substitutions = 0;
+        }
+    }
+
+    /** Eight zeros were sent as {@code 0 0 0 V B 0 V B}, i.e. {@code 0 0 0 v -v 0 -v v} after a pulse {@code v}. */
+    private static final class B8zs extends Descrambler {
+        private static final int AFTER_POSITIVE = 0b00_00_00_01_11_00_11_01, AFTER_NEGATIVE = 0b00_00_00_11_01_00_01_11;
+
+        B8zs() {
+            super(8, 2);
+        }
+
+        @Override
+        boolean substituted(int level, boolean violation) {
+            return held == 8 && levels == (outer > 0 ? AFTER_POSITIVE : AFTER_NEGATIVE);
+        }
+    }
+
+    /** Four zeros were sent as {@code B 0 0 V} or {@code 0 0 0 V}, the violation {@code V} repeating the pulse before it. */
+    private static final class Hdb3 extends Descrambler {
+        Hdb3() {
+            super(4, 1);
+        }
+
+        @Override
+        boolean substituted(int level, boolean violation) {
+            int v = level & 3, first = levels >>> 6;
+            return violation && held == 4 && (levels & 0b111111) == v && (first == 0 || first == v);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package dcproject;
+
+/**
+ * Chunked line encoder for unbounded bit streams. Bits are fed in any number of
+ * {@link #encode} calls and segments go straight to a {@link SegmentSink}; the encoder carries
+ * its state (NRZ-I level, AMI polarity, B8ZS/HDB3 pending zero run) across chunk boundaries, so
+ * memory stays constant and the concatenated output matches {@link SignalEngine#encode} exactly.
+ * Scrambled codes hold back a trailing zero run until they know whether it gets substituted;
+ * call {@link #finish} at end of stream to flush it.
+ */
+public abstract class StreamingEncoder {
+    public static StreamingEncoder create(LineCode code) {
+        switch (code) {
+            case NRZ_L: return new Nrzl();
+            case NRZ_I: return new Nrzi();
+            case MANCHESTER: return new Manchester();
+            case DIFF_MANCHESTER: return new DiffManchester();
+            case AMI: return new Ami();
+            case AMI_B8ZS: return new AmiB8zs();
+            case AMI_HDB3: return new AmiHdb3();
+            default: throw new IllegalArgumentException("Unsupported encoding: " + code);
+        }
+    }
+
+    public final void encode(BitBuffer chunk, SegmentSink out) {
+        encode(chunk, 0, chunk.size(), out);
+    }
+
+    /** Encodes bits {@code [from, to)} of {@code chunk}. */
+    public abstract void encode(BitBuffer chunk, int from, int to, SegmentSink out);
+
+    /** Emits anything held back at end of stream; the encoder is then reset. */
+    public void finish(SegmentSink out) {
+        reset();
+    }
+
+    /** Returns to the initial state of a fresh stream. */
+    public abstract void reset();
+
+    /**
+     * Puts the encoder in the state it has right after a 1 bit or a complete substitution, with
+     * no zeros held back:
+     * {@code level} is the last line level for NRZ-I and Differential Manchester or the last pulse
+     * polarity for the AMI family, and {@code oddPulses} the HDB3 pulse parity since the last
+     * substitution. Lets {@link ParallelEncoder} start a chunk mid-stream.
+     */
+    void resume(int level, boolean oddPulses) { }
+
+    /**
+     * Everything the encoder carries, packed as {@code pendingZeros << 2 | odd << 1 | negative}:
+     * two encoders with equal states emit the same segments for the same bits. Lets
+     * {@link IncrementalEncoder} checkpoint and resume a stream.
+     */
+    long saveState() {
+        return 0;
+    }
+
+    void restoreState(long state) { }
+
+    static long packState(int level, boolean oddPulses, int pendingZeros) {
+        return (long) pendingZeros << 2 | (oddPulses ? 2 : 0) | (level < 0 ? 1 : 0);
+    }
+
+    static int stateLevel(long state) {
+        return (state & 1) != 0 ? -1 : 1;
+    }
+
+    private static final class Nrzl extends StreamingEncoder {
+        @Override
+        public void encode(BitBuffer chunk, int from, int to, SegmentSink out) {
+            for (int i = from; i < to; i++) out.append(chunk.get(i) == 1 ? 1 : -1, Waveform.TICKS_PER_BIT);
+        }
+
+        @Override
+        public void reset() { }
+    }
+
+    private static final class Nrzi extends StreamingEncoder {
+        private int last = 1;
+
+        @Override
+        public void encode(BitBuffer chunk, int from, int to, SegmentSink out) {
+            for (int i = from; i < to; i++) {
+                if (chunk.get(i) == 1) last = -last;
+                out.append(last, Waveform.TICKS_PER_BIT);
+            }
+        }
+
+        @Override
+        public void reset() {
+            last = 1;
+        }
+
+        @Override
+        void resume(int level, boolean oddPulses) {
+            last = level;
+        }
+
+        @Override
+        long saveState() {
+            return packState(last, false, 0);
+        }
+
+        @Override
+        void restoreState(long state) {
+            last = stateLevel(state);
+        }
+    }
+
+    private static final class Manchester extends StreamingEncoder {
+        @Override
+        public void encode(BitBuffer chunk, int from, int to, SegmentSink out) {
+            for (int i = from; i < to; i++) {
+                int first = chunk.get(i) == 1 ? 1 : -1;
+                out.append(first, 1);
+                out.append(-first, 1);
+            }
+        }
+
+        @Override
+        public void reset() { }
+    }
+
+    private static final class DiffManchester extends StreamingEncoder {
+        private int last = 1;
+
+        @Override
+        public void encode(BitBuffer chunk, int from, int to, SegmentSink out) {
+            for (int i = from; i < to; i++) {
+                if (chunk.get(i) == 0) last = -last;
+                out.append(last, 1);
+                out.append(-last, 1);
+            }
+        }
+
+        @Override
+        public void reset() {
+            last = 1;
+        }
+
+        @Override
+        void resume(int level, boolean oddPulses) {
+            last = level;
+        }
+
+        @Override
+        long saveState() {
+            return packState(last, false, 0);
+        }
+
+        @Override
+        void restoreState(long state) {
+            last = stateLevel(state);
+        }
+    }
+
+    private static final class Ami extends StreamingEncoder {
+        private int lastPulse = -1;
+
+        @Override
+        public void encode(BitBuffer chunk, int from, int to, SegmentSink out) {
+            for (int i = from; i < to; i++) {
+                if (chunk.get(i) == 0) {
+                    out.append(0, Waveform.TICKS_PER_BIT);
+                } else {
+                    lastPulse = -lastPulse;
+                    out.append(lastPulse, Waveform.TICKS_PER_BIT);
+                }
+            }
+        }
+
+        @Override
+        public void reset() {
+            lastPulse = -1;
+        }
+
+        @Override
+        void resume(int level, boolean oddPulses) {
+            lastPulse = level;
+        }
+
+        @Override
+        long saveState() {
+            return packState(lastPulse, false, 0);
+        }
+
+        @Override
+        void restoreState(long state) {
+            lastPulse = stateLevel(state);
+        }
+    }
+
+    /** Shared zero-run bookkeeping for the substituting AMI variants. */
+    private abstract static class ScrambledAmi extends StreamingEncoder {
+        private final int runLength;
+        int pendingZeros;
+
+        ScrambledAmi(int runLength) {
+            this.runLength = runLength;
+        }
+
+        @Override
+        public final void encode(BitBuffer chunk, int from, int to, SegmentSink out) {
+            for (int i = from; i < to; i++) {
+                if (chunk.get(i) == 0) {
+                    if (++pendingZeros == runLength) {
+                        substitute(out);
+                        pendingZeros = 0;
+                    }
+                } else {
+                    flushZeros(out);
+                    pulse(out);
+                }
+            }
+        }
+
+        @Override
+        public final void finish(SegmentSink out) {
+            flushZeros(out);
+            super.finish(out);
+        }
+
+        private void flushZeros(SegmentSink out) {
+            if (pendingZeros > 0) out.append(0, pendingZeros * Waveform.TICKS_PER_BIT);
+            pendingZeros = 0;
+        }
+
+        /** Emits the replacement for a complete run of {@code runLength} zeros. */
+        abstract void substitute(SegmentSink out);
+
+        /** Emits a normal mark. */
+        abstract void pulse(SegmentSink out);
+    }
+
+    private static final class AmiB8zs extends ScrambledAmi {
+        // Substitutions end on the polarity they started from, so one value tracks both the last
+        // normal pulse and the last emitted nonzero level
+        private int polarity = -1;
+
+        AmiB8zs() {
+            super(8);
+        }
+
+        @Override
+        void substitute(SegmentSink out) {
+            // 000VB0VB with V = last nonzero polarity
+            int v = polarity;
+            out.append(0, 3 * Waveform.TICKS_PER_BIT);
+            out.append(v, Waveform.TICKS_PER_BIT);
+            out.append(-v, Waveform.TICKS_PER_BIT);
+            out.append(0, Waveform.TICKS_PER_BIT);
+            out.append(-v, Waveform.TICKS_PER_BIT);
+            out.append(v, Waveform.TICKS_PER_BIT);
+        }
+
+        @Override
+        void pulse(SegmentSink out) {
+            polarity = -polarity;
+            out.append(polarity, Waveform.TICKS_PER_BIT);
+        }
+
+        @Override
+        public void reset() {
+            polarity = -1;
+            pendingZeros = 0;
+        }
+
+        @Override
+        void resume(int level, boolean oddPulses) {
+            polarity = level;
+            pendingZeros = 0;
+        }
+
+        @Override
+        long saveState() {
+            return packState(polarity, false, pendingZeros);
+        }
+
+        @Override
+        void restoreState(long state) {
+            polarity = stateLevel(state);
+            pendingZeros = (int) (state >>> 2);
+        }
+    }
+
+    private static final class AmiHdb3 extends ScrambledAmi {
+        private int lastPulse = -1;
+        private boolean oddPulses;
+
+        AmiHdb3() {
+            super(4);
+        }
+
+        @Override
+        void substitute(SegmentSink out) {
+            if (!oddPulses) {
+                // B00V: B alternates normally, V repeats it
+                lastPulse = -lastPulse;
+                out.append(lastPulse, Waveform.TICKS_PER_BIT);
+                out.append(0, 2 * Waveform.TICKS_PER_BIT);
+            } else {
+                // 000V
+                out.append(0, 3 * Waveform.TICKS_PER_BIT);
+            }
+            out.append(lastPulse, Waveform.TICKS_PER_BIT);
+            oddPulses = false;
+        }
+
+        @Override
+        void pulse(SegmentSink out) {
+            lastPulse = -lastPulse;
+            out.append(lastPulse, Waveform.TICKS_PER_BIT);
+            oddPulses = !oddPulses;
+        }
+
+        @Override
+        public void reset() {
+            lastPulse = -1;
+            oddPulses = false;
+            pendingZeros = 0;
+        }
+
+        @Override
+        void resume(int level, boolean oddPulses) {
+            lastPulse = level;
+            this.oddPulses = oddPulses;
+            pendingZeros = 0;
+        }
+
+        @Override
+        long saveState() {
+            return packState(lastPulse, oddPulses, pendingZeros);
+        }
+
+        @Override
+        void restoreState(long state) {
+            lastPulse = stateLevel(state);
+            oddPulses = (state & 2) != 0;
+            pendingZeros = (int) (state >>> 2);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package dcproject;
+
+/**
+ * Progress and cancellation hook polled by long-running loops. Implementations throw
+ * {@link java.util.concurrent.CancellationException} from {@link #update} once the owning task
+ * has been cancelled, which unwinds the loop without any extra checks at the call site.
+ */
+@FunctionalInterface
+public interface TaskProgress {
+    /** Loops report every {@code STEP_MASK + 1} iterations. */
+    int STEP_MASK = 0xFFFF;
+
+    TaskProgress NONE = (done, total) -> { };
+
+    void update(long done, long total);
+}
@@ -0,0 +1,272 @@
+package dcproject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Time-division multiplexing of independent channels onto one line. Every channel is line-coded
+ * with its own {@link LineCode}, one task per channel, and the line carries frames of one slot of
+ * {@code slotBits} bit periods per channel, in channel order; a channel that has run out of bits
+ * idles at level 0 in its slots. {@link #demultiplex} cuts a channel's slots back out of the line
+ * and {@link #decode} decodes every channel, again one task per channel.
+ * <p>
+ * Channel tasks run on virtual threads when the runtime has them (Java 21 and later, found
+ * reflectively so the build still targets 17), else on the common fork-join pool. Each channel is
+ * encoded by {@link ParallelEncoder}, so a few long channels still spread over the cores, and the
+ * line is interleaved in frame ranges on the pool and concatenated.
+ */
+public final class TdmMultiplexer {
+    public static final int DEFAULT_SLOT_BITS = 8;
+    public static final int MAX_CHANNELS = 1024;
+    /** Frames interleaved per fork-join task at least. */
+    private static final int MIN_FRAMES_PER_TASK = 1 << 10;
+    private static final MethodHandle NEW_VIRTUAL_EXECUTOR = findVirtualExecutor();
+
+    private final int slotBits;
+
+    public TdmMultiplexer(int slotBits) {
+        if (slotBits < 1 || slotBits > 1 << 20) throw new IllegalArgumentException("slot bits must be 1 to " + (1 << 20) + ": " + slotBits);
+        this.slotBits = slotBits;
+    }
+
+    public int slotBits() {
+        return slotBits;
+    }
+
+    private static MethodHandle findVirtualExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(java.util.concurrent.Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /** Whether channel tasks get a virtual thread each. */
+    public static boolean usesVirtualThreads() {
+        return NEW_VIRTUAL_EXECUTOR != null;
+    }
+
+    /** Runs {@code job} for every channel index concurrently and waits for all of them. */
+    static void forEachChannel(int channels, ParallelEncoder.ChunkJob job) {
+        if (NEW_VIRTUAL_EXECUTOR == null) {
+            ForkJoinPool.commonPool().invoke(new ParallelEncoder.ChunkTask(0, channels, job));
+            return;
+        }
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService) NEW_VIRTUAL_EXECUTOR.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+        try {
+            List<Future<?>> futures = new ArrayList<>(channels);
+            for (int c = 0; c < channels; c++) {
+                int channel = c;
+                futures.add(executor.submit(() -> job.run(channel)));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Encodes every channel and interleaves the signals into frames. */
+    public Line multiplex(List<Channel> channels, TaskProgress progress) {
+        int n = channels.size();
+        if (n == 0 || n > MAX_CHANNELS) throw new IllegalArgumentException("channels must be 1 to " + MAX_CHANNELS + ": " + n);
+        long longest = 0, sum = 0;
+        for (Channel c : channels) {
+            longest = Math.max(longest, c.bits().size());
+            sum += c.bits().size();
+        }
+        long total = sum;
+        if (longest == 0) throw new IllegalArgumentException("no bits in any channel");
+        int frames = (int) ((longest + slotBits - 1) / slotBits);
+        if ((long) frames * n * slotBits * Waveform.TICKS_PER_BIT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("line too long: " + frames + " frames of " + n + " slots");
+        }
+
+        Waveform[] signals = new Waveform[n];
+        ParallelEncoder.Progress done = new ParallelEncoder.Progress(progress, 2 * total);
+        forEachChannel(n, c -> {
+            Channel channel = channels.get(c);
+            signals[c] = ParallelEncoder.encode(channel.code(), channel.bits(), TaskProgress.NONE);
+            done.advance(channel.bits().size());
+        });
+
+        int ranges = Math.max(1, Math.min(ForkJoinPool.commonPool().getParallelism() * 4, frames / MIN_FRAMES_PER_TASK));
+        Waveform[] parts = new Waveform[ranges];
+        ForkJoinPool.commonPool().invoke(new ParallelEncoder.ChunkTask(0, ranges, r -> {
+            int from = (int) ((long) frames * r / ranges), to = (int) ((long) frames * (r + 1) / ranges);
+            Waveform part = new Waveform();
+            // where each channel's previous slot ended, so consecutive slots are found without a search
+            int[] hints = new int[n];
+            for (int f = from; f < to; f++) {
+                for (int c = 0; c < n; c++) hints[c] = appendSlot(part, signals[c], f, hints[c]);
+            }
+            parts[r] = part;
+            done.advance((long) (to - from) * total / frames);
+        }));
+        int segments = 0;
+        for (Waveform part : parts) segments += part.segmentCount();
+        Waveform line = new Waveform(segments);
+        for (Waveform part : parts) line.append(part);
+        return new Line(List.copyOf(channels), signals, line, slotBits, frames);
+    }
+
+    /** Appends frame {@code frame}'s slot of {@code signal}, padded with idle ticks past its end; returns the next segment hint. */
+    private int appendSlot(Waveform out, Waveform signal, int frame, int hint) {
+        int slotTicks = slotBits * Waveform.TICKS_PER_BIT;
+        long from = (long) frame * slotTicks;
+        int end = (int) Math.min(signal.totalTicks(), from + slotTicks);
+        if (from < end) hint = out.append(signal, (int) from, end, hint);
+        int idle = (int) (from + slotTicks - Math.max(from, end));
+        if (idle > 0) out.append(0, idle);
+        return hint;
+    }
+
+    /** Channel {@code channel}'s signal, {@code bits} bit periods long, cut out of a line of {@code channels} channels. */
+    public Waveform demultiplex(Waveform line, int channels, int channel, int bits) {
+        Objects.checkIndex(channel, channels);
+        int slotTicks = slotBits * Waveform.TICKS_PER_BIT, frameTicks = channels * slotTicks, ticks = bits * Waveform.TICKS_PER_BIT;
+        Waveform out = new Waveform();
+        for (int f = 0, taken = 0, hint = 0; taken < ticks; f++, taken += slotTicks) {
+            int from = f * frameTicks + channel * slotTicks;
+            hint = out.append(line, from, from + Math.min(slotTicks, ticks - taken), hint);
+        }
+        return out;
+    }
+
+    /** Demultiplexes and decodes every channel of {@code layout} from {@code line}, one task per channel. */
+    public BitBuffer[] decode(Waveform line, List<Channel> layout, TaskProgress progress) {
+        int n = layout.size();
+        BitBuffer[] out = new BitBuffer[n];
+        long total = 0;
+        for (Channel c : layout) total += c.bits().size();
+        ParallelEncoder.Progress done = new ParallelEncoder.Progress(progress, total);
+        forEachChannel(n, c -> {
+            Channel channel = layout.get(c);
+            Waveform signal = demultiplex(line, n, c, channel.bits().size());
+            out[c] = SignalEngine.decode(channel.code(), signal, TaskProgress.NONE);
+            done.advance(channel.bits().size());
+        });
+        return out;
+    }
+
+    /** Bits of {@code decoded} that differ from {@code sent}, counting missing or extra bits as errors. */
+    static long bitErrors(BitBuffer sent, BitBuffer decoded) {
+        long errors = Math.abs(sent.size() - decoded.size());
+        for (int w = 0, n = Math.min(sent.wordCount(), decoded.wordCount()); w < n; w++) {
+            long mask = -1L;
+            int bits = Math.min(sent.size(), decoded.size()) - (w << 6);
+            if (bits <= 0) break;
+            if (bits < 64) mask = -1L >>> (64 - bits);
+            errors += Long.bitCount((sent.word(w) ^ decoded.word(w)) & mask);
+        }
+        return errors;
+    }
+
+    /** One input stream and the code its slots carry. */
+    public static final class Channel {
+        private final String name;
+        private final LineCode code;
+        private final BitBuffer bits;
+
+        public Channel(String name, LineCode code, BitBuffer bits) {
+            this.name = Objects.requireNonNull(name);
+            this.code = Objects.requireNonNull(code);
+            this.bits = Objects.requireNonNull(bits);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public LineCode code() {
+            return code;
+        }
+
+        public BitBuffer bits() {
+            return bits;
+        }
+    }
+
+    /** A multiplexed line and the channel signals it was built from. */
+    public static final class Line {
+        private final List<Channel> channels;
+        private final Waveform[] signals;
+        private final Waveform waveform;
+        private final int slotBits, frames;
+
+        Line(List<Channel> channels, Waveform[] signals, Waveform waveform, int slotBits, int frames) {
+            this.channels = channels;
+            this.signals = signals;
+            this.waveform = waveform;
+            this.slotBits = slotBits;
+            this.frames = frames;
+        }
+
+        public List<Channel> channels() {
+            return channels;
+        }
+
+        /** Channel {@code c}'s own line signal, before multiplexing. */
+        public Waveform signal(int c) {
+            return signals[c];
+        }
+
+        public Waveform waveform() {
+            return waveform;
+        }
+
+        public int slotBits() {
+            return slotBits;
+        }
+
+        public int frames() {
+            return frames;
+        }
+
+        /** Bit periods per frame. */
+        public int frameBits() {
+            return slotBits * channels.size();
+        }
+
+        /**
+         * Channel {@code c}'s slots at their place on the line, idle elsewhere: one trace of the
+         * stacked view, on the same time axis as {@link #waveform}.
+         */
+        public Waveform lane(int c) {
+            Objects.checkIndex(c, channels.size());
+            int slotTicks = slotBits * Waveform.TICKS_PER_BIT, frameTicks = slotTicks * channels.size();
+            Waveform out = new Waveform(signals[c].segmentCount() + 2 * frames);
+            for (int f = 0, hint = 0; f < frames; f++) {
+                int from = f * frameTicks + c * slotTicks;
+                if (from > out.totalTicks()) out.append(0, from - out.totalTicks());
+                hint = out.append(waveform, from, from + slotTicks, hint);
+            }
+            int rest = waveform.totalTicks() - out.totalTicks();
+            if (rest > 0) out.append(0, rest);
+            return out;
+        }
+    }
+}
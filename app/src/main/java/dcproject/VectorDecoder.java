@@ -0,0 +1,96 @@
+package dcproject;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD decoders on {@code jdk.incubator.vector} for half-bit level arrays ({@code slots[2b]} and
+ * {@code slots[2b + 1]} are the two halves of bit {@code b}), the form sampled or simulated
+ * signals arrive in. The bytes are reinterpreted as shorts so each lane holds one bit's two
+ * halves; every sampling rule is then one lane-wise comparison whose mask is packed straight into
+ * the {@link BitBuffer}. Masks are packed with vector shifts rather than
+ * {@link VectorMask#toLong()}, which JDK 17 does not intrinsify.
+ * <p>
+ * Only usable when the JVM runs with {@code --add-modules jdk.incubator.vector};
+ * {@link SignalEngine#decodeSlots} loads this class reflectively and otherwise runs the scalar
+ * loop, with identical results.
+ */
+public final class VectorDecoder {
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    private VectorDecoder() { }
+
+    /** Bits decoded per vector step. */
+    public static int lanes() {
+        return SHORTS.length();
+    }
+
+    public static BitBuffer decodeSlots(LineCode code, byte[] slots, int numBits, TaskProgress progress) {
+        BitBuffer out = new BitBuffer(numBits);
+        if (numBits == 0) return out;
+        // bit 0 is its own reference; every later bit loads its predecessor's pair one short back
+        out.append(SignalEngine.decodeSlot(code, slots, 0, slots[0]));
+        long[] packed = new long[SHORTS.length() / 4];
+        int lanes = SHORTS.length(), b = 1;
+        for (; b + lanes <= numBits; b += lanes) {
+            if ((b & TaskProgress.STEP_MASK) < lanes) progress.update(b, numBits);
+            ShortVector pair = ByteVector.fromArray(BYTES, slots, 2 * b).reinterpretAsShorts();
+            VectorMask<Short> mask;
+            switch (code) {
+                case NRZ_L:
+                    mask = first(pair).compare(VectorOperators.GT, (short) 0);
+                    break;
+                case NRZ_I: {
+                    ShortVector prev = ByteVector.fromArray(BYTES, slots, 2 * b - 2).reinterpretAsShorts();
+                    mask = second(pair).compare(VectorOperators.NE, second(prev));
+                    break;
+                }
+                case MANCHESTER:
+                    mask = first(pair).compare(VectorOperators.GT, second(pair));
+                    break;
+                case DIFF_MANCHESTER: {
+                    ShortVector prev = ByteVector.fromArray(BYTES, slots, 2 * b - 2).reinterpretAsShorts();
+                    mask = first(pair).compare(VectorOperators.EQ, first(prev));
+                    break;
+                }
+                default:
+                    mask = first(pair).compare(VectorOperators.NE, (short) 0);
+                    break;
+            }
+            out.appendBits(pack(mask, packed), lanes);
+        }
+        for (; b < numBits; b++) {
+            int reference = code == LineCode.NRZ_I ? slots[2 * b - 1] : slots[2 * b - 2];
+            out.append(SignalEngine.decodeSlot(code, slots, b, reference));
+        }
+        return out;
+    }
+
+    /** The sign-extended low byte (first half) of each lane; the reinterpretation is little-endian. */
+    private static ShortVector first(ShortVector pair) {
+        return pair.lanewise(VectorOperators.LSHL, 8).lanewise(VectorOperators.ASHR, 8);
+    }
+
+    private static ShortVector second(ShortVector pair) {
+        return pair.lanewise(VectorOperators.ASHR, 8);
+    }
+
+    /**
+     * Packs the mask to one bit per lane: as 0/1 shorts viewed as longs, two shift-or folds
+     * gather each long's four flags into its low nibble.
+     */
+    private static long pack(VectorMask<Short> mask, long[] packed) {
+        LongVector v = ShortVector.zero(SHORTS).blend((short) 1, mask).reinterpretAsLongs();
+        v = v.or(v.lanewise(VectorOperators.LSHR, 15));
+        v = v.or(v.lanewise(VectorOperators.LSHR, 30));
+        v.and(0xFL).intoArray(packed, 0);
+        long bits = 0;
+        for (int j = 0; j < packed.length; j++) bits |= packed[j] << (4 * j);
+        return bits;
+    }
+}
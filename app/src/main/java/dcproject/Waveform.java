@@ -0,0 +1,251 @@
+package dcproject;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Run-length encoded line waveform. The signal is a sequence of constant-level segments on a
+ * half-bit tick grid ({@link #TICKS_PER_BIT} ticks per bit period); each segment stores a
+ * byte level code (-1, 0 or +1) and its cumulative end tick. Adjacent segments never share a
+ * level, so a long run of equal bits costs a single segment.
+ */
+public final class Waveform implements SegmentSink {
+    public static final int TICKS_PER_BIT = 2;
+
+    private byte[] levels;
+    private int[] ends;
+    private int count;
+
+    public Waveform() {
+        this(16);
+    }
+
+    public Waveform(int capacitySegments) {
+        int cap = Math.max(1, capacitySegments);
+        levels = new byte[cap];
+        ends = new int[cap];
+    }
+
+    /** Extends the waveform by {@code ticks} half-bit ticks at {@code level}, merging with the last segment. */
+    @Override
+    public void append(int level, int ticks) {
+        if (level < -1 || level > 1) throw new IllegalArgumentException("level must be -1, 0 or 1: " + level);
+        if (ticks <= 0) throw new IllegalArgumentException("ticks must be positive: " + ticks);
+        if (count > 0 && levels[count - 1] == level) {
+            ends[count - 1] += ticks;
+            return;
+        }
+        if (count == levels.length) grow();
+        ends[count] = (count == 0 ? 0 : ends[count - 1]) + ticks;
+        levels[count++] = (byte) level;
+    }
+
+    /** Appends every segment of {@code other}, shifted to start at the current end. */
+    public void append(Waveform other) {
+        if (other.count == 0) return;
+        int from = 0, offset = totalTicks();
+        if (count > 0 && levels[count - 1] == other.levels[0]) {
+            ends[count - 1] += other.ends[0];
+            from = 1;
+        }
+        int n = other.count - from;
+        ensureCapacity(count + n);
+        System.arraycopy(other.levels, from, levels, count, n);
+        for (int i = 0; i < n; i++) ends[count + i] = other.ends[from + i] + offset;
+        count += n;
+    }
+
+    /** Appends ticks {@code [fromTick, toTick)} of {@code other}; whole segments are copied in bulk. */
+    public void append(Waveform other, int fromTick, int toTick) {
+        append(other, fromTick, toTick, false);
+    }
+
+    /** Appends ticks {@code [fromTick, toTick)} of {@code other}, with every level negated if {@code invert}. */
+    public void append(Waveform other, int fromTick, int toTick, boolean invert) {
+        Objects.checkFromToIndex(fromTick, toTick, other.totalTicks());
+        if (fromTick == toTick) return;
+        appendSlice(other, other.segmentAt(fromTick + 0.5), other.segmentAt(toTick - 0.5), fromTick, toTick, invert ? -1 : 1);
+    }
+
+    /**
+     * Appends ticks {@code [fromTick, toTick)} of {@code other}, looking for the segment holding
+     * {@code fromTick} from segment {@code hint} on, and returns the segment holding the last tick:
+     * the hint for a following slice, so cutting consecutive slices scans each segment once.
+     */
+    public int append(Waveform other, int fromTick, int toTick, int hint) {
+        Objects.checkFromToIndex(fromTick, toTick, other.totalTicks());
+        Objects.checkIndex(hint, Math.max(1, other.count));
+        if (fromTick == toTick) return hint;
+        int first = other.segmentFrom(hint, fromTick + 0.5), last = other.segmentFrom(first, toTick - 0.5);
+        appendSlice(other, first, last, fromTick, toTick, 1);
+        return last;
+    }
+
+    /** {@link #segmentAt}, galloping forward from segment {@code hint}: O(log distance) rather than O(log count). */
+    private int segmentFrom(int hint, double tick) {
+        if (hint > 0 && ends[hint - 1] >= tick) return segmentAt(tick);
+        int lo = hint, step = 1;
+        while (lo + step < count && ends[lo + step] < tick) {
+            lo += step;
+            step <<= 1;
+        }
+        int hi = Math.min(count - 1, lo + step);
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] < tick) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Appends ticks {@code [fromTick, toTick)} of {@code other}, which run from segment {@code first} to {@code last}. */
+    private void appendSlice(Waveform other, int first, int last, int fromTick, int toTick, int sign) {
+        if (first == last) {
+            append(sign * other.levels[first], toTick - fromTick);
+            return;
+        }
+        append(sign * other.levels[first], other.ends[first] - fromTick);
+        int n = last - first - 1, offset = totalTicks() - other.ends[first];
+        ensureCapacity(count + n + 1);
+        if (sign < 0) {
+            for (int i = 0; i < n; i++) levels[count + i] = (byte) -other.levels[first + 1 + i];
+        } else {
+            System.arraycopy(other.levels, first + 1, levels, count, n);
+        }
+        for (int i = 0; i < n; i++) ends[count + i] = other.ends[first + 1 + i] + offset;
+        count += n;
+        append(sign * other.levels[last], toTick - other.ends[last - 1]);
+    }
+
+    /**
+     * Appends a precomputed run list: {@code runs[at]} runs follow, each packed as
+     * {@code ticks << 2 | (level + 1)} and already merged among themselves.
+     */
+    void appendRuns(int[] runs, int at) {
+        int n = runs[at];
+        if (n == 0) return;
+        ensureCapacity(count + n);
+        int end = count == 0 ? 0 : ends[count - 1];
+        int k = 1, first = runs[at + 1];
+        if (count > 0 && levels[count - 1] == (first & 3) - 1) {
+            end += first >>> 2;
+            ends[count - 1] = end;
+            k = 2;
+        }
+        for (; k <= n; k++) {
+            int run = runs[at + k];
+            end += run >>> 2;
+            levels[count] = (byte) ((run & 3) - 1);
+            ends[count++] = end;
+        }
+    }
+
+    /** One full bit period at {@code level}. */
+    public void appendBit(int level) {
+        append(level, TICKS_PER_BIT);
+    }
+
+    /** One bit period split into two half-bit levels (Manchester style). */
+    public void appendHalves(int first, int second) {
+        append(first, 1);
+        append(second, 1);
+    }
+
+    public int segmentCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int level(int segment) {
+        Objects.checkIndex(segment, count);
+        return levels[segment];
+    }
+
+    public int start(int segment) {
+        Objects.checkIndex(segment, count);
+        return segment == 0 ? 0 : ends[segment - 1];
+    }
+
+    public int end(int segment) {
+        Objects.checkIndex(segment, count);
+        return ends[segment];
+    }
+
+    public int totalTicks() {
+        return count == 0 ? 0 : ends[count - 1];
+    }
+
+    public int bitCount() {
+        return totalTicks() / TICKS_PER_BIT;
+    }
+
+    /** One level per half-bit tick over the whole bits, the input of {@link SignalEngine#decodeSlots}. */
+    public byte[] halfBitLevels() {
+        byte[] slots = new byte[bitCount() * TICKS_PER_BIT];
+        for (int s = 0, from = 0; s < count && from < slots.length; from = ends[s++]) {
+            Arrays.fill(slots, from, Math.min(ends[s], slots.length), levels[s]);
+        }
+        return slots;
+    }
+
+    /** Length of the waveform in bit periods. */
+    public double duration() {
+        return totalTicks() / (double) TICKS_PER_BIT;
+    }
+
+    /** Index of the segment holding {@code tick}; a tick on a boundary belongs to the earlier segment. */
+    public int segmentAt(double tick) {
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] < tick) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Level at {@code bitTime} (in bit periods), found by binary search over the segment ends. */
+    public int levelAt(double bitTime) {
+        if (count == 0) throw new NoSuchElementException("empty waveform");
+        return levels[segmentAt(bitTime * TICKS_PER_BIT)];
+    }
+
+    /** Sequential reader for sampling at non-decreasing times in amortized O(1) per sample. */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private int segment;
+
+        private Cursor() { }
+
+        public int levelAt(double bitTime) {
+            if (count == 0) throw new NoSuchElementException("empty waveform");
+            double tick = bitTime * TICKS_PER_BIT;
+            // Moving backwards is allowed but costs a binary search
+            if (segment >= count || (segment > 0 && tick <= ends[segment - 1])) segment = segmentAt(tick);
+            while (segment < count - 1 && ends[segment] < tick) segment++;
+            return levels[segment];
+        }
+    }
+
+    private void grow() {
+        ensureCapacity(levels.length + 1);
+    }
+
+    private void ensureCapacity(int segments) {
+        if (segments <= levels.length) return;
+        int cap = Math.max(segments, levels.length + Math.max(16, levels.length >> 1));
+        levels = Arrays.copyOf(levels, cap);
+        ends = Arrays.copyOf(ends, cap);
+    }
+}
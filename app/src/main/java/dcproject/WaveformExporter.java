@@ -0,0 +1,376 @@
+package dcproject;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Writes a waveform to a file as segments arrive, so it can sit behind any encoder as its
+ * {@link SegmentSink} and an export never holds the signal. Repeated levels are merged and every
+ * level change becomes one record. Records are formatted byte by byte into a reusable array,
+ * which is copied into one reusable direct buffer and written through a {@link FileChannel} each
+ * time it fills; no {@code String} is built per record.
+ * <ul>
+ * <li>{@link Format#VCD}: a value change dump with one {@code real} variable, {@code level}, and
+ * one time unit per half-bit tick, for GTKWave and logic analyzer software</li>
+ * <li>{@link Format#CSV}: {@code time,level} rows with times in bit periods, as {@link SignalCli}
+ * writes them, and a closing row at the end time</li>
+ * <li>{@link Format#COMPACT}: the binary format {@link #read} loads back. After the header
+ * ({@code DCWF}, a version byte, {@link Waveform#TICKS_PER_BIT} as a byte, then the title as a
+ * varint length and UTF-8 bytes) each segment is one unsigned LEB128 varint: the first is
+ * {@code ticks << 2 | (level + 1)}, the others {@code ticks << 1 | step}, where the level moves
+ * on cyclically through -1, 0, +1 by one place for step 0 and two for step 1. Short runs take
+ * one byte. A 0 ends the records, followed by the segment and tick counts as varints.</li>
+ * </ul>
+ * Instances are not thread safe.
+ */
+public final class WaveformExporter implements SegmentSink, Closeable {
+    public enum Format {
+        VCD("vcd"), CSV("csv"), COMPACT("dcwf");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        /** File name extension, without the dot. */
+        public String extension() {
+            return extension;
+        }
+
+        /** A format name or its extension, ignoring case. */
+        public static Format parse(String name) {
+            for (Format f : values()) {
+                if (f.name().equalsIgnoreCase(name) || f.extension.equalsIgnoreCase(name)) return f;
+            }
+            throw new IllegalArgumentException("Unknown export format: " + name);
+        }
+
+        /** The format a file name's extension asks for. */
+        public static Format of(Path path) {
+            String name = path.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            if (dot < 0) throw new IllegalArgumentException("no extension to pick an export format by: " + name);
+            return parse(name.substring(dot + 1));
+        }
+    }
+
+    public static final int BUFFER_BYTES = 1 << 16;
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'D', 'C', 'W', 'F'};
+    /** Longest record: a VCD time and value change, or a varint of a long. */
+    private static final int MAX_RECORD_BYTES = 48;
+    private static final int NO_LEVEL = Integer.MIN_VALUE;
+    /** "00" to "99", two digits per division when formatting times. */
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private final Format format;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    /** Records are put together here, then copied into {@link #buffer} in bulk. */
+    private final byte[] bytes = new byte[BUFFER_BYTES];
+    private final byte[] digits = new byte[20];
+    private int pos;
+
+    /** Start tick of the pending run. */
+    private long tick;
+    private long run, segments;
+    private int level = NO_LEVEL, previous = NO_LEVEL;
+    private boolean closed;
+
+    /** Creates or truncates {@code path} and writes the header; {@code title} names the signal in it. */
+    public WaveformExporter(Path path, Format format, String title) throws IOException {
+        this.format = format;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            header(title);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Writes all of {@code wave} to {@code path} in {@code format}. */
+    public static void export(Waveform wave, Path path, Format format, String title, TaskProgress progress) throws IOException {
+        try (WaveformExporter out = new WaveformExporter(path, format, title)) {
+            out.append(wave, progress);
+        }
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    /** Level changes written so far. */
+    public long segments() {
+        return segments;
+    }
+
+    @Override
+    public void append(int level, int ticks) {
+        if (level < -1 || level > 1) throw new IllegalArgumentException("level must be -1, 0 or 1: " + level);
+        if (ticks <= 0) throw new IllegalArgumentException("ticks must be positive: " + ticks);
+        if (level == this.level) {
+            run += ticks;
+            return;
+        }
+        try {
+            if (run > 0) record();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.level = level;
+        run = ticks;
+    }
+
+    /** Appends every segment of {@code wave}, reporting progress in segments. */
+    public void append(Waveform wave, TaskProgress progress) {
+        for (int i = 0, n = wave.segmentCount(); i < n; i++) {
+            append(wave.level(i), wave.end(i) - wave.start(i));
+            if ((i & TaskProgress.STEP_MASK) == TaskProgress.STEP_MASK) progress.update(i, n);
+        }
+    }
+
+    /** Writes the pending run and the trailer, then closes the file. */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (run > 0) record();
+            trailer();
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // ==== FORMATS ====
+    private void header(String title) throws IOException {
+        switch (format) {
+            case VCD:
+                ascii("$comment ");
+                ascii(title.replace("$end", ""));
+                ascii(" $end\n$version dcproject $end\n$comment one time unit per half-bit tick, ");
+                number(Waveform.TICKS_PER_BIT);
+                ascii(" per bit $end\n$timescale 1 ns $end\n$scope module line $end\n$var real 1 ! level $end\n"
+                        + "$upscope $end\n$enddefinitions $end\n");
+                break;
+            case CSV:
+                ascii("time,level\n");
+                break;
+            case COMPACT:
+                byte[] name = title.getBytes(StandardCharsets.UTF_8);
+                room(MAGIC.length + 2 + MAX_RECORD_BYTES);
+                for (byte b : MAGIC) put(b);
+                put(VERSION);
+                put(Waveform.TICKS_PER_BIT);
+                varint(name.length);
+                for (byte b : name) {
+                    room(1);
+                    put(b);
+                }
+                break;
+        }
+    }
+
+    /** The pending run, starting at {@link #tick}. */
+    private void record() throws IOException {
+        room(MAX_RECORD_BYTES);
+        switch (format) {
+            case VCD:
+                put('#');
+                number(tick);
+                put('\n');
+                put('r');
+                level(level);
+                put(' ');
+                put('!');
+                put('\n');
+                break;
+            case CSV:
+                time(tick);
+                put(',');
+                level(level);
+                put('\n');
+                break;
+            case COMPACT:
+                if (previous == NO_LEVEL) varint(run << 2 | (level + 1));
+                else varint(run << 1 | ((level - previous + 3) % 3 == 1 ? 0 : 1));
+                break;
+        }
+        previous = level;
+        tick += run;
+        run = 0;
+        segments++;
+    }
+
+    private void trailer() throws IOException {
+        room(3 * MAX_RECORD_BYTES);
+        switch (format) {
+            case VCD:
+                put('#');
+                number(tick);
+                put('\n');
+                break;
+            case CSV:
+                if (segments == 0) break;
+                time(tick);
+                put(',');
+                level(previous);
+                put('\n');
+                break;
+            case COMPACT:
+                varint(0);
+                varint(segments);
+                varint(tick);
+                break;
+        }
+    }
+
+    // ==== BYTES ====
+    /** Makes room for {@code n} more bytes, writing out what is staged if needed. */
+    private void room(int n) throws IOException {
+        if (bytes.length - pos < n) drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.clear();
+        buffer.put(bytes, 0, pos).flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        pos = 0;
+    }
+
+    private void put(int b) {
+        bytes[pos++] = (byte) b;
+    }
+
+    private void ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            room(1);
+            put(s.charAt(i));
+        }
+    }
+
+    private void level(int level) {
+        if (level < 0) put('-');
+        put('0' + Math.abs(level));
+    }
+
+    /** Decimal digits of {@code n}, which is not negative. */
+    private void number(long n) {
+        int i = digits.length;
+        while (n >= 100) {
+            int pair = (int) (n % 100) * 2;
+            n /= 100;
+            digits[--i] = DIGIT_PAIRS[pair + 1];
+            digits[--i] = DIGIT_PAIRS[pair];
+        }
+        if (n >= 10) {
+            digits[--i] = DIGIT_PAIRS[(int) n * 2 + 1];
+            digits[--i] = DIGIT_PAIRS[(int) n * 2];
+        } else {
+            digits[--i] = (byte) ('0' + n);
+        }
+        System.arraycopy(digits, i, bytes, pos, digits.length - i);
+        pos += digits.length - i;
+    }
+
+    /** {@code tick} in bit periods: whole, or with {@code .5}. */
+    private void time(long tick) {
+        number(tick / Waveform.TICKS_PER_BIT);
+        if (tick % Waveform.TICKS_PER_BIT != 0) {
+            put('.');
+            put('5');
+        }
+    }
+
+    private void varint(long n) {
+        while ((n & ~0x7FL) != 0) {
+            put((int) (n & 0x7F | 0x80));
+            n >>>= 7;
+        }
+        put((int) n);
+    }
+
+    // ==== READING ====
+    /** Loads a {@link Format#COMPACT} file, checking its trailer. */
+    public static Waveform read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader in = new Reader(channel);
+            for (byte b : MAGIC) if (in.next() != b) throw new IOException(path + " is not a waveform export");
+            int version = in.next(), ticksPerBit = in.next();
+            if (version != VERSION || ticksPerBit != Waveform.TICKS_PER_BIT) {
+                throw new IOException(String.format(Locale.ROOT, "unsupported export version %d with %d ticks per bit", version, ticksPerBit));
+            }
+            for (long n = in.varint(); n > 0; n--) in.next();
+            Waveform wave = new Waveform();
+            int level = NO_LEVEL;
+            for (long v = in.varint(); v != 0; v = in.varint()) {
+                long ticks;
+                if (level == NO_LEVEL) {
+                    ticks = v >>> 2;
+                    level = (int) (v & 3) - 1;
+                    if (level > 1) throw new IOException("bad level in " + path);
+                } else {
+                    ticks = v >>> 1;
+                    level = ((level + 1) + ((v & 1) == 0 ? 1 : 2)) % 3 - 1;
+                }
+                if (ticks <= 0 || ticks > Integer.MAX_VALUE - wave.totalTicks()) throw new IOException("bad segment length in " + path);
+                wave.append(level, (int) ticks);
+            }
+            long segments = in.varint(), ticks = in.varint();
+            if (segments != wave.segmentCount() || ticks != wave.totalTicks()) throw new IOException(path + " is truncated or corrupt");
+            return wave;
+        }
+    }
+
+    /** Bytes of a channel through one reusable direct buffer. */
+    private static final class Reader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        Reader(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        int next() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int n;
+                do {
+                    n = channel.read(buffer);
+                } while (n == 0);
+                buffer.flip();
+                if (n < 0) throw new EOFException("waveform export ends early");
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        long varint() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = next();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("varint too long");
+        }
+    }
+}
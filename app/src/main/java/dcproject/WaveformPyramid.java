@@ -0,0 +1,169 @@
+package dcproject;
+
+import java.util.Arrays;
+
+/**
+ * Min/max envelope pyramid over a {@link Waveform} for level-of-detail rendering. Level 0 keeps
+ * one (min, max) pair per {@link #BASE_TICKS}-tick bin and every level above halves the bin
+ * count, so an envelope query touches O(log n) bins plus the exact segments at its two ragged
+ * edges, independent of how many bits fall inside the range.
+ */
+public final class WaveformPyramid {
+    public static final int BASE_TICKS = 64;
+    /** Returned by {@link #envelope} for an empty range. */
+    public static final int EMPTY = -1;
+
+    private final Waveform waveform;
+    private final byte[][] min;
+    private final byte[][] max;
+
+    private WaveformPyramid(Waveform waveform, byte[][] min, byte[][] max) {
+        this.waveform = waveform;
+        this.min = min;
+        this.max = max;
+    }
+
+    public static WaveformPyramid build(Waveform w) {
+        int bins = binCount(w);
+        byte[] min0 = new byte[bins], max0 = new byte[bins];
+        scanBins(w, min0, max0, 0, bins);
+        return withLevels(w, min0, max0);
+    }
+
+    /**
+     * The pyramid of {@code w} after {@code change}, reusing {@code previous}, the pyramid of the
+     * waveform before it: base bins before the change are copied, bins of the reused tail too
+     * when the shift keeps them aligned, and only the rest is rescanned from the segments.
+     */
+    public static WaveformPyramid update(WaveformPyramid previous, Waveform w, IncrementalEncoder.Change change) {
+        byte[] oldMin = previous.min[0], oldMax = previous.max[0];
+        int bins = binCount(w);
+        byte[] min0 = new byte[bins], max0 = new byte[bins];
+        int head = Math.min(change.fromTick / BASE_TICKS, Math.min(bins, oldMin.length));
+        System.arraycopy(oldMin, 0, min0, 0, head);
+        System.arraycopy(oldMax, 0, max0, 0, head);
+        int tail = bins;
+        if (change.toTick < w.totalTicks() && change.shiftTicks % BASE_TICKS == 0) {
+            tail = Math.max(head, (change.toTick + BASE_TICKS - 1) / BASE_TICKS);
+            int shift = change.shiftTicks / BASE_TICKS;
+            for (int b = tail; b < bins; b++) {
+                if (change.inverted) {
+                    min0[b] = (byte) -oldMax[b - shift];
+                    max0[b] = (byte) -oldMin[b - shift];
+                } else {
+                    min0[b] = oldMin[b - shift];
+                    max0[b] = oldMax[b - shift];
+                }
+            }
+        }
+        scanBins(w, min0, max0, head, tail);
+        return withLevels(w, min0, max0);
+    }
+
+    private static int binCount(Waveform w) {
+        return Math.max(1, (w.totalTicks() + BASE_TICKS - 1) / BASE_TICKS);
+    }
+
+    /** Computes base bins {@code [from, to)} from the segments overlapping them. */
+    private static void scanBins(Waveform w, byte[] min0, byte[] max0, int from, int to) {
+        if (from >= to) return;
+        Arrays.fill(min0, from, to, (byte) 2);
+        Arrays.fill(max0, from, to, (byte) -2);
+        if (w.isEmpty()) return;
+        for (int s = w.segmentAt(from * BASE_TICKS + 0.5), n = w.segmentCount(); s < n && w.start(s) < to * BASE_TICKS; s++) {
+            byte level = (byte) w.level(s);
+            int last = Math.min((w.end(s) - 1) / BASE_TICKS, to - 1);
+            for (int b = Math.max(w.start(s) / BASE_TICKS, from); b <= last; b++) {
+                if (level < min0[b]) min0[b] = level;
+                if (level > max0[b]) max0[b] = level;
+            }
+        }
+    }
+
+    private static WaveformPyramid withLevels(Waveform w, byte[] min0, byte[] max0) {
+        int levels = 1;
+        for (int b = min0.length; b > 1; b = (b + 1) >> 1) levels++;
+        byte[][] min = new byte[levels][];
+        byte[][] max = new byte[levels][];
+        min[0] = min0;
+        max[0] = max0;
+        for (int k = 1; k < levels; k++) {
+            byte[] lowerMin = min[k - 1], lowerMax = max[k - 1];
+            int n = (lowerMin.length + 1) >> 1;
+            min[k] = new byte[n];
+            max[k] = new byte[n];
+            for (int b = 0; b < n; b++) {
+                int l = 2 * b, r = Math.min(2 * b + 1, lowerMin.length - 1);
+                min[k][b] = (byte) Math.min(lowerMin[l], lowerMin[r]);
+                max[k][b] = (byte) Math.max(lowerMax[l], lowerMax[r]);
+            }
+        }
+        return new WaveformPyramid(w, min, max);
+    }
+
+    public Waveform waveform() {
+        return waveform;
+    }
+
+    /**
+     * Min and max level over ticks {@code [from, to)}, packed as {@code (max + 1) << 2 | (min + 1)};
+     * unpack with {@link #envelopeMin}/{@link #envelopeMax}. Returns {@link #EMPTY} if the range is empty.
+     */
+    public int envelope(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(waveform.totalTicks(), to);
+        if (from >= to) return EMPTY;
+        int firstBin = (from + BASE_TICKS - 1) / BASE_TICKS;
+        int lastBin = to / BASE_TICKS;
+        if (firstBin >= lastBin) return scan(from, to);
+
+        int edges = merge(scan(from, firstBin * BASE_TICKS), scan(lastBin * BASE_TICKS, to));
+        int lo = edges == EMPTY ? 2 : envelopeMin(edges);
+        int hi = edges == EMPTY ? -2 : envelopeMax(edges);
+        // Bottom-up segment-tree walk over the full bins [firstBin, lastBin)
+        for (int k = 0, l = firstBin, r = lastBin; l < r; k++, l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                lo = Math.min(lo, min[k][l]);
+                hi = Math.max(hi, max[k][l]);
+                l++;
+            }
+            if ((r & 1) == 1) {
+                r--;
+                lo = Math.min(lo, min[k][r]);
+                hi = Math.max(hi, max[k][r]);
+            }
+        }
+        return pack(lo, hi);
+    }
+
+    public static int envelopeMin(int env) {
+        return (env & 3) - 1;
+    }
+
+    public static int envelopeMax(int env) {
+        return ((env >> 2) & 3) - 1;
+    }
+
+    private static int merge(int a, int b) {
+        if (a == EMPTY) return b;
+        if (b == EMPTY) return a;
+        return pack(Math.min(envelopeMin(a), envelopeMin(b)), Math.max(envelopeMax(a), envelopeMax(b)));
+    }
+
+    /** Exact envelope over ticks {@code [from, to)} by walking the segments. */
+    private int scan(int from, int to) {
+        int lo = 2, hi = -2;
+        if (from < to) {
+            for (int s = waveform.segmentAt(from + 0.5); s < waveform.segmentCount() && waveform.start(s) < to; s++) {
+                int level = waveform.level(s);
+                if (level < lo) lo = level;
+                if (level > hi) hi = level;
+            }
+        }
+        return lo > hi ? EMPTY : pack(lo, hi);
+    }
+
+    private static int pack(int lo, int hi) {
+        return ((hi + 1) << 2) | (lo + 1);
+    }
+}
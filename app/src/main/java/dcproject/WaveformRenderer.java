@@ -0,0 +1,132 @@
+package dcproject;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+
+/**
+ * Draws the visible slice of a {@link Waveform}. When a pixel column spans more than one tick the
+ * column is collapsed to a min/max bar taken from the {@link WaveformPyramid}, so a repaint costs
+ * O(pixels) regardless of signal length; zoomed in, the exact segments are traced instead.
+ * Only the columns inside the graphics clip are computed, so repainting a dirty strip costs the
+ * strip's width. Strokes, the path and the marker shape are reused across paints.
+ */
+public final class WaveformRenderer {
+    private static final Color GRID_COLOR = new Color(80, 80, 80);
+    private static final Stroke GRID_STROKE =
+            new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0f, new float[]{4f, 4f}, 0f);
+    private static final Stroke SIGNAL_STROKE = new BasicStroke(2);
+    private static final Stroke ENVELOPE_STROKE = new BasicStroke(1);
+    /** Bit grid lines are skipped once bits get narrower than this many pixels. */
+    private static final double MIN_GRID_PIXELS = 6;
+    /** Transition markers are only drawn when a tick is at least this wide. */
+    private static final double MIN_MARKER_PIXELS = 4;
+    /** Columns painted beyond the clip on each side, enough for markers and strokes reaching in. */
+    private static final int CLIP_MARGIN = 4;
+
+    private final Path2D.Double path = new Path2D.Double();
+    private final Ellipse2D.Double marker = new Ellipse2D.Double();
+
+    /**
+     * Paints {@code pyramid.waveform()} into {@code area}, with {@code viewStart} (in ticks) at the
+     * left edge and {@code ticksPerPixel} ticks per horizontal pixel.
+     */
+    public void paint(Graphics2D g2, WaveformPyramid pyramid, Rectangle area, double viewStart, double ticksPerPixel) {
+        Waveform w = pyramid.waveform();
+        if (w.isEmpty() || area.width <= 0 || area.height <= 0) return;
+        double scaleY = area.height / 4.0;
+        double centerY = area.y + area.height / 2.0;
+        double viewEnd = Math.min(w.totalTicks(), viewStart + area.width * ticksPerPixel);
+
+        Stroke oldStroke = g2.getStroke();
+        Shape oldClip = g2.getClip();
+        g2.clip(area);
+        Rectangle clip = g2.getClipBounds();
+        int firstColumn = Math.max(0, clip.x - area.x - CLIP_MARGIN);
+        int lastColumn = Math.min(area.width, clip.x + clip.width - area.x + CLIP_MARGIN);
+        if (firstColumn >= lastColumn) {
+            g2.setClip(oldClip);
+            return;
+        }
+        double from = viewStart + firstColumn * ticksPerPixel;
+        double to = Math.min(viewEnd, viewStart + lastColumn * ticksPerPixel);
+
+        // Grid: vertical per visible bit, horizontal at levels -1, 0, +1
+        g2.setColor(GRID_COLOR);
+        g2.setStroke(GRID_STROKE);
+        if (Waveform.TICKS_PER_BIT / ticksPerPixel >= MIN_GRID_PIXELS) {
+            int firstBit = (int) Math.ceil(from / Waveform.TICKS_PER_BIT);
+            int lastBit = (int) Math.floor(to / Waveform.TICKS_PER_BIT);
+            for (int b = firstBit; b <= lastBit; b++) {
+                int x = (int) Math.round(area.x + (b * Waveform.TICKS_PER_BIT - viewStart) / ticksPerPixel);
+                g2.drawLine(x, area.y, x, area.y + area.height);
+            }
+        }
+        for (int level = -1; level <= 1; level++) {
+            int y = (int) Math.round(centerY - level * scaleY);
+            g2.drawLine(area.x, y, area.x + area.width, y);
+        }
+
+        g2.setColor(Color.green);
+        if (ticksPerPixel <= 1) {
+            paintSegments(g2, w, area, viewStart, from, to, ticksPerPixel, centerY, scaleY);
+        } else {
+            paintEnvelope(g2, pyramid, area, viewStart, firstColumn, to, ticksPerPixel, centerY, scaleY);
+        }
+
+        g2.setStroke(oldStroke);
+        g2.setClip(oldClip);
+    }
+
+    /** Traces the segments over ticks {@code [from, to)}; x positions are relative to {@code viewStart}. */
+    private void paintSegments(Graphics2D g2, Waveform w, Rectangle area, double viewStart, double from, double to,
+                               double ticksPerPixel, double centerY, double scaleY) {
+        int first = w.segmentAt(from + 0.5);
+        path.reset();
+        boolean started = false;
+        int last = first;
+        for (int i = first; i < w.segmentCount() && w.start(i) < to; i++) {
+            double y = centerY - w.level(i) * scaleY;
+            double x0 = area.x + (w.start(i) - viewStart) / ticksPerPixel;
+            double x1 = area.x + (w.end(i) - viewStart) / ticksPerPixel;
+            if (!started) {
+                path.moveTo(x0, y);
+                started = true;
+            } else {
+                path.lineTo(x0, y);
+            }
+            path.lineTo(x1, y);
+            last = i;
+        }
+        g2.setStroke(SIGNAL_STROKE);
+        g2.draw(path);
+
+        // Yellow markers at transitions (every segment start after the first)
+        if (1 / ticksPerPixel >= MIN_MARKER_PIXELS) {
+            g2.setColor(Color.yellow);
+            for (int i = Math.max(1, first); i <= last; i++) {
+                double x = area.x + (w.start(i) - viewStart) / ticksPerPixel;
+                double y = centerY - w.level(i) * scaleY;
+                marker.setFrame(x - 3, y - 3, 6, 6);
+                g2.fill(marker);
+            }
+        }
+    }
+
+    /** Draws one min/max bar per column from {@code firstColumn} up to the column holding tick {@code end}. */
+    private void paintEnvelope(Graphics2D g2, WaveformPyramid pyramid, Rectangle area, double viewStart, int firstColumn,
+                               double end, double ticksPerPixel, double centerY, double scaleY) {
+        g2.setStroke(ENVELOPE_STROKE);
+        int columns = (int) Math.ceil((end - viewStart) / ticksPerPixel);
+        for (int c = firstColumn; c < columns; c++) {
+            // Start one tick early so a level change on the column boundary shows as a vertical edge
+            int from = (int) Math.floor(viewStart + c * ticksPerPixel) - 1;
+            int to = (int) Math.ceil(viewStart + (c + 1) * ticksPerPixel);
+            int env = pyramid.envelope(from, to);
+            if (env == WaveformPyramid.EMPTY) continue;
+            int yTop = (int) Math.round(centerY - WaveformPyramid.envelopeMax(env) * scaleY);
+            int yBottom = (int) Math.round(centerY - WaveformPyramid.envelopeMin(env) * scaleY);
+            g2.drawLine(area.x + c, yTop, area.x + c, yBottom);
+        }
+    }
+}
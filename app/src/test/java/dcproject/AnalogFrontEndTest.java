@@ -0,0 +1,143 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/** PCM codes against the companding laws, parallel blocks against sequential ones, and the running SNR. */
+class AnalogFrontEndTest {
+    private static final double MIN = -3, MAX = 5;
+
+    /** Samples across the range and a little past it, a tenth of them near the middle where companded cells are finest. */
+    private static double[] samples(SplittableRandom random, int n) {
+        double[] x = new double[n];
+        double middle = (MIN + MAX) / 2, width = MAX - MIN;
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextInt(10) == 0 ? middle + (random.nextDouble() - 0.5) * width * 1e-3
+                    : MIN + (random.nextDouble() * 1.2 - 0.1) * width;
+        }
+        return x;
+    }
+
+    /** The code of sample {@code i}, read most significant bit first. */
+    private static int code(BitBuffer bits, int i, int width) {
+        int q = 0;
+        for (int k = 0; k < width; k++) q = q << 1 | bits.get(i * width + k);
+        return q;
+    }
+
+    @ParameterizedTest
+    @EnumSource(AnalogFrontEnd.Companding.class)
+    void quantizesByTheCompandingLaw(AnalogFrontEnd.Companding companding) {
+        SplittableRandom random = new SplittableRandom(companding.ordinal());
+        for (int width : new int[] {1, 2, 5, 8, 12, 16}) {
+            AnalogFrontEnd fe = AnalogFrontEnd.pcm(width, MIN, MAX, companding);
+            double[] x = samples(random, 20_000);
+            x[0] = MIN;
+            x[1] = MAX;
+            x[2] = (MIN + MAX) / 2;
+            BitBuffer bits = fe.encode(x);
+            double[] decoded = fe.reconstruct(bits);
+            int levels = 1 << width;
+            for (int i = 0; i < x.length; i++) {
+                double unit = Math.max(-1, Math.min(1, (x[i] - MIN) / (MAX - MIN) * 2 - 1));
+                double cell = (companding.compress(unit) + 1) / 2 * levels;
+                int expected = Math.min(levels - 1, Math.max(0, (int) Math.floor(cell)));
+                int actual = code(bits, i, width);
+                // the table compares against expanded edges, so a sample on an edge may land either side
+                if (actual != expected && Math.abs(cell - Math.rint(cell)) > 1e-9 * levels) {
+                    fail(companding + " " + width + " bits: " + x[i] + " coded " + actual + ", expected " + expected);
+                }
+                double centre = MIN + (companding.expand((2 * actual + 1.0) / levels - 1) + 1) / 2 * (MAX - MIN);
+                assertEquals(centre, decoded[i], 1e-12 * (MAX - MIN), companding + " " + width + " bits: value of code " + actual);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(AnalogFrontEnd.Companding.class)
+    void parallelBlocksMatchSequential(AnalogFrontEnd.Companding companding) {
+        SplittableRandom random = new SplittableRandom(31 + companding.ordinal());
+        int n = 3 * AnalogFrontEnd.MIN_PARALLEL_SAMPLES + 77;
+        double[] x = samples(random, n);
+        float[] narrow = new float[n];
+        for (int i = 0; i < n; i++) narrow[i] = (float) x[i];
+        for (int width : new int[] {3, 8, 13}) {
+            AnalogFrontEnd fe = AnalogFrontEnd.pcm(width, MIN, MAX, companding);
+            String message = companding + ", " + width + " bits";
+            BitBuffer whole = fe.encode(x);
+            assertSameBits(blockwise(fe, x, null), whole, message);
+            assertSameBits(blockwise(fe, null, narrow), fe.encode(narrow), message + ", float");
+
+            double[] decoded = fe.reconstruct(whole);
+            for (int from = 0; from < n; from += 5000) {
+                int to = Math.min(n, from + 5000);
+                BitBuffer part = new BitBuffer();
+                part.append(whole, from * width, to * width);
+                double[] expected = fe.reconstruct(part);
+                for (int i = from; i < to; i++) {
+                    if (expected[i - from] != decoded[i]) assertEquals(expected[i - from], decoded[i], message + ": sample " + i);
+                }
+            }
+        }
+    }
+
+    /** The samples fed to one modulator in blocks too small to go parallel. */
+    private static BitBuffer blockwise(AnalogFrontEnd fe, double[] x, float[] narrow) {
+        AnalogFrontEnd.Modulator m = fe.modulator();
+        BitBuffer out = new BitBuffer();
+        int n = x != null ? x.length : narrow.length;
+        for (int from = 0; from < n; from += 4099) {
+            int to = Math.min(n, from + 4099);
+            if (x != null) m.encode(x, from, to, out);
+            else m.encode(narrow, from, to, out);
+        }
+        return out;
+    }
+
+    @Test
+    void modulatorSnrMatchesTheReconstruction() {
+        SplittableRandom random = new SplittableRandom(5);
+        int n = AnalogFrontEnd.MIN_PARALLEL_SAMPLES * 2 + 1000;
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) x[i] = 0.8 * Math.sin(i * 0.01) + 0.05 * (random.nextDouble() - 0.5);
+        AnalogFrontEnd[] ends = {
+            AnalogFrontEnd.pcm(8, -1, 1, AnalogFrontEnd.Companding.LINEAR),
+            AnalogFrontEnd.pcm(8, -1, 1, AnalogFrontEnd.Companding.MU_LAW),
+            AnalogFrontEnd.pcm(6, -1, 1, AnalogFrontEnd.Companding.A_LAW),
+            AnalogFrontEnd.delta(0.02),
+            AnalogFrontEnd.cvsd(0.005, 0.05),
+        };
+        for (AnalogFrontEnd fe : ends) {
+            AnalogFrontEnd.Modulator m = fe.modulator();
+            BitBuffer bits = new BitBuffer();
+            // one block big enough to go parallel for PCM, then small ones carrying the delta state
+            m.encode(x, 0, AnalogFrontEnd.MIN_PARALLEL_SAMPLES, bits);
+            for (int from = AnalogFrontEnd.MIN_PARALLEL_SAMPLES; from < n; from += 777) m.encode(x, from, Math.min(n, from + 777), bits);
+            assertEquals(n, m.samples(), fe.toString());
+            assertEquals(AnalogFrontEnd.snrDb(x, fe.reconstruct(bits)), m.snrDb(), 1e-9, fe.toString());
+
+            m.reset();
+            BitBuffer again = new BitBuffer();
+            m.encode(x, 0, n, again);
+            assertSameBits(bits, again, fe + " after reset");
+        }
+    }
+
+    @Test
+    void deltaCodesFollowTheApproximation() {
+        AnalogFrontEnd fe = AnalogFrontEnd.delta(0.25);
+        double[] x = {0.1, 0.6, 0.6, 0.2, -1};
+        // approximations 0.25, 0.5, 0.75, 0.5, 0.25
+        BitBuffer bits = fe.encode(x);
+        assertEquals("11100", bits.toString());
+        assertArrayEquals(new double[] {0.25, 0.5, 0.75, 0.5, 0.25}, fe.reconstruct(bits));
+    }
+}
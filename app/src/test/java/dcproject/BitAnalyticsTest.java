@@ -0,0 +1,121 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Word-at-a-time statistics against the string reference and against each other. */
+class BitAnalyticsTest {
+    private static final EnumSet<BitAnalytics.Metric> STREAMED =
+            EnumSet.of(BitAnalytics.Metric.RUNS, BitAnalytics.Metric.TRANSITIONS, BitAnalytics.Metric.DENSITY);
+
+    /** Random, sparse, dense or periodic bits; periodic inputs are full of long palindromes. */
+    private static BitBuffer randomInput(SplittableRandom random, int n) {
+        if (random.nextInt(4) > 0) return TestSignals.randomBits(random, n);
+        int period = 1 + random.nextInt(random.nextBoolean() ? 5 : 70);
+        BitBuffer pattern = TestSignals.randomBits(random, period, 0.5), bits = new BitBuffer(n);
+        for (int i = 0; i < n; i++) bits.append(random.nextInt(1000) == 0 ? 1 - pattern.get(i % period) : pattern.get(i % period));
+        return bits;
+    }
+
+    /** Every length up to a few words, then longer ones. */
+    private static int randomLength(SplittableRandom random, int trial) {
+        return trial < 300 ? trial : random.nextInt(random.nextBoolean() ? 300 : 20_000);
+    }
+
+    private static void assertSameReport(BitAnalytics.Report expected, BitAnalytics.Report actual, String where) {
+        assertEquals(expected.bits(), actual.bits(), where + ": bits");
+        assertEquals(expected.ones(), actual.ones(), where + ": ones");
+        assertEquals(expected.longestZeroRun(), actual.longestZeroRun(), where + ": longest 0 run");
+        assertEquals(expected.longestOneRun(), actual.longestOneRun(), where + ": longest 1 run");
+        assertEquals(expected.transitions(), actual.transitions(), where + ": transitions");
+        assertEquals(expected.disparity(), actual.disparity(), where + ": disparity");
+        assertEquals(expected.maxRunningDisparity(), actual.maxRunningDisparity(), where + ": running disparity");
+    }
+
+    @Test
+    void palindromeIsTheFirstLongestOne() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int trial = 0; trial < 3000; trial++) {
+            BitBuffer bits = randomInput(random, randomLength(random, trial));
+            String text = SignalEngine.bitsToString(bits);
+            String expected = SignalEngine.manachersLongestPalindrome(text, TaskProgress.NONE);
+            long p = BitAnalytics.longestPalindrome(bits, TaskProgress.NONE);
+            int start = (int) (p >>> 32), length = (int) p;
+            // the reference keeps the first longest palindrome, so it is its string's first occurrence
+            assertEquals(expected.length(), length, "length, trial " + trial + ": " + text);
+            assertEquals(text.indexOf(expected), start, "start, trial " + trial + ": " + text);
+
+            BitAnalytics.Report report = BitAnalytics.analyze(bits, EnumSet.of(BitAnalytics.Metric.PALINDROME), TaskProgress.NONE);
+            assertEquals(start, report.palindromeStart(), "report start, trial " + trial);
+            assertEquals(length, report.palindromeLength(), "report length, trial " + trial);
+        }
+    }
+
+    @Test
+    void statisticsMatchTheDefinitions() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int trial = 0; trial < 1000; trial++) {
+            BitBuffer bits = randomInput(random, randomLength(random, trial));
+            long ones = 0, transitions = 0, rds = 0, maxAbsRds = 0;
+            long zeroRun = 0, oneRun = 0, longestZeros = 0, longestOnes = 0;
+            for (int i = 0; i < bits.size(); i++) {
+                int bit = bits.get(i);
+                ones += bit;
+                if (i > 0 && bit != bits.get(i - 1)) transitions++;
+                rds += bit == 1 ? 1 : -1;
+                maxAbsRds = Math.max(maxAbsRds, Math.abs(rds));
+                zeroRun = bit == 0 ? zeroRun + 1 : 0;
+                oneRun = bit == 1 ? oneRun + 1 : 0;
+                longestZeros = Math.max(longestZeros, zeroRun);
+                longestOnes = Math.max(longestOnes, oneRun);
+            }
+            BitAnalytics.Report report = BitAnalytics.analyze(bits, STREAMED, TaskProgress.NONE);
+            String where = "trial " + trial;
+            assertEquals(ones, report.ones(), where + ": ones");
+            assertEquals(transitions, report.transitions(), where + ": transitions");
+            assertEquals(rds, report.disparity(), where + ": disparity");
+            assertEquals(maxAbsRds, report.maxRunningDisparity(), where + ": running disparity");
+            assertEquals(longestZeros, report.longestZeroRun(), where + ": longest 0 run");
+            assertEquals(longestOnes, report.longestOneRun(), where + ": longest 1 run");
+        }
+    }
+
+    @Test
+    void chunkedAccumulatorMatchesOneShot() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int trial = 0; trial < 1000; trial++) {
+            BitBuffer bits = randomInput(random, randomLength(random, trial));
+            BitAnalytics.Accumulator chunked = new BitAnalytics.Accumulator(STREAMED);
+            for (int from = 0; from < bits.size(); ) {
+                int to = Math.min(bits.size(), from + 1 + random.nextInt(random.nextBoolean() ? 8 : 200));
+                BitBuffer chunk = new BitBuffer(to - from);
+                chunk.append(bits, from, to);
+                chunked.add(chunk);
+                from = to;
+            }
+            assertSameReport(BitAnalytics.analyze(bits, STREAMED, TaskProgress.NONE), chunked.report(), "trial " + trial);
+        }
+    }
+
+    @Test
+    void mergedAccumulatorsMatchOneShot() {
+        SplittableRandom random = new SplittableRandom(4);
+        for (int trial = 0; trial < 1000; trial++) {
+            BitBuffer bits = randomInput(random, randomLength(random, trial));
+            // every range in its own accumulator, empty ones included, appended in order
+            BitAnalytics.Accumulator merged = new BitAnalytics.Accumulator(STREAMED);
+            for (int from = 0; from < bits.size(); ) {
+                int to = Math.min(bits.size(), from + random.nextInt(random.nextBoolean() ? 8 : 200));
+                BitAnalytics.Accumulator part = new BitAnalytics.Accumulator(STREAMED);
+                part.add(bits, from, to);
+                merged.append(part);
+                from = to;
+            }
+            assertSameReport(BitAnalytics.analyze(bits, STREAMED, TaskProgress.NONE), merged.report(), "trial " + trial);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package dcproject;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.assertSameWaveform;
+import static dcproject.TestSignals.randomBits;
+import static dcproject.TestSignals.randomSlots;
+
+/** The byte-table encoder and word-at-a-time decoder against the line code definitions. */
+class ByteTableCodecTest {
+    private static final int[] SIZES = {0, 1, 2, 3, 7, 8, 9, 15, 16, 17, 31, 32, 33, 63, 64, 65, 127, 1000, 4097, 70_000};
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"NRZ_L", "NRZ_I", "MANCHESTER", "DIFF_MANCHESTER", "AMI"})
+    void encodesByTheDefinitions(LineCode code) {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        for (int n : SIZES) {
+            BitBuffer bits = randomBits(random, n);
+            Waveform out = new Waveform();
+            ByteTableCodec.encode(code, bits, out, TaskProgress.NONE);
+            assertSameWaveform(TestSignals.fromSlots(TestSignals.referenceSlots(code, bits)), out, code + ", " + n + " bits");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"NRZ_L", "NRZ_I", "MANCHESTER", "DIFF_MANCHESTER", "AMI"})
+    void decodesByTheDefinitions(LineCode code) {
+        SplittableRandom random = new SplittableRandom(100 + code.ordinal());
+        for (int n : SIZES) {
+            BitBuffer bits = randomBits(random, n);
+            Waveform encoded = SignalEngine.encode(code, bits, TaskProgress.NONE);
+            BitBuffer decoded = ByteTableCodec.decode(code, encoded, TaskProgress.NONE);
+            assertSameBits(TestSignals.referenceDecode(code, TestSignals.slotsOf(encoded), n), decoded, code + ", encoded " + n + " bits");
+            byte[] slots = randomSlots(random, n);
+            assertSameBits(TestSignals.referenceDecode(code, slots, n),
+                    ByteTableCodec.decode(code, TestSignals.fromSlots(slots), TaskProgress.NONE), code + ", random " + n + " bits");
+        }
+    }
+}
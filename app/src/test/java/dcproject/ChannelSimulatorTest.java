@@ -0,0 +1,69 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Bit error rates of an ideal channel against the closed-form curve for antipodal signalling. */
+class ChannelSimulatorTest {
+    private static final double[] EB_N0_DB = {0, 2, 4, 6, 8};
+    private static final long BITS = 1 << 21;
+
+    /** {@code Q(sqrt(2 Eb/N0))} = {@code erfc(sqrt(Eb/N0)) / 2}. */
+    private static double antipodalBer(double ebN0Db) {
+        return erfc(Math.sqrt(Math.pow(10, ebN0Db / 10))) / 2;
+    }
+
+    /** Chebyshev fit from Numerical Recipes, relative error below 1.2e-7. */
+    private static double erfc(double x) {
+        double t = 1 / (1 + 0.5 * Math.abs(x));
+        double r = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418 + t * (-0.18628806
+                + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587 + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"NRZ_L", "MANCHESTER"})
+    void followsTheAntipodalCurve(LineCode code) {
+        for (int samplesPerTick : new int[] {1, 4}) {
+            ChannelSimulator.Point[] points = new ChannelSimulator(code, 0, 0, samplesPerTick).sweep(EB_N0_DB, BITS, 1, TaskProgress.NONE);
+            for (ChannelSimulator.Point p : points) {
+                double expected = antipodalBer(p.ebN0Db()) * p.bits();
+                // errors are binomial: allow five standard deviations
+                double tolerance = 5 * Math.sqrt(expected) + 5;
+                assertEquals(expected, p.errors(), tolerance, code + " at " + p.ebN0Db() + " dB, " + samplesPerTick + " samples per tick");
+            }
+        }
+    }
+
+    @Test
+    void amiFollowsItsTernaryCurve() {
+        // thresholds at +-0.5: a 0 errs past either one, a pulse only if it ends up between them
+        for (ChannelSimulator.Point p : new ChannelSimulator(LineCode.AMI, 0, 0, 2).sweep(EB_N0_DB, BITS, 2, TaskProgress.NONE)) {
+            double x = Math.sqrt(Math.pow(10, p.ebN0Db() / 10));
+            double expected = (0.75 * erfc(0.5 * x) - 0.25 * erfc(1.5 * x)) * p.bits();
+            assertEquals(expected, p.errors(), 5 * Math.sqrt(expected) + 5, "AMI at " + p.ebN0Db() + " dB");
+        }
+    }
+
+    @Test
+    void sweepsAreReproducible() {
+        ChannelSimulator simulator = new ChannelSimulator(LineCode.AMI_HDB3, 0.05, 2, 4);
+        ChannelSimulator.Point[] a = simulator.sweep(EB_N0_DB, 200_000, 7, TaskProgress.NONE);
+        ChannelSimulator.Point[] b = simulator.sweep(EB_N0_DB, 200_000, 7, TaskProgress.NONE);
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(a[i].errors(), b[i].errors(), "errors at " + a[i].ebN0Db() + " dB");
+            for (int y = 0; y < ChannelSimulator.EYE_HEIGHT; y++) {
+                int[] rowA = new int[ChannelSimulator.EYE_WIDTH], rowB = new int[ChannelSimulator.EYE_WIDTH];
+                for (int x = 0; x < rowA.length; x++) {
+                    rowA[x] = a[i].eye(x, y);
+                    rowB[x] = b[i].eye(x, y);
+                }
+                assertArrayEquals(rowA, rowB, "eye row " + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package dcproject;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Recovery of captures resampled off the nominal rate, from a fractional phase, with noise. */
+class ClockRecoveryTest {
+    private static final int BITS = 20_000, FINE_SAMPLES_PER_BIT = 64, MAX_SHIFT = 8;
+
+    /**
+     * {@code wave} shaped finely and resampled at {@code samplesPerBit * (1 + offset)} samples per
+     * bit from a random phase, by linear interpolation, with Gaussian noise of {@code sigma}.
+     */
+    private static float[] capture(Waveform wave, double samplesPerBit, double offset, double sigma, SplittableRandom random) {
+        float[] fine = PulseShaper.shape(wave, PulseShaper.Shape.RAISED_COSINE, 0.35, FINE_SAMPLES_PER_BIT);
+        double step = FINE_SAMPLES_PER_BIT / (samplesPerBit * (1 + offset)), t = random.nextDouble() * FINE_SAMPLES_PER_BIT;
+        float[] out = new float[(int) ((fine.length - 2 - t) / step)];
+        for (int i = 0; i < out.length; i++, t += step) {
+            int k = (int) t;
+            out[i] = (float) (fine[k] + (t - k) * (fine[k + 1] - fine[k]) + sigma * random.nextGaussian());
+        }
+        return out;
+    }
+
+    /** Fewest mismatches of the inner bits over recovered offsets of up to {@link #MAX_SHIFT} bits either way. */
+    private static int alignedErrors(BitBuffer sent, BitBuffer recovered) {
+        int best = Integer.MAX_VALUE;
+        for (int shift = -MAX_SHIFT; shift <= MAX_SHIFT; shift++) {
+            int errors = 0;
+            for (int i = 2 * MAX_SHIFT; i < sent.size() - 2 * MAX_SHIFT; i++) {
+                int j = i + shift;
+                if (j >= recovered.size() || sent.get(i) != recovered.get(j)) errors++;
+            }
+            best = Math.min(best, errors);
+        }
+        return best;
+    }
+
+    @ParameterizedTest
+    @EnumSource(LineCode.class)
+    void tracksAnOffsetClock(LineCode code) {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        for (double offset : new double[] {-0.005, -0.002, 0.002, 0.005}) {
+            for (double samplesPerBit : new double[] {8, 13.5}) {
+                BitBuffer bits = randomBits(random, BITS, 0.5);
+                float[] samples = capture(SignalEngine.encode(code, bits, TaskProgress.NONE), samplesPerBit, offset, 0.05, random);
+                ClockRecovery recovery = new ClockRecovery(code, samplesPerBit);
+                BitBuffer recovered = new BitBuffer(BITS + 64);
+                // blocks of any size
+                for (int from = 0; from < samples.length; ) {
+                    int to = Math.min(samples.length, from + 1 + random.nextInt(5000));
+                    recovery.process(samples, from, to, recovered);
+                    from = to;
+                }
+                recovery.finish(recovered);
+                String where = code + ", " + samplesPerBit + " samples per bit, " + Math.round(offset * 1e6) + " ppm";
+                assertTrue(Math.abs(recovered.size() - BITS) <= MAX_SHIFT, where + ": " + recovered.size() + " bits");
+                assertTrue(alignedErrors(bits, recovered) <= 2, where + ": " + alignedErrors(bits, recovered) + " bit errors");
+                // the capture has 1 + offset times the nominal samples per bit, so it runs slow by that much
+                assertEquals(1 / (1 + offset) - 1, recovery.rateError(), 5e-4, where + ": rate error");
+                assertEquals(samples.length, recovery.samples(), where);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** The allocation-free parser against {@link Double#parseDouble}. */
+class CsvNumberParserTest {
+    /** A number as people and programs write them: plain, fixed, scientific, padded or long. */
+    private static String randomToken(SplittableRandom random) {
+        double v = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(-30, 30));
+        switch (random.nextInt(7)) {
+            case 0: return Double.toString(v);
+            case 1: return String.format(Locale.ROOT, "%." + random.nextInt(12) + "f", v);
+            case 2: return String.format(Locale.ROOT, "%." + random.nextInt(20) + "e", v);
+            case 3: return Integer.toString(random.nextInt());
+            case 4: {
+                // up to 25 digits, so both sides of the 18 significant digit limit turn up
+                StringBuilder s = new StringBuilder(random.nextBoolean() ? "-" : "+");
+                int digits = 1 + random.nextInt(25), dot = random.nextInt(digits + 1);
+                for (int i = 0; i < digits; i++) {
+                    if (i == dot) s.append('.');
+                    s.append((char) ('0' + random.nextInt(10)));
+                }
+                if (random.nextBoolean()) s.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(-40, 40));
+                return s.toString();
+            }
+            case 5: return "0.000" + random.nextInt(1000) + "e-" + random.nextInt(30);
+            default: return " \t" + random.nextInt(100) + "." + random.nextInt(100) + "  ";
+        }
+    }
+
+    private static void assertSameDouble(double expected, double actual, String token) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), "\"" + token + "\": " + expected + " vs " + actual);
+    }
+
+    @Test
+    void bitIdenticalToParseDouble() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200_000; i++) {
+            String token = randomToken(random);
+            double[] parsed = CsvNumberParser.parse(token);
+            assertEquals(1, parsed.length, token);
+            assertSameDouble(Double.parseDouble(token), parsed[0], token);
+        }
+    }
+
+    @Test
+    void edgeCases() {
+        String[] tokens = {"0", "-0", "-0.0", "0e5", "1e22", "1e23", "123456789012345678", "1234567890123456789",
+                "0.000000000000000000000001", "9007199254740993", "4.9e-324", "1.7976931348623157e308", "1e309",
+                ".5", "5.", "-.5e1", "NaN", "Infinity", "-Infinity", "0x1p3"};
+        for (String token : tokens) {
+            double[] parsed = CsvNumberParser.parse(token);
+            assertEquals(1, parsed.length, token);
+            assertSameDouble(Double.parseDouble(token), parsed[0], token);
+        }
+    }
+
+    @Test
+    void skipsWhatDoesNotParse() {
+        assertArrayEquals(new double[] {1, 2.5, -3}, CsvNumberParser.parse("1, abc ,2.5,,\r\n-3,1e,--4,\n"));
+    }
+
+    @Test
+    void tokensSplitAcrossFeeds() throws IOException {
+        SplittableRandom random = new SplittableRandom(2);
+        StringBuilder text = new StringBuilder();
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            String token = randomToken(random);
+            expected.add(Double.parseDouble(token));
+            text.append(token).append(random.nextInt(4) == 0 ? "\r\n" : random.nextBoolean() ? "," : "\n");
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        List<Double> actual = new ArrayList<>();
+        CsvNumberParser parser = new CsvNumberParser();
+        for (int from = 0; from < bytes.length; ) {
+            int to = Math.min(bytes.length, from + 1 + random.nextInt(random.nextBoolean() ? 3 : 500));
+            ByteBuffer piece = ByteBuffer.wrap(bytes, from, to - from);
+            parser.feed(piece, actual::add);
+            assertEquals(to, piece.position());
+            from = to;
+        }
+        parser.finish(actual::add);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) assertSameDouble(expected.get(i), actual.get(i), "token " + i);
+    }
+
+    @Test
+    void finishFlushesATrailingToken() throws IOException {
+        List<Double> out = new ArrayList<>();
+        CsvNumberParser parser = new CsvNumberParser();
+        parser.feed(ByteBuffer.wrap("1,2".getBytes(StandardCharsets.US_ASCII)), out::add);
+        assertEquals(List.of(1.0), out);
+        parser.finish(out::add);
+        assertEquals(List.of(1.0, 2.0), out);
+    }
+}
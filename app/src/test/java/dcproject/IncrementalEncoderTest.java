@@ -0,0 +1,77 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.EnumSet;
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.assertSameWaveform;
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Edits through {@link IncrementalEncoder} against encoding and analyzing the new input from scratch. */
+class IncrementalEncoderTest {
+    /** The input with one random insertion, deletion, replacement or flipped bit. */
+    private static BitBuffer edit(SplittableRandom random, BitBuffer bits) {
+        int size = bits.size();
+        int at = random.nextInt(size + 1);
+        // mostly short edits, now and then one spanning several checkpoints
+        int length = random.nextInt(8) == 0 ? random.nextInt(3 * IncrementalEncoder.CHECKPOINT_BITS) : random.nextInt(40);
+        BitBuffer next = new BitBuffer(size + length);
+        next.append(bits, 0, at);
+        switch (random.nextInt(4)) {
+            case 0:
+                next.append(randomBits(random, length));
+                next.append(bits, at, size);
+                break;
+            case 1:
+                next.append(bits, Math.min(size, at + length), size);
+                break;
+            case 2:
+                next.append(randomBits(random, length));
+                next.append(bits, Math.min(size, at + length), size);
+                break;
+            default:
+                next.append(bits, at, size);
+                if (at < size) next.set(at, 1 - next.get(at));
+        }
+        return next;
+    }
+
+    @ParameterizedTest
+    @EnumSource(LineCode.class)
+    void editsMatchFullReencode(LineCode code) {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        EnumSet<BitAnalytics.Metric> metrics = EnumSet.of(BitAnalytics.Metric.RUNS, BitAnalytics.Metric.TRANSITIONS, BitAnalytics.Metric.DENSITY);
+        IncrementalEncoder encoder = new IncrementalEncoder(code, metrics);
+        BitBuffer bits = randomBits(random, 5 * IncrementalEncoder.CHECKPOINT_BITS + 123);
+        for (int step = 0; step < 200; step++) {
+            if (step > 0) bits = edit(random, bits);
+            IncrementalEncoder.Change change = encoder.update(bits, TaskProgress.NONE);
+            String where = code + ", edit " + step;
+            Waveform full = SignalEngine.encode(code, bits, TaskProgress.NONE);
+            assertSameWaveform(full, encoder.waveform(), where);
+            assertSameBits(bits, encoder.bits(), where);
+            assertTrue(change.fromTick <= change.toTick && change.toTick <= full.totalTicks(), where + ": change " + change.fromTick + ".." + change.toTick);
+
+            BitAnalytics.Report expected = BitAnalytics.analyze(bits, metrics, TaskProgress.NONE), actual = encoder.stats();
+            assertEquals(expected.ones(), actual.ones(), where + ": ones");
+            assertEquals(expected.longestZeroRun(), actual.longestZeroRun(), where + ": longest 0 run");
+            assertEquals(expected.longestOneRun(), actual.longestOneRun(), where + ": longest 1 run");
+            assertEquals(expected.transitions(), actual.transitions(), where + ": transitions");
+            assertEquals(expected.maxRunningDisparity(), actual.maxRunningDisparity(), where + ": running disparity");
+        }
+    }
+
+    @Test
+    void unchangedInputIsAnEmptyChange() {
+        BitBuffer bits = randomBits(new SplittableRandom(1), 10_000, 0.5);
+        IncrementalEncoder encoder = new IncrementalEncoder(LineCode.AMI_HDB3, EnumSet.of(BitAnalytics.Metric.RUNS));
+        encoder.update(bits, TaskProgress.NONE);
+        assertTrue(encoder.update(bits, TaskProgress.NONE).isEmpty());
+    }
+}
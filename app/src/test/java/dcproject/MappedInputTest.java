@@ -0,0 +1,111 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Bit and sample files read through mappings against the bits and samples written. */
+class MappedInputTest {
+    @TempDir
+    Path dir;
+
+    /** Reads {@code path} in chunks of about {@code chunkBits} and joins them. */
+    private static BitBuffer readChunked(Path path, MappedInput.Format format, int chunkBits) throws IOException {
+        BitBuffer all = new BitBuffer();
+        long total = MappedInput.readBits(path, format, chunkBits, chunk -> {
+            assertTrue(chunk.size() > 0);
+            all.append(chunk);
+        });
+        assertEquals(all.size(), total);
+        return all;
+    }
+
+    @Test
+    void asciiBits() throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        BitBuffer bits = randomBits(random, 100_003, 0.5);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < bits.size(); i++) {
+            text.append(bits.get(i));
+            if (random.nextInt(50) == 0) text.append(random.nextBoolean() ? "\n" : " \t");
+        }
+        Path file = dir.resolve("bits.txt");
+        Files.write(file, text.toString().getBytes(StandardCharsets.US_ASCII));
+        assertSameBits(bits, MappedInput.readBits(file, MappedInput.Format.ASCII), "whole");
+        assertSameBits(bits, readChunked(file, MappedInput.Format.ASCII, 1000), "chunked");
+    }
+
+    @Test
+    void rawBitsAreMostSignificantFirst() throws IOException {
+        SplittableRandom random = new SplittableRandom(2);
+        // not a multiple of 8 bytes, so the tail goes through the byte loop
+        byte[] bytes = new byte[12_345];
+        random.nextBytes(bytes);
+        BitBuffer expected = new BitBuffer(bytes.length * 8);
+        for (byte b : bytes) {
+            for (int i = 7; i >= 0; i--) expected.append(b >> i & 1);
+        }
+        Path file = dir.resolve("bits.bin");
+        Files.write(file, bytes);
+        assertSameBits(expected, MappedInput.readBits(file, MappedInput.Format.RAW), "whole");
+        assertSameBits(expected, readChunked(file, MappedInput.Format.RAW, 256), "chunked");
+    }
+
+    @Test
+    void rejectsOtherCharacters() throws IOException {
+        Path file = dir.resolve("bad.txt");
+        Files.write(file, "0101 2".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> MappedInput.readBits(file, MappedInput.Format.ASCII));
+        assertThrows(IllegalArgumentException.class, () -> MappedInput.readBits(file, MappedInput.Format.CSV));
+    }
+
+    @Test
+    void emptyFile() throws IOException {
+        Path file = dir.resolve("empty.txt");
+        Files.write(file, new byte[0]);
+        assertEquals(0, MappedInput.readBits(file, MappedInput.Format.ASCII).size());
+    }
+
+    @Test
+    void samplesInBlocks() throws IOException {
+        SplittableRandom random = new SplittableRandom(3);
+        float[] samples = new float[10_001];
+        StringBuilder csv = new StringBuilder();
+        ByteBuffer f32 = ByteBuffer.allocate(samples.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) (random.nextDouble() * 2 - 1);
+            csv.append(samples[i]).append(i % 7 == 0 ? "\n" : ",");
+            f32.putFloat(samples[i]);
+        }
+        Path csvFile = dir.resolve("samples.csv"), f32File = dir.resolve("samples.f32");
+        Files.write(csvFile, csv.toString().getBytes(StandardCharsets.US_ASCII));
+        Files.write(f32File, f32.array());
+        for (Path file : new Path[] {csvFile, f32File}) {
+            MappedInput.Format format = file == csvFile ? MappedInput.Format.CSV : MappedInput.Format.F32;
+            double[] read = new double[samples.length];
+            int[] count = {0};
+            long total = MappedInput.readSamples(file, format, new double[1000], (block, n) -> {
+                System.arraycopy(block, 0, read, count[0], n);
+                count[0] += n;
+            });
+            assertEquals(samples.length, total, format.name());
+            double[] expected = new double[samples.length];
+            for (int i = 0; i < samples.length; i++) expected[i] = format == MappedInput.Format.CSV ? Double.parseDouble(Float.toString(samples[i])) : samples[i];
+            assertArrayEquals(expected, read, format.name());
+        }
+    }
+}
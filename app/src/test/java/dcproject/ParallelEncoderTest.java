@@ -0,0 +1,67 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static dcproject.TestSignals.assertSameWaveform;
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Chunked, prefix-seeded encoding against {@link SignalEngine#encode}. */
+class ParallelEncoderTest {
+    @ParameterizedTest
+    @EnumSource(LineCode.class)
+    void matchesSequential(LineCode code) {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                BitBuffer bits = randomBits(random, 1 + random.nextInt(50_000));
+                // chunks far smaller than in production, so every boundary case is crossed
+                int chunkBits = 1 + random.nextInt(2000);
+                assertSameWaveform(SignalEngine.encode(code, bits, TaskProgress.NONE),
+                        ParallelEncoder.encode(code, bits, chunkBits, pool, TaskProgress.NONE), code + ", chunks of " + chunkBits);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void matchesSequentialOnTheCommonPool() {
+        BitBuffer bits = randomBits(new SplittableRandom(7), ParallelEncoder.MIN_PARALLEL_BITS * 2, 0.05);
+        for (LineCode code : LineCode.values()) {
+            assertSameWaveform(SignalEngine.encode(code, bits, TaskProgress.NONE), ParallelEncoder.encode(code, bits, TaskProgress.NONE), code.label());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"AMI_B8ZS", "AMI_HDB3"})
+    void zeroRunsSplitOnSubstitutionGroups(LineCode code) {
+        int group = code == LineCode.AMI_B8ZS ? 8 : 4;
+        BitBuffer zeros = new BitBuffer(100_000);
+        zeros.appendRepeated(0, 100_000);
+        int[] starts = ParallelEncoder.boundaries(code, zeros, 1000);
+        assertTrue(starts.length > 90, "all zeros cut into " + (starts.length - 1) + " chunks");
+        for (int k = 1; k < starts.length - 1; k++) assertEquals(0, starts[k] % group, "start " + starts[k]);
+
+        SplittableRandom random = new SplittableRandom(17);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int trial = 0; trial < 20; trial++) {
+                // a few marks between runs of thousands of zeros
+                BitBuffer bits = trial == 0 ? zeros : randomBits(random, 1 + random.nextInt(50_000), 0.0005);
+                int chunkBits = 1 + random.nextInt(300);
+                assertSameWaveform(SignalEngine.encode(code, bits, TaskProgress.NONE),
+                        ParallelEncoder.encode(code, bits, chunkBits, pool, TaskProgress.NONE), code + ", chunks of " + chunkBits);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** The polyphase tables against direct convolution, and streaming against whole waveforms. */
+class PulseShaperTest {
+    private static final double TOLERANCE = 1e-5;
+
+    /** Every sample as the sum of the pulses of the ticks in its span, ends held, a trailing half bit completed. */
+    private static float[] convolve(Waveform wave, PulseShaper.Shape shape, double parameter, int samplesPerBit) {
+        PulseShaper pulses = new PulseShaper(shape, parameter, samplesPerBit, (samples, count) -> { });
+        int ticks = wave.totalTicks(), bits = (ticks + 1) / Waveform.TICKS_PER_BIT, half = pulses.spanBits() / 2;
+        byte[] slots = TestSignals.slotsOf(wave);
+        float[] out = new float[bits * samplesPerBit];
+        for (int b = 0; b < bits; b++) {
+            for (int p = 0; p < samplesPerBit; p++) {
+                double t = b + p / (double) samplesPerBit, v = 0;
+                for (int k = (b - half) * Waveform.TICKS_PER_BIT; k < (b + half) * Waveform.TICKS_PER_BIT; k++) {
+                    v += slots[Math.max(0, Math.min(ticks - 1, k))] * pulses.pulse(t - (k + 0.5) / Waveform.TICKS_PER_BIT);
+                }
+                out[b * samplesPerBit + p] = (float) v;
+            }
+        }
+        return out;
+    }
+
+    private static void assertClose(float[] expected, float[] actual, String where) {
+        assertEquals(expected.length, actual.length, where + ": samples");
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], actual[i], TOLERANCE, where + ": sample " + i);
+    }
+
+    @ParameterizedTest
+    @EnumSource(PulseShaper.Shape.class)
+    void tablesMatchDirectConvolution(PulseShaper.Shape shape) {
+        SplittableRandom random = new SplittableRandom(shape.ordinal());
+        for (LineCode code : LineCode.values()) {
+            Waveform wave = SignalEngine.encode(code, randomBits(random, 1 + random.nextInt(300)), TaskProgress.NONE);
+            int samplesPerBit = 1 + random.nextInt(24);
+            assertClose(convolve(wave, shape, shape.defaultParameter(), samplesPerBit),
+                    PulseShaper.shape(wave, shape, shape.defaultParameter(), samplesPerBit), shape + ", " + code);
+        }
+    }
+
+    @Test
+    void raisedCosinePassesThroughTheTickLevels() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (double rollOff : new double[] {0, 0.35, 0.5, 1}) {
+            for (LineCode code : LineCode.values()) {
+                Waveform wave = SignalEngine.encode(code, randomBits(random, 500), TaskProgress.NONE);
+                int samplesPerBit = 4 * (1 + random.nextInt(8));
+                float[] samples = PulseShaper.shape(wave, PulseShaper.Shape.RAISED_COSINE, rollOff, samplesPerBit);
+                byte[] slots = TestSignals.slotsOf(wave);
+                // tick k is centred (k + 0.5) / 2 bits in, a quarter of a bit past a tick boundary
+                for (int k = 0; k < slots.length; k++) {
+                    int sample = k * samplesPerBit / Waveform.TICKS_PER_BIT + samplesPerBit / 4;
+                    assertEquals(slots[k], samples[sample], TOLERANCE, "roll-off " + rollOff + ", " + code + ", tick " + k);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PulseShaper.Shape.class)
+    void streamingMatchesWhole(PulseShaper.Shape shape) {
+        SplittableRandom random = new SplittableRandom(100 + shape.ordinal());
+        for (int trial = 0; trial < 20; trial++) {
+            LineCode code = LineCode.values()[random.nextInt(LineCode.values().length)];
+            // long enough to cross several output chunks
+            Waveform wave = SignalEngine.encode(code, randomBits(random, random.nextInt(3000)), TaskProgress.NONE);
+            int samplesPerBit = 1 + random.nextInt(32);
+            float[] whole = PulseShaper.shape(wave, shape, shape.defaultParameter(), samplesPerBit);
+            float[] streamed = new float[whole.length];
+            int[] filled = {0};
+            PulseShaper shaper = new PulseShaper(shape, shape.defaultParameter(), samplesPerBit, (samples, count) -> {
+                System.arraycopy(samples, 0, streamed, filled[0], count);
+                filled[0] += count;
+            });
+            // segments cut at arbitrary ticks, and the same level split over several calls
+            for (int i = 0; i < wave.segmentCount(); i++) {
+                for (int left = wave.end(i) - wave.start(i); left > 0; ) {
+                    int ticks = Math.min(left, 1 + random.nextInt(7));
+                    shaper.append(wave.level(i), ticks);
+                    left -= ticks;
+                }
+            }
+            shaper.finish();
+            assertEquals(whole.length, filled[0], shape + ", trial " + trial);
+            assertArrayEquals(whole, streamed, shape + ", trial " + trial);
+            assertEquals(0, shaper.samples());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(PulseShaper.Shape.class)
+    void finishCompletesATrailingHalfBit(PulseShaper.Shape shape) {
+        Waveform wave = new Waveform();
+        wave.append(1, 3);
+        wave.append(-1, 4);
+        float[] samples = PulseShaper.shape(wave, shape, shape.defaultParameter(), 8);
+        assertEquals(4 * 8, samples.length);
+        assertClose(convolve(wave, shape, shape.defaultParameter(), 8), samples, shape.toString());
+        // the padded half bit holds the last level, the same as appending it
+        Waveform padded = new Waveform();
+        padded.append(1, 3);
+        padded.append(-1, 5);
+        assertArrayEquals(PulseShaper.shape(padded, shape, shape.defaultParameter(), 8), samples);
+    }
+}
@@ -0,0 +1,103 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Byte-budget eviction and the counters of {@link ResultCache}. */
+class ResultCacheTest {
+    private static ResultCache<String, byte[]> cache(long maxBytes) {
+        return new ResultCache<>(maxBytes, v -> v.length);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedDownToTheBudget() {
+        ResultCache<String, byte[]> cache = cache(100);
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[30]);
+        cache.put("c", new byte[30]);
+        assertEquals(100, cache.bytes());
+        // reading a makes b the eldest
+        cache.get("a");
+        cache.put("d", new byte[20]);
+        assertNull(cache.peek("b"));
+        assertEquals(90, cache.bytes());
+        assertEquals(1, cache.evictions());
+        // one large value may push out several
+        cache.put("e", new byte[70]);
+        assertNull(cache.peek("c"));
+        assertNull(cache.peek("a"));
+        assertEquals(2, cache.size());
+        assertEquals(90, cache.bytes());
+        assertEquals(3, cache.evictions());
+    }
+
+    @Test
+    void peekLeavesTheOrderAlone() {
+        ResultCache<String, byte[]> cache = cache(60);
+        cache.put("a", new byte[30]);
+        cache.put("b", new byte[30]);
+        cache.peek("a");
+        cache.put("c", new byte[30]);
+        assertNull(cache.peek("a"));
+        assertEquals(0, cache.hits() + cache.misses());
+    }
+
+    @Test
+    void rejectsValuesOverTheWholeBudget() {
+        ResultCache<String, byte[]> cache = cache(100);
+        cache.put("a", new byte[50]);
+        cache.put("big", new byte[101]);
+        assertNull(cache.peek("big"));
+        assertEquals(50, cache.bytes());
+        assertEquals(0, cache.evictions());
+        // an oversized replacement drops the old value instead of keeping it stale
+        cache.put("a", new byte[200]);
+        assertNull(cache.peek("a"));
+        assertEquals(0, cache.bytes());
+        // exactly the budget still fits
+        byte[] full = new byte[100];
+        cache.put("full", full);
+        assertSame(full, cache.peek("full"));
+    }
+
+    @Test
+    void replacingAValueRecountsItsSize() {
+        ResultCache<String, byte[]> cache = cache(100);
+        cache.put("a", new byte[60]);
+        cache.put("a", new byte[10]);
+        assertEquals(1, cache.size());
+        assertEquals(10, cache.bytes());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        ResultCache<String, byte[]> cache = cache(100);
+        assertNull(cache.get("a"));
+        cache.put("a", new byte[1]);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void budgetMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> cache(0));
+    }
+
+    @Test
+    void hashIsFnv1a() {
+        assertEquals(0xcbf29ce484222325L, ResultCache.hash(""));
+        assertEquals(0xaf63dc4c8601ec8cL, ResultCache.hash("a"));
+        assertNotEquals(ResultCache.hash("01"), ResultCache.hash("10"));
+    }
+}
@@ -0,0 +1,67 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** B8ZS and HDB3 round trips, through every decoder that handles them. */
+class ScramblingTest {
+    private static final int[] SIZES = {0, 1, 3, 4, 5, 8, 9, 16, 63, 64, 65, 1000, 100_000};
+
+    /** Longest run of zero level, in ticks. */
+    private static int longestZeroLevel(Waveform wave) {
+        int longest = 0;
+        for (int i = 0; i < wave.segmentCount(); i++) {
+            if (wave.level(i) == 0) longest = Math.max(longest, wave.end(i) - wave.start(i));
+        }
+        return longest;
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"AMI_B8ZS", "AMI_HDB3"})
+    void roundTrips(LineCode code) {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        // B8ZS leaves at most 7 zero bits in a row, HDB3 at most 3
+        int maxZeroTicks = (code == LineCode.AMI_B8ZS ? 7 : 3) * Waveform.TICKS_PER_BIT;
+        for (int n : SIZES) {
+            for (double density : new double[] {0, 0.02, 0.1, 0.5, 1}) {
+                BitBuffer bits = randomBits(random, n, density);
+                String where = code + ", " + n + " bits at density " + density;
+                Waveform wave = SignalEngine.encode(code, bits, TaskProgress.NONE);
+                assertEquals(n, wave.bitCount(), where);
+                assertTrue(longestZeroLevel(wave) <= maxZeroTicks, where + ": zero level for " + longestZeroLevel(wave) + " ticks");
+
+                assertSameBits(bits, SignalEngine.decode(code, wave, TaskProgress.NONE), where + ", decode");
+                assertSameBits(bits, SignalEngine.decodeSlotsScalar(code, wave.halfBitLevels(), n, TaskProgress.NONE), where + ", slots");
+                BitBuffer descrambled = new BitBuffer(n);
+                assertEquals(0, ByteTableCodec.descramble(code, wave, descrambled, TaskProgress.NONE), where + ": violations");
+                assertSameBits(bits, descrambled, where + ", descramble");
+
+                StreamingDecoder decoder = StreamingDecoder.create(code);
+                BitBuffer streamed = new BitBuffer(n);
+                for (int i = 0; i < wave.segmentCount(); i++) decoder.decode(wave.level(i), wave.end(i) - wave.start(i), streamed);
+                decoder.finish(streamed);
+                assertSameBits(bits, streamed, where + ", streaming");
+                assertEquals(0, decoder.codeViolations(), where + ": streaming violations");
+            }
+        }
+    }
+
+    @Test
+    void substitutionsBreakLongZeroRuns() {
+        BitBuffer zeros = new BitBuffer(64);
+        zeros.appendRepeated(0, 64);
+        for (LineCode code : new LineCode[] {LineCode.AMI_B8ZS, LineCode.AMI_HDB3}) {
+            Waveform wave = SignalEngine.encode(code, zeros, TaskProgress.NONE);
+            assertTrue(wave.segmentCount() > 16, code + " left " + wave.segmentCount() + " segments");
+            assertSameBits(zeros, SignalEngine.decode(code, wave, TaskProgress.NONE), code.label());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package dcproject;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.assertSameWaveform;
+import static dcproject.TestSignals.randomBits;
+
+/** Streaming encoders and decoders fed in random pieces against encoding and decoding in one go. */
+class StreamingCodecTest {
+    @ParameterizedTest
+    @EnumSource(LineCode.class)
+    void encoderMatchesWhole(LineCode code) {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        StreamingEncoder encoder = StreamingEncoder.create(code);
+        for (int trial = 0; trial < 50; trial++) {
+            BitBuffer bits = randomBits(random, random.nextInt(20_000));
+            Waveform streamed = new Waveform();
+            encoder.reset();
+            for (int from = 0; from < bits.size(); ) {
+                int to = Math.min(bits.size(), from + 1 + random.nextInt(random.nextBoolean() ? 16 : 3000));
+                encoder.encode(bits, from, to, streamed);
+                from = to;
+            }
+            encoder.finish(streamed);
+            assertSameWaveform(SignalEngine.encode(code, bits, TaskProgress.NONE), streamed, code + ", trial " + trial);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(LineCode.class)
+    void decoderMatchesWhole(LineCode code) {
+        SplittableRandom random = new SplittableRandom(100 + code.ordinal());
+        for (int trial = 0; trial < 50; trial++) {
+            BitBuffer bits = randomBits(random, 1 + random.nextInt(20_000));
+            Waveform wave = SignalEngine.encode(code, bits, TaskProgress.NONE);
+            StreamingDecoder decoder = StreamingDecoder.create(code);
+            BitBuffer streamed = new BitBuffer(bits.size());
+            // segments cut into pieces of any tick count, half bits included
+            for (int i = 0; i < wave.segmentCount(); i++) {
+                for (int left = wave.end(i) - wave.start(i); left > 0; ) {
+                    int ticks = Math.min(left, 1 + random.nextInt(5));
+                    decoder.decode(wave.level(i), ticks, streamed);
+                    left -= ticks;
+                }
+            }
+            decoder.finish(streamed);
+            assertSameBits(SignalEngine.decode(code, wave, TaskProgress.NONE), streamed, code + ", trial " + trial);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.assertSameWaveform;
+import static dcproject.TestSignals.randomBits;
+import static dcproject.TestSignals.slotsOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Multiplexed lines against the channels' own signals, slot by slot. */
+class TdmMultiplexerTest {
+    private static List<TdmMultiplexer.Channel> channels(SplittableRandom random, int n, int maxBits) {
+        LineCode[] codes = LineCode.values();
+        List<TdmMultiplexer.Channel> channels = new ArrayList<>(n);
+        for (int c = 0; c < n; c++) {
+            // some channels much shorter than the rest, so they idle for most of the line
+            int bits = random.nextInt(4) == 0 ? 1 + random.nextInt(40) : 1 + random.nextInt(maxBits);
+            channels.add(new TdmMultiplexer.Channel("ch" + c, codes[random.nextInt(codes.length)], randomBits(random, bits)));
+        }
+        return channels;
+    }
+
+    @Test
+    void slotsCarryEachChannelsSignal() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int slotBits : new int[] {1, 3, 7, 8, 13}) {
+            TdmMultiplexer tdm = new TdmMultiplexer(slotBits);
+            List<TdmMultiplexer.Channel> channels = channels(random, 1 + random.nextInt(6), 3000);
+            TdmMultiplexer.Line line = tdm.multiplex(channels, TaskProgress.NONE);
+            int n = channels.size(), slotTicks = slotBits * Waveform.TICKS_PER_BIT;
+            assertEquals((long) line.frames() * n * slotTicks, line.waveform().totalTicks(), slotBits + " slot bits: line length");
+
+            byte[] levels = slotsOf(line.waveform());
+            for (int c = 0; c < n; c++) {
+                String message = slotBits + " slot bits, channel " + c + " (" + channels.get(c).code() + ")";
+                Waveform signal = SignalEngine.encode(channels.get(c).code(), channels.get(c).bits(), TaskProgress.NONE);
+                assertSameWaveform(signal, line.signal(c), message + ": signal");
+                byte[] own = slotsOf(signal);
+                for (int t = 0; t < line.frames() * slotTicks; t++) {
+                    int at = t / slotTicks * n * slotTicks + c * slotTicks + t % slotTicks;
+                    int expected = t < own.length ? own[t] : 0;
+                    if (levels[at] != expected) assertEquals(expected, levels[at], message + ": tick " + t);
+                }
+                assertSameWaveform(signal, tdm.demultiplex(line.waveform(), n, c, channels.get(c).bits().size()), message + ": demultiplexed");
+            }
+        }
+    }
+
+    @Test
+    void decodesLikeEachChannelOnItsOwn() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int trial = 0; trial < 10; trial++) {
+            TdmMultiplexer tdm = new TdmMultiplexer(1 + 2 * random.nextInt(8));
+            List<TdmMultiplexer.Channel> channels = channels(random, 1 + random.nextInt(9), 20_000);
+            TdmMultiplexer.Line line = tdm.multiplex(channels, TaskProgress.NONE);
+            BitBuffer[] decoded = tdm.decode(line.waveform(), channels, TaskProgress.NONE);
+            for (int c = 0; c < channels.size(); c++) {
+                TdmMultiplexer.Channel channel = channels.get(c);
+                BitBuffer direct = SignalEngine.decode(channel.code(), SignalEngine.encode(channel.code(), channel.bits(), TaskProgress.NONE), TaskProgress.NONE);
+                assertSameBits(direct, decoded[c], tdm.slotBits() + " slot bits, channel " + c + " (" + channel.code() + ")");
+                assertEquals(0, TdmMultiplexer.bitErrors(direct, decoded[c]));
+            }
+        }
+    }
+
+    @Test
+    void lanesSpanTheLine() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int slotBits : new int[] {1, 5, 8}) {
+            List<TdmMultiplexer.Channel> channels = channels(random, 2 + random.nextInt(4), 2000);
+            TdmMultiplexer.Line line = new TdmMultiplexer(slotBits).multiplex(channels, TaskProgress.NONE);
+            byte[] levels = slotsOf(line.waveform());
+            int slotTicks = slotBits * Waveform.TICKS_PER_BIT, frameTicks = slotTicks * channels.size();
+            for (int c = 0; c < channels.size(); c++) {
+                Waveform lane = line.lane(c);
+                assertEquals(line.waveform().totalTicks(), lane.totalTicks(), slotBits + " slot bits, lane " + c);
+                byte[] own = slotsOf(lane);
+                for (int t = 0; t < levels.length; t++) {
+                    int expected = t % frameTicks / slotTicks == c ? levels[t] : 0;
+                    if (own[t] != expected) assertEquals(expected, own[t], slotBits + " slot bits, lane " + c + ": tick " + t);
+                }
+            }
+        }
+    }
+
+    @Test
+    void bitErrorsCountMissingBits() {
+        BitBuffer sent = randomBits(new SplittableRandom(1), 130, 0.5);
+        BitBuffer decoded = new BitBuffer();
+        decoded.append(sent, 0, 100);
+        decoded.set(3, 1 - decoded.get(3));
+        decoded.set(70, 1 - decoded.get(70));
+        assertEquals(32, TdmMultiplexer.bitErrors(sent, decoded));
+    }
+}
@@ -0,0 +1,126 @@
+package dcproject;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Inputs and assertions shared by the equivalence tests. */
+final class TestSignals {
+    private TestSignals() { }
+
+    /** {@code n} bits, each 1 with probability {@code density}; low densities give long zero runs. */
+    static BitBuffer randomBits(SplittableRandom random, int n, double density) {
+        BitBuffer bits = new BitBuffer(n);
+        for (int i = 0; i < n; i++) bits.append(random.nextDouble() < density ? 1 : 0);
+        return bits;
+    }
+
+    /** Random bits with a random density, so runs of every length turn up. */
+    static BitBuffer randomBits(SplittableRandom random, int n) {
+        double[] densities = {0.5, 0.5, 0.1, 0.02, 0.9, 0};
+        return randomBits(random, n, densities[random.nextInt(densities.length)]);
+    }
+
+    /**
+     * Half-bit levels of {@code bits} in {@code code}, straight from the definitions: NRZ-I and
+     * Differential Manchester start from level +1 and AMI's first pulse is +1.
+     */
+    static byte[] referenceSlots(LineCode code, BitBuffer bits) {
+        byte[] slots = new byte[bits.size() * Waveform.TICKS_PER_BIT];
+        int level = 1, pulse = -1;
+        for (int b = 0; b < bits.size(); b++) {
+            int bit = bits.get(b), first, second;
+            switch (code) {
+                case NRZ_L:
+                    first = second = bit == 1 ? 1 : -1;
+                    break;
+                case NRZ_I:
+                    if (bit == 1) level = -level;
+                    first = second = level;
+                    break;
+                case MANCHESTER:
+                    first = bit == 1 ? 1 : -1;
+                    second = -first;
+                    break;
+                case DIFF_MANCHESTER:
+                    // a 0 changes level at the bit start, then every bit changes mid-bit
+                    if (bit == 0) level = -level;
+                    first = level;
+                    second = -level;
+                    break;
+                case AMI:
+                    if (bit == 1) pulse = -pulse;
+                    first = second = bit == 1 ? pulse : 0;
+                    break;
+                default:
+                    throw new IllegalArgumentException("no reference for " + code);
+            }
+            slots[2 * b] = (byte) first;
+            slots[2 * b + 1] = (byte) second;
+        }
+        return slots;
+    }
+
+    /**
+     * Bits decoded from half-bit levels by the rules {@link SignalEngine#decode} documents: NRZ-I
+     * and Differential Manchester compare against the previous bit, bit 0 against slot 0 itself.
+     */
+    static BitBuffer referenceDecode(LineCode code, byte[] slots, int numBits) {
+        BitBuffer out = new BitBuffer(numBits);
+        int reference = numBits == 0 ? 0 : slots[0];
+        for (int b = 0; b < numBits; b++) {
+            int first = slots[2 * b], second = slots[2 * b + 1];
+            switch (code) {
+                case NRZ_L: out.append(first > 0 ? 1 : 0); break;
+                case NRZ_I: out.append(second != reference ? 1 : 0); reference = second; break;
+                case MANCHESTER: out.append(first > second ? 1 : 0); break;
+                case DIFF_MANCHESTER: out.append(first == reference ? 1 : 0); reference = first; break;
+                case AMI: out.append(first != 0 ? 1 : 0); break;
+                default: throw new IllegalArgumentException("no reference for " + code);
+            }
+        }
+        return out;
+    }
+
+    /** The level of every half-bit tick of {@code wave}. */
+    static byte[] slotsOf(Waveform wave) {
+        byte[] slots = new byte[wave.totalTicks()];
+        for (int i = 0; i < wave.segmentCount(); i++) {
+            for (int t = wave.start(i); t < wave.end(i); t++) slots[t] = (byte) wave.level(i);
+        }
+        return slots;
+    }
+
+    /** Levels anywhere in -1..1, including code violations and Manchester bits without a mid-bit change. */
+    static byte[] randomSlots(SplittableRandom random, int numBits) {
+        byte[] slots = new byte[numBits * Waveform.TICKS_PER_BIT];
+        for (int i = 0; i < slots.length; i++) slots[i] = (byte) (random.nextInt(3) - 1);
+        return slots;
+    }
+
+    /** A waveform of one tick per slot, merged as usual. */
+    static Waveform fromSlots(byte[] slots) {
+        Waveform wave = new Waveform();
+        for (byte s : slots) wave.append(s, 1);
+        return wave;
+    }
+
+    static void assertSameWaveform(Waveform expected, Waveform actual, String message) {
+        assertEquals(expected.segmentCount(), actual.segmentCount(), message + ": segments");
+        for (int i = 0; i < expected.segmentCount(); i++) {
+            if (expected.level(i) != actual.level(i) || expected.end(i) != actual.end(i)) {
+                assertEquals(expected.level(i) + "@" + expected.end(i), actual.level(i) + "@" + actual.end(i), message + ": segment " + i);
+            }
+        }
+    }
+
+    static void assertSameBits(BitBuffer expected, BitBuffer actual, String message) {
+        assertEquals(expected.size(), actual.size(), message + ": size");
+        for (int w = 0; w < expected.wordCount(); w++) {
+            if (expected.word(w) != actual.word(w)) {
+                int bit = (w << 6) + Long.numberOfTrailingZeros(expected.word(w) ^ actual.word(w));
+                assertEquals(expected.get(bit), actual.get(bit), message + ": bit " + bit);
+            }
+        }
+    }
+}
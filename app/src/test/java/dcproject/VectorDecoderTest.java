@@ -0,0 +1,58 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameBits;
+import static dcproject.TestSignals.randomBits;
+import static dcproject.TestSignals.randomSlots;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/** The vector and byte-table decoders against {@link SignalEngine#decodeSlotsScalar}. */
+class VectorDecoderTest {
+    private static final int[] SIZES = {0, 1, 2, 3, 7, 8, 9, 15, 16, 17, 31, 32, 33, 63, 64, 65, 127, 1000, 4097, 70_000};
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"NRZ_L", "NRZ_I", "MANCHESTER", "DIFF_MANCHESTER", "AMI"})
+    void matchesScalar(LineCode code) {
+        assumeTrue(SignalEngine.isVectorDecodeAvailable(), "run with --add-modules jdk.incubator.vector");
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        for (int n : SIZES) {
+            byte[] slots = randomSlots(random, n);
+            assertSameBits(SignalEngine.decodeSlotsScalar(code, slots, n, TaskProgress.NONE),
+                    VectorDecoder.decodeSlots(code, slots, n, TaskProgress.NONE), code + ", random " + n + " bits");
+            // longer slot arrays than needed must not leak into the result
+            byte[] longer = randomSlots(random, n + 5);
+            assertSameBits(SignalEngine.decodeSlotsScalar(code, longer, n, TaskProgress.NONE),
+                    VectorDecoder.decodeSlots(code, longer, n, TaskProgress.NONE), code + ", " + n + " of " + (n + 5) + " bits");
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LineCode.class, names = {"NRZ_L", "NRZ_I", "MANCHESTER", "DIFF_MANCHESTER", "AMI"})
+    void byteTablesMatchScalar(LineCode code) {
+        SplittableRandom random = new SplittableRandom(100 + code.ordinal());
+        for (int n : SIZES) {
+            Waveform encoded = SignalEngine.encode(code, randomBits(random, n), TaskProgress.NONE);
+            assertSameBits(SignalEngine.decodeSlotsScalar(code, encoded.halfBitLevels(), n, TaskProgress.NONE),
+                    ByteTableCodec.decode(code, encoded, TaskProgress.NONE), code + ", encoded " + n + " bits");
+            byte[] slots = randomSlots(random, n);
+            assertSameBits(SignalEngine.decodeSlotsScalar(code, slots, n, TaskProgress.NONE),
+                    ByteTableCodec.decode(code, TestSignals.fromSlots(slots), TaskProgress.NONE), code + ", random " + n + " bits");
+        }
+    }
+
+    @Test
+    void decodeSlotsMatchesScalarForEveryCode() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (LineCode code : LineCode.values()) {
+            Waveform encoded = SignalEngine.encode(code, randomBits(random, 10_000, 0.1), TaskProgress.NONE);
+            byte[] slots = encoded.halfBitLevels();
+            assertSameBits(SignalEngine.decodeSlotsScalar(code, slots, encoded.bitCount(), TaskProgress.NONE),
+                    SignalEngine.decodeSlots(code, slots, encoded.bitCount(), TaskProgress.NONE), code.label());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package dcproject;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static dcproject.TestSignals.assertSameWaveform;
+import static dcproject.TestSignals.randomBits;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/** Exports read back and written out against hand-made expectations. */
+class WaveformExporterTest {
+    @TempDir
+    Path dir;
+
+    /** +1 for a bit, -1 for half a bit, 0 for a bit and a half, +1 for half a bit, fed in pieces that merge. */
+    private static Waveform known() {
+        Waveform wave = new Waveform();
+        wave.append(1, 1);
+        wave.append(1, 1);
+        wave.append(-1, 1);
+        wave.append(0, 3);
+        wave.append(1, 1);
+        return wave;
+    }
+
+    @ParameterizedTest
+    @EnumSource(LineCode.class)
+    void compactExportsReadBack(LineCode code) throws IOException {
+        SplittableRandom random = new SplittableRandom(code.ordinal());
+        for (int n : new int[] {1, 2, 63, 5000, 300_000}) {
+            Waveform wave = SignalEngine.encode(code, randomBits(random, n), TaskProgress.NONE);
+            Path file = dir.resolve(code.name() + n + ".dcwf");
+            WaveformExporter.export(wave, file, WaveformExporter.Format.COMPACT, code.label() + " ünïcode title", TaskProgress.NONE);
+            assertSameWaveform(wave, WaveformExporter.read(file), code + ", " + n + " bits");
+        }
+    }
+
+    @Test
+    void longRunsReadBack() throws IOException {
+        Waveform wave = new Waveform();
+        wave.append(0, Integer.MAX_VALUE / 2);
+        wave.append(-1, 1);
+        wave.append(1, 1 << 20);
+        Path file = dir.resolve("long.dcwf");
+        WaveformExporter.export(wave, file, WaveformExporter.Format.COMPACT, "", TaskProgress.NONE);
+        assertSameWaveform(wave, WaveformExporter.read(file), "long runs");
+    }
+
+    @Test
+    void truncatedFilesAreRejected() throws IOException {
+        Waveform wave = SignalEngine.encode(LineCode.AMI, randomBits(new SplittableRandom(2), 100_000), TaskProgress.NONE);
+        Path file = dir.resolve("whole.dcwf");
+        WaveformExporter.export(wave, file, WaveformExporter.Format.COMPACT, "title", TaskProgress.NONE);
+        byte[] bytes = Files.readAllBytes(file);
+        Path cut = dir.resolve("cut.dcwf");
+        for (int length : new int[] {0, 3, 6, 12, bytes.length / 2, bytes.length - 3, bytes.length - 1}) {
+            Files.write(cut, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> WaveformExporter.read(cut), length + " of " + bytes.length + " bytes");
+        }
+        bytes[0] = 'X';
+        Files.write(cut, bytes);
+        assertThrows(IOException.class, () -> WaveformExporter.read(cut), "bad magic");
+    }
+
+    @Test
+    void vcdListsEveryChange() throws IOException {
+        Path file = dir.resolve("known.vcd");
+        WaveformExporter.export(known(), file, WaveformExporter.Format.VCD, "known", TaskProgress.NONE);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("$comment known $end", lines.get(0));
+        int end = lines.indexOf("$enddefinitions $end");
+        assertEquals(List.of("#0", "r1 !", "#2", "r-1 !", "#3", "r0 !", "#6", "r1 !", "#7"), lines.subList(end + 1, lines.size()));
+    }
+
+    @Test
+    void csvListsEveryChangeInBitPeriods() throws IOException {
+        Path file = dir.resolve("known.csv");
+        WaveformExporter.export(known(), file, WaveformExporter.Format.CSV, "known", TaskProgress.NONE);
+        assertEquals(List.of("time,level", "0,1", "1,-1", "1.5,0", "3,1", "3.5,1"), Files.readAllLines(file));
+    }
+
+    @Test
+    void formatsFollowTheExtension() {
+        assertEquals(WaveformExporter.Format.COMPACT, WaveformExporter.Format.of(Path.of("a.b.DCWF")));
+        assertEquals(WaveformExporter.Format.VCD, WaveformExporter.Format.parse("vcd"));
+        assertThrows(IllegalArgumentException.class, () -> WaveformExporter.Format.of(Path.of("noextension")));
+    }
+}
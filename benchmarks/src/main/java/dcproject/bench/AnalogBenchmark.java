@@ -0,0 +1,94 @@
+package dcproject.bench;
+
+import dcproject.AnalogFrontEnd;
+import dcproject.BitBuffer;
+import dcproject.SignalEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PCM and delta modulation of a noisy sine; {@code size} is the number of output bits. The
+ * {@code frontEnd*} benchmarks run the same samples through {@link AnalogFrontEnd}, whose PCM
+ * blocks are split across the fork-join pool from 64k samples.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AnalogBenchmark {
+    private static final int PCM_BITS = 8;
+
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    private static final AnalogFrontEnd LINEAR = AnalogFrontEnd.pcm(PCM_BITS, -1.0, 1.0, AnalogFrontEnd.Companding.LINEAR);
+    private static final AnalogFrontEnd MU_LAW = AnalogFrontEnd.pcm(PCM_BITS, -1.0, 1.0, AnalogFrontEnd.Companding.MU_LAW);
+    private static final AnalogFrontEnd CVSD = AnalogFrontEnd.cvsd(0.01, 0.16);
+
+    private double[] pcmSamples, dmSamples;
+    private BitBuffer pcmBits;
+
+    @Setup
+    public void setUp() {
+        pcmSamples = samples(size / PCM_BITS);
+        dmSamples = samples(size + 1);
+        pcmBits = LINEAR.encode(pcmSamples);
+    }
+
+    private static double[] samples(int n) {
+        SplittableRandom random = new SplittableRandom(42);
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) out[i] = Math.sin(i * 0.01) + 0.05 * (random.nextDouble() - 0.5);
+        return out;
+    }
+
+    @Benchmark
+    public BitBuffer pcmEncode(BitCounter counter) {
+        counter.bits += (long) pcmSamples.length * PCM_BITS;
+        return SignalEngine.pcmEncode(pcmSamples, PCM_BITS, -1.0, 1.0);
+    }
+
+    @Benchmark
+    public BitBuffer deltaModulate(BitCounter counter) {
+        counter.bits += dmSamples.length - 1;
+        return SignalEngine.deltaModulate(dmSamples, 0.1);
+    }
+
+    @Benchmark
+    public BitBuffer frontEndPcm(BitCounter counter) {
+        counter.bits += (long) pcmSamples.length * PCM_BITS;
+        return LINEAR.encode(pcmSamples);
+    }
+
+    @Benchmark
+    public BitBuffer frontEndMuLaw(BitCounter counter) {
+        counter.bits += (long) pcmSamples.length * PCM_BITS;
+        return MU_LAW.encode(pcmSamples);
+    }
+
+    @Benchmark
+    public BitBuffer frontEndCvsd(BitCounter counter) {
+        counter.bits += dmSamples.length;
+        return CVSD.encode(dmSamples);
+    }
+
+    @Benchmark
+    public double[] frontEndReconstructPcm(BitCounter counter) {
+        counter.bits += pcmBits.size();
+        return LINEAR.reconstruct(pcmBits);
+    }
+}
@@ -0,0 +1,72 @@
+package dcproject.bench;
+
+import dcproject.BitAnalytics;
+import dcproject.BitBuffer;
+import dcproject.SignalEngine;
+import dcproject.TaskProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AnalysisBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"RANDOM", "ALL_ZEROS", "LONG_ZERO_RUNS"})
+    BitPattern pattern;
+
+    private static final Set<BitAnalytics.Metric> WORD_METRICS =
+            EnumSet.of(BitAnalytics.Metric.RUNS, BitAnalytics.Metric.TRANSITIONS, BitAnalytics.Metric.DENSITY);
+
+    private BitBuffer bits;
+    private String bitString;
+
+    @Setup
+    public void setUp() {
+        bits = pattern.generate(size, 42);
+        bitString = SignalEngine.bitsToString(bits);
+    }
+
+    @Benchmark
+    public String longestPalindrome(BitCounter counter) {
+        counter.bits += size;
+        return SignalEngine.manachersLongestPalindrome(bitString, TaskProgress.NONE);
+    }
+
+    @Benchmark
+    public long longestPalindromePacked(BitCounter counter) {
+        counter.bits += size;
+        return BitAnalytics.longestPalindrome(bits, TaskProgress.NONE);
+    }
+
+    /** Runs, transitions and density in one word pass. */
+    @Benchmark
+    public BitAnalytics.Report analyzeWords(BitCounter counter) {
+        counter.bits += size;
+        return BitAnalytics.analyze(bits, WORD_METRICS, TaskProgress.NONE);
+    }
+
+    @Benchmark
+    public int longestZeroRun(BitCounter counter) {
+        counter.bits += size;
+        return SignalEngine.longestZeroRun(bits);
+    }
+}
@@ -0,0 +1,19 @@
+package dcproject.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Secondary result reporting processed bits, so throughput reads as bits per second next to ops per second. */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class BitCounter {
+    public long bits;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        bits = 0;
+    }
+}
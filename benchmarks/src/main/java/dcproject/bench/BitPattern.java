@@ -0,0 +1,41 @@
+package dcproject.bench;
+
+import dcproject.BitBuffer;
+
+import java.util.SplittableRandom;
+
+/** Input distributions for the benchmarks; generation is seeded so every fork sees the same bits. */
+public enum BitPattern {
+    /** Independent fair bits. */
+    RANDOM {
+        @Override
+        long word(SplittableRandom random) {
+            return random.nextLong();
+        }
+    },
+    /** Worst case for the scramblers and best case for run-length storage. */
+    ALL_ZEROS {
+        @Override
+        long word(SplittableRandom random) {
+            return 0L;
+        }
+    },
+    /** About one 1 in 64 bits, so zero runs average 64 bits and often exceed the B8ZS/HDB3 limits. */
+    LONG_ZERO_RUNS {
+        @Override
+        long word(SplittableRandom random) {
+            long w = -1L;
+            for (int i = 0; i < 6; i++) w &= random.nextLong();
+            return w;
+        }
+    };
+
+    abstract long word(SplittableRandom random);
+
+    public BitBuffer generate(int size, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BitBuffer bits = new BitBuffer(size);
+        for (int left = size; left > 0; left -= 64) bits.appendBits(word(random), Math.min(64, left));
+        return bits;
+    }
+}
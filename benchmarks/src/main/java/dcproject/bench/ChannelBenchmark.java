@@ -0,0 +1,51 @@
+package dcproject.bench;
+
+import dcproject.ChannelSimulator;
+import dcproject.LineCode;
+import dcproject.TaskProgress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** One Eb/N0 point of a channel simulation on all cores, with and without jitter and band limiting. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ChannelBenchmark {
+    private static final double[] EB_N0_DB = {6};
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"NRZ_L", "MANCHESTER", "AMI_HDB3"})
+    LineCode code;
+
+    @Param({"false", "true"})
+    boolean impaired;
+
+    private ChannelSimulator simulator;
+
+    @Setup
+    public void setUp() {
+        simulator = impaired ? new ChannelSimulator(code, 0.02, 1.0, 4) : new ChannelSimulator(code, 0, 0, 4);
+    }
+
+    @Benchmark
+    public ChannelSimulator.Point[] sweep(BitCounter counter) {
+        counter.bits += size;
+        return simulator.sweep(EB_N0_DB, size, 42, TaskProgress.NONE);
+    }
+}
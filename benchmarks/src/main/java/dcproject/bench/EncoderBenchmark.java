@@ -0,0 +1,57 @@
+package dcproject.bench;
+
+import dcproject.BitBuffer;
+import dcproject.LineCode;
+import dcproject.ParallelEncoder;
+import dcproject.SignalEngine;
+import dcproject.TaskProgress;
+import dcproject.Waveform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EncoderBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"RANDOM", "ALL_ZEROS", "LONG_ZERO_RUNS"})
+    BitPattern pattern;
+
+    @Param({"NRZ_L", "NRZ_I", "MANCHESTER", "DIFF_MANCHESTER", "AMI", "AMI_B8ZS", "AMI_HDB3"})
+    LineCode code;
+
+    private BitBuffer bits;
+
+    @Setup
+    public void setUp() {
+        bits = pattern.generate(size, 42);
+    }
+
+    @Benchmark
+    public Waveform encode(BitCounter counter) {
+        counter.bits += size;
+        return SignalEngine.encode(code, bits, TaskProgress.NONE);
+    }
+
+    @Benchmark
+    public Waveform encodeParallel(BitCounter counter) {
+        counter.bits += size;
+        return ParallelEncoder.encode(code, bits, TaskProgress.NONE);
+    }
+}
@@ -0,0 +1,63 @@
+package dcproject.bench;
+
+import dcproject.LineCode;
+import dcproject.SignalEngine;
+import dcproject.TaskProgress;
+import dcproject.Waveform;
+import dcproject.WaveformExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** Exports an encoded waveform to a temporary file in each format, page cache included. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExportBenchmark {
+    @Param({"1000000"})
+    int size;
+
+    @Param({"NRZ_L", "MANCHESTER"})
+    LineCode code;
+
+    @Param({"VCD", "CSV", "COMPACT"})
+    WaveformExporter.Format format;
+
+    private Waveform wave;
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        wave = SignalEngine.encode(code, BitPattern.RANDOM.generate(size, 42), TaskProgress.NONE);
+        file = Files.createTempFile("export", "." + format.extension());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path export(BitCounter counter) throws IOException {
+        counter.bits += size;
+        WaveformExporter.export(wave, file, format, code.label(), TaskProgress.NONE);
+        return file;
+    }
+}
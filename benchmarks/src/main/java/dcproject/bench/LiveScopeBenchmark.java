@@ -0,0 +1,62 @@
+package dcproject.bench;
+
+import dcproject.LineCode;
+import dcproject.LiveScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two halves of the live scope without their threads: the producer generating and encoding
+ * a chunk into the ring, and one frame of the newest {@code window} bits rendered into the back
+ * buffer. Run with {@code -prof gc} to check that neither allocates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class LiveScopeBenchmark {
+    private static final int WIDTH = 1600, HEIGHT = 400, CHUNK = 1 << 14;
+
+    @Param({"RANDOM", "PRBS23"})
+    LiveScope.Source source;
+
+    @Param({"NRZ_L", "AMI_HDB3"})
+    LineCode code;
+
+    @Param({"1024", "65536"})
+    int window;
+
+    private LiveScope scope;
+
+    @Setup
+    public void setUp() {
+        scope = new LiveScope(code, source, null, 10_000_000);
+        scope.setWindowBits(window);
+        for (int i = 0; i < 2 * LiveScope.MAX_WINDOW_BITS / CHUNK; i++) scope.pump(CHUNK);
+    }
+
+    @Benchmark
+    public LiveScope pump(BitCounter counter) {
+        counter.bits += CHUNK;
+        scope.pump(CHUNK);
+        return scope;
+    }
+
+    @Benchmark
+    public boolean frame() {
+        return scope.renderFrame(WIDTH, HEIGHT);
+    }
+}
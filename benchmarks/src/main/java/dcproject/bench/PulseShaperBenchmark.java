@@ -0,0 +1,66 @@
+package dcproject.bench;
+
+import dcproject.LineCode;
+import dcproject.PulseShaper;
+import dcproject.SignalEngine;
+import dcproject.TaskProgress;
+import dcproject.Waveform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pulse shaping of an encoded signal into a sink that only consumes the chunks; the {@code :bits}
+ * rate times {@code samplesPerBit} is the sample rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PulseShaperBenchmark {
+    @Param({"1000000"})
+    int size;
+
+    @Param({"RANDOM"})
+    BitPattern pattern;
+
+    @Param({"NRZ_L", "MANCHESTER", "AMI_HDB3"})
+    LineCode code;
+
+    @Param({"RAISED_COSINE", "GAUSSIAN"})
+    PulseShaper.Shape shape;
+
+    @Param({"8", "16", "32"})
+    int samplesPerBit;
+
+    private Waveform wave;
+    private PulseShaper shaper;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        wave = SignalEngine.encode(code, pattern.generate(size, 42), TaskProgress.NONE);
+        shaper = new PulseShaper(shape, shape.defaultParameter(), samplesPerBit, (samples, count) -> blackhole.consume(samples));
+    }
+
+    @Benchmark
+    public long shape(BitCounter counter) {
+        counter.bits += size;
+        shaper.append(wave);
+        long samples = shaper.samples();
+        shaper.finish();
+        return samples;
+    }
+}
@@ -0,0 +1,93 @@
+package dcproject.bench;
+
+import dcproject.LineCode;
+import dcproject.SignalEngine;
+import dcproject.TaskProgress;
+import dcproject.Waveform;
+import dcproject.WaveformPyramid;
+import dcproject.WaveformRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Off-screen frame painting as the graph panel does it: the whole signal fitted to the width, and
+ * a zoomed window of 64 bits that takes the exact-segment path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class RenderBenchmark {
+    private static final int WIDTH = 1600, HEIGHT = 400;
+
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"RANDOM", "ALL_ZEROS", "LONG_ZERO_RUNS"})
+    BitPattern pattern;
+
+    @Param({"NRZ_L", "MANCHESTER", "AMI_HDB3"})
+    LineCode code;
+
+    private Waveform wave;
+    private WaveformPyramid pyramid;
+    private final WaveformRenderer renderer = new WaveformRenderer();
+    private final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    private final Rectangle area = new Rectangle(0, 0, WIDTH, HEIGHT);
+    private Graphics2D g2;
+
+    @Setup
+    public void setUp() {
+        wave = SignalEngine.encode(code, pattern.generate(size, 42), TaskProgress.NONE);
+        pyramid = WaveformPyramid.build(wave);
+        g2 = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public WaveformPyramid buildPyramid(BitCounter counter) {
+        counter.bits += size;
+        return WaveformPyramid.build(wave);
+    }
+
+    @Benchmark
+    public BufferedImage paintFit(BitCounter counter) {
+        counter.bits += size;
+        return paint(0, (double) wave.totalTicks() / WIDTH);
+    }
+
+    @Benchmark
+    public BufferedImage paintZoomed() {
+        double ticks = Math.min(64 * Waveform.TICKS_PER_BIT, wave.totalTicks());
+        return paint(wave.totalTicks() / 2.0 - ticks / 2, ticks / WIDTH);
+    }
+
+    private BufferedImage paint(double viewStart, double ticksPerPixel) {
+        g2.setColor(Color.BLACK);
+        g2.fillRect(0, 0, WIDTH, HEIGHT);
+        renderer.paint(g2, pyramid, area, viewStart, ticksPerPixel);
+        return image;
+    }
+}
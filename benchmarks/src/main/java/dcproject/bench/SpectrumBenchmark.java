@@ -0,0 +1,67 @@
+package dcproject.bench;
+
+import dcproject.LineCode;
+import dcproject.SignalEngine;
+import dcproject.Spectrum;
+import dcproject.TaskProgress;
+import dcproject.Waveform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Welch PSD of an encoded signal as the spectrum tab computes it, and the bare in-place FFT. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SpectrumBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"RANDOM"})
+    BitPattern pattern;
+
+    @Param({"NRZ_L", "MANCHESTER", "AMI_HDB3"})
+    LineCode code;
+
+    private Waveform wave;
+    private final Spectrum spectrum = new Spectrum(Spectrum.DEFAULT_SEGMENT);
+    private final double[] input = new double[Spectrum.DEFAULT_SEGMENT];
+    private final double[] re = new double[Spectrum.DEFAULT_SEGMENT], im = new double[Spectrum.DEFAULT_SEGMENT];
+
+    @Setup
+    public void setUp() {
+        wave = SignalEngine.encode(code, pattern.generate(size, 42), TaskProgress.NONE);
+        Random random = new Random(42);
+        for (int i = 0; i < input.length; i++) input[i] = random.nextGaussian();
+    }
+
+    @Benchmark
+    public Spectrum.Psd welch(BitCounter counter) {
+        counter.bits += size;
+        return Spectrum.of(wave, TaskProgress.NONE);
+    }
+
+    /** One 1024-point transform of a real segment, including the copy into the work buffers. */
+    @Benchmark
+    public double[] fft() {
+        System.arraycopy(input, 0, re, 0, input.length);
+        Arrays.fill(im, 0);
+        spectrum.fft(re, im);
+        return re;
+    }
+}
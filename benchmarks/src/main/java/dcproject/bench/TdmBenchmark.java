@@ -0,0 +1,70 @@
+package dcproject.bench;
+
+import dcproject.BitBuffer;
+import dcproject.LineCode;
+import dcproject.TaskProgress;
+import dcproject.TdmMultiplexer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multiplexing and demultiplex + decode of {@code channels} random channels of {@code size} bits
+ * each, cycling through every line code; the {@code :bits} rate counts all channels' bits.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TdmBenchmark {
+    @Param({"100000"})
+    int size;
+
+    @Param({"4", "32"})
+    int channels;
+
+    @Param({"8"})
+    int slotBits;
+
+    private TdmMultiplexer mux;
+    private List<TdmMultiplexer.Channel> layout;
+    private TdmMultiplexer.Line line;
+
+    @Setup
+    public void setUp() {
+        mux = new TdmMultiplexer(slotBits);
+        layout = new ArrayList<>(channels);
+        LineCode[] codes = LineCode.values();
+        for (int c = 0; c < channels; c++) {
+            BitBuffer bits = BitPattern.RANDOM.generate(size, c + 1);
+            layout.add(new TdmMultiplexer.Channel("ch" + c, codes[c % codes.length], bits));
+        }
+        line = mux.multiplex(layout, TaskProgress.NONE);
+    }
+
+    @Benchmark
+    public TdmMultiplexer.Line multiplex(BitCounter counter) {
+        counter.bits += (long) size * channels;
+        return mux.multiplex(layout, TaskProgress.NONE);
+    }
+
+    @Benchmark
+    public BitBuffer[] demultiplexDecode(BitCounter counter) {
+        counter.bits += (long) size * channels;
+        return mux.decode(line.waveform(), layout, TaskProgress.NONE);
+    }
+}
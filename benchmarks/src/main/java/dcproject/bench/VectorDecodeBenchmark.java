@@ -0,0 +1,59 @@
+package dcproject.bench;
+
+import dcproject.BitBuffer;
+import dcproject.LineCode;
+import dcproject.SignalEngine;
+import dcproject.TaskProgress;
+import dcproject.VectorDecoder;
+import dcproject.Waveform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Scalar against SIMD decoding of half-bit level arrays; the fork adds the incubator module. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class VectorDecodeBenchmark {
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"RANDOM"})
+    BitPattern pattern;
+
+    @Param({"NRZ_L", "NRZ_I", "MANCHESTER", "DIFF_MANCHESTER", "AMI"})
+    LineCode code;
+
+    private byte[] slots;
+
+    @Setup
+    public void setUp() {
+        Waveform wave = SignalEngine.encode(code, pattern.generate(size, 42), TaskProgress.NONE);
+        slots = wave.halfBitLevels();
+    }
+
+    @Benchmark
+    public BitBuffer scalar(BitCounter counter) {
+        counter.bits += size;
+        return SignalEngine.decodeSlotsScalar(code, slots, size, TaskProgress.NONE);
+    }
+
+    @Benchmark
+    public BitBuffer vector(BitCounter counter) {
+        counter.bits += size;
+        return VectorDecoder.decodeSlots(code, slots, size, TaskProgress.NONE);
+    }
+}